@@ -0,0 +1,94 @@
+package com.dfa.imdb_search_api.benchmarks;
+
+import com.dfa.imdb_search_api.elastic.commands.Command;
+import com.dfa.imdb_search_api.elastic.commands.impl.FilmBulkCreationCommand;
+import com.dfa.imdb_search_api.elastic.commands.impl.RatingBulkCreationCommand;
+import com.dfa.imdb_search_api.elastic.ingest.BulkBuffer;
+import com.dfa.imdb_search_api.elastic.ingest.tsv.TsvRecordReader;
+import org.elasticsearch.xcontent.XContentType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the whole ingest path of a row, from the raw bytes of the line to the action encoded in the bulk, as done
+ * by the commands of each dataset.
+ * <p>
+ * Each invocation processes {@link #ROWS} rows, so the scores are given per row. The bulks are filled up to the
+ * bulk size of the pipeline and then released to their pool, like the ones already answered by ElasticSearch,
+ * so the gc profiler reports the bytes allocated per row in steady state.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CommandBenchmark {
+
+    static final int ROWS = 50_000;
+    private static final int BULK_SIZE = 5 * 1024 * 1024;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    @Param({"JSON", "SMILE"})
+    public String contentType;
+
+    private XContentType xContentType;
+    private BulkBuffer.BufferPool pool;
+    private byte[] films;
+    private byte[] ratings;
+
+    @Setup
+    public void setUp() {
+        xContentType = XContentType.valueOf(contentType);
+        pool = new BulkBuffer.BufferPool(2, BULK_SIZE + 64 * 1024, 2 * BULK_SIZE);
+        films = SyntheticImdbRows.films(ROWS);
+        ratings = SyntheticImdbRows.ratings(ROWS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int films() throws IOException {
+        return process(films, new FilmBulkCreationCommand());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int ratings() throws IOException {
+        return process(ratings, new RatingBulkCreationCommand());
+    }
+
+    /**
+     * Helper method, runs the command over every row of the dataset, like the sequential load does.
+     *
+     * @return The number of actions written, so the work can't be discarded.
+     */
+    private int process(byte[] dataset, Command command) throws IOException {
+        int actions = 0;
+        var bulk = new BulkBuffer(xContentType, pool);
+        try (var reader = new TsvRecordReader(new ByteArrayInputStream(dataset), READ_BUFFER_SIZE)) {
+            // Skip the header of the file
+            reader.next();
+            while (reader.next()) {
+                command.execute(reader.record(), bulk);
+                if (bulk.size() >= BULK_SIZE) {
+                    actions += bulk.numberOfActions();
+                    bulk.release();
+                    bulk = new BulkBuffer(xContentType, pool);
+                }
+            }
+            command.finish(bulk);
+        } finally {
+            actions += bulk.numberOfActions();
+            bulk.release();
+        }
+        return actions;
+    }
+}
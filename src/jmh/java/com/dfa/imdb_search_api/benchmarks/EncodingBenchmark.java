@@ -0,0 +1,124 @@
+package com.dfa.imdb_search_api.benchmarks;
+
+import com.dfa.imdb_search_api.POJO.Film;
+import com.dfa.imdb_search_api.POJO.Rating;
+import com.dfa.imdb_search_api.elastic.commands.impl.FilmBulkCreationCommand;
+import com.dfa.imdb_search_api.elastic.ingest.BulkBuffer;
+import com.dfa.imdb_search_api.elastic.ingest.tsv.TsvRecord;
+import com.dfa.imdb_search_api.elastic.ingest.tsv.TsvRecordReader;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.elasticsearch.xcontent.XContentBuilder;
+import org.elasticsearch.xcontent.XContentType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the encoding of already parsed films and ratings into JSON documents, comparing the streaming
+ * generator writing into the bulk with the serialization of the POJOs to byte arrays with Jackson.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class EncodingBenchmark {
+
+    private static final int ROWS = 10_000;
+
+    private final ExposedFilmCommand filmCommand = new ExposedFilmCommand();
+    private final ObjectWriter filmWriter = new ObjectMapper().writerFor(Film.class);
+    private final ObjectWriter ratingWriter = new ObjectMapper().writerFor(Rating.class);
+    private BulkBuffer.BufferPool pool;
+    private List<Film> films;
+    private List<Rating> ratings;
+
+    @Setup
+    public void setUp() throws IOException {
+        pool = new BulkBuffer.BufferPool(1, 8 * 1024 * 1024, 16 * 1024 * 1024);
+        films = new ArrayList<>(ROWS);
+        try (var reader = new TsvRecordReader(new ByteArrayInputStream(SyntheticImdbRows.films(ROWS)))) {
+            reader.next();
+            while (reader.next())
+                films.add(filmCommand.createFilmFromRecord(reader.record()));
+        }
+        ratings = new ArrayList<>(ROWS);
+        try (var reader = new TsvRecordReader(new ByteArrayInputStream(SyntheticImdbRows.ratings(ROWS)))) {
+            reader.next();
+            while (reader.next()) {
+                var record = reader.record();
+                ratings.add(new Rating(record.nextString(), record.nextFloat(0), record.nextInt(0)));
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int filmsXContent() throws IOException {
+        var bulk = new BulkBuffer(XContentType.JSON, pool);
+        try {
+            for (var film : films)
+                bulk.index("imdb", film.getId(), document -> filmCommand.writeFilm(document, film));
+            return bulk.size();
+        } finally {
+            bulk.release();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void filmsJackson(Blackhole blackhole) throws IOException {
+        for (var film : films)
+            blackhole.consume(filmWriter.writeValueAsBytes(film));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int ratingsXContent() throws IOException {
+        var bulk = new BulkBuffer(XContentType.JSON, pool);
+        try {
+            for (var rating : ratings)
+                bulk.index("imdb", rating.getId(), document -> document
+                        .field("id", rating.getId())
+                        .field("average_rating", rating.getAverageRating())
+                        .field("num_votes", rating.getNumVotes()));
+            return bulk.size();
+        } finally {
+            bulk.release();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void ratingsJackson(Blackhole blackhole) throws IOException {
+        for (var rating : ratings)
+            blackhole.consume(ratingWriter.writeValueAsBytes(rating));
+    }
+
+    /**
+     * Opens the helpers of the command, so films can be parsed and written apart.
+     */
+    private static final class ExposedFilmCommand extends FilmBulkCreationCommand {
+
+        @Override
+        protected Film createFilmFromRecord(TsvRecord record) {
+            return super.createFilmFromRecord(record);
+        }
+
+        @Override
+        protected void writeFilm(XContentBuilder document, Film film) throws IOException {
+            super.writeFilm(document, film);
+        }
+    }
+}
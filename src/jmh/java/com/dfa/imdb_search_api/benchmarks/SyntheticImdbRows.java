@@ -0,0 +1,93 @@
+package com.dfa.imdb_search_api.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Generates rows shaped like the ones of the IMDB dumps, so the benchmarks don't depend on a downloaded dataset.
+ * <p>
+ * The proportions follow the real title.basics and title.ratings files: most titles are episodes, about half of them
+ * lack the start year or the genres, the end year is only set for series, and a few titles have non ASCII
+ * characters. The rows are generated with a fixed seed, so every run parses the same data.
+ */
+final class SyntheticImdbRows {
+
+    static final String FILMS_HEADER =
+            "tconst\ttitleType\tprimaryTitle\toriginalTitle\tisAdult\tstartYear\tendYear\truntimeMinutes\tgenres\n";
+    static final String RATINGS_HEADER = "tconst\taverageRating\tnumVotes\n";
+
+    private static final String[] TYPES = {
+            "tvEpisode", "tvEpisode", "tvEpisode", "tvEpisode", "tvEpisode", "tvEpisode",
+            "short", "movie", "movie", "video", "tvSeries", "tvMovie", "tvMiniSeries", "videoGame"};
+    private static final String[] GENRES = {
+            "Drama", "Comedy", "Documentary", "Action", "Adventure", "Animation", "Crime", "Family", "Fantasy",
+            "Horror", "Romance", "Sci-Fi", "Thriller", "Music", "Reality-TV", "Talk-Show", "News", "Short"};
+    private static final String[] WORDS = {
+            "the", "of", "night", "love", "man", "story", "last", "city", "dark", "return", "Episode", "house",
+            "world", "life", "Am\u00e9lie", "Stra\u00dfe", "d\u00eda", "king", "war", "secret", "blue", "Spider-Man", "lost"};
+
+    private SyntheticImdbRows() {
+    }
+
+    /**
+     * @param rows The number of rows, header excluded.
+     * @return The content of a title.basics file.
+     */
+    static byte[] films(int rows) {
+        var random = new Random(42);
+        var content = new StringBuilder(FILMS_HEADER);
+        for (int i = 1; i <= rows; i++) {
+            var type = TYPES[random.nextInt(TYPES.length)];
+            var title = title(random);
+            content.append(String.format("tt%07d", i * 3)).append('\t')
+                    .append(type).append('\t')
+                    .append(title).append('\t')
+                    .append(random.nextInt(10) == 0 ? title(random) : title).append('\t')
+                    .append(random.nextInt(50) == 0 ? '1' : '0').append('\t');
+
+            int startYear = 1890 + random.nextInt(134);
+            content.append(random.nextInt(10) < 8 ? Integer.toString(startYear) : "\\N").append('\t');
+            content.append(type.startsWith("tvSeries") ? Integer.toString(startYear + random.nextInt(10)) : "\\N")
+                    .append('\t');
+            content.append(random.nextBoolean() ? Integer.toString(5 + random.nextInt(170)) : "\\N").append('\t');
+
+            int genres = random.nextInt(4);
+            if (genres == 0)
+                content.append("\\N");
+            for (int g = 0; g < genres; g++) {
+                if (g > 0)
+                    content.append(',');
+                content.append(GENRES[random.nextInt(GENRES.length)]);
+            }
+            content.append('\n');
+        }
+        return content.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param rows The number of rows, header excluded.
+     * @return The content of a title.ratings file.
+     */
+    static byte[] ratings(int rows) {
+        var random = new Random(42);
+        var content = new StringBuilder(RATINGS_HEADER);
+        for (int i = 1; i <= rows; i++) {
+            content.append(String.format("tt%07d", i * 3)).append('\t')
+                    .append(1 + random.nextInt(10)).append('.').append(random.nextInt(10)).append('\t')
+                    // Most titles have a handful of votes, a few of them hundreds of thousands
+                    .append((int) Math.exp(random.nextDouble() * 13)).append('\n');
+        }
+        return content.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String title(Random random) {
+        int words = 1 + random.nextInt(5);
+        var title = new StringBuilder();
+        for (int w = 0; w < words; w++) {
+            if (w > 0)
+                title.append(' ');
+            title.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return title.toString();
+    }
+}
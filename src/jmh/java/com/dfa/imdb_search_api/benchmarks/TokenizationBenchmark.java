@@ -0,0 +1,78 @@
+package com.dfa.imdb_search_api.benchmarks;
+
+import com.dfa.imdb_search_api.elastic.ingest.tsv.TsvRecordReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the splitting of the lines of title.basics into fields, without building any document.
+ * <p>
+ * The {@link TsvRecordReader} scans the raw bytes and decodes only the fields which are read, while the baseline
+ * decodes every line into a String and splits it, as the ingest did before.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TokenizationBenchmark {
+
+    private static final int ROWS = CommandBenchmark.ROWS;
+
+    private byte[] films;
+
+    @Setup
+    public void setUp() {
+        films = SyntheticImdbRows.films(ROWS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void recordReader(Blackhole blackhole) throws IOException {
+        try (var reader = new TsvRecordReader(new ByteArrayInputStream(films), 64 * 1024)) {
+            reader.next();
+            while (reader.next()) {
+                var record = reader.record();
+                blackhole.consume(record.nextIdNumber());
+                blackhole.consume(record.nextPooledString());
+                blackhole.consume(record.nextString());
+                record.skip();
+                record.skip();
+                blackhole.consume(record.nextYearDate());
+                record.skip();
+                record.skip();
+                blackhole.consume(record.nextPooledStringArray(','));
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void stringSplit(Blackhole blackhole) throws IOException {
+        try (var reader = new BufferedReader(new InputStreamReader(
+                new ByteArrayInputStream(films), StandardCharsets.UTF_8), 64 * 1024)) {
+            reader.readLine();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                var fields = line.split("\t");
+                blackhole.consume(Integer.parseInt(fields[0], 2, fields[0].length(), 10));
+                blackhole.consume(fields[1]);
+                blackhole.consume(fields[2]);
+                blackhole.consume(fields[5]);
+                blackhole.consume(fields[8].split(","));
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.dfa.imdb_search_api.POJO;
+
+import com.dfa.imdb_search_api.POJO.serializers.FilmSourceSerializer;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.StringJoiner;
+
+/**
+ * The JSON source of a title as returned by ElasticSearch, kept as raw bytes.
+ * <p>
+ * It is serialized exactly like the {@link Film} it holds, streaming the source straight into the output without
+ * building the Film, see {@link FilmSourceSerializer}. The Film is only built when it is asked for, through the same
+ * reader the rest of the titles are read with.
+ * <p>
+ * A source fetched with only some of the fields of the title is serialized with only those fields.
+ */
+@JsonSerialize(using = FilmSourceSerializer.class)
+public final class FilmSource {
+
+    private final byte[] bytes;
+    private final int offset;
+    private final int length;
+    private final Set<String> fields;
+    private final ObjectReader filmReader;
+
+    /**
+     * @param bytes      The array holding the source, which is not copied.
+     * @param offset     The start of the source in the array.
+     * @param length     The length in bytes of the source.
+     * @param filmReader The reader of the {@link Film}, used when the title is asked for.
+     */
+    public FilmSource(byte[] bytes, int offset, int length, ObjectReader filmReader) {
+        this(bytes, offset, length, null, filmReader);
+    }
+
+    /**
+     * @param fields The fields of the title fetched in the source, or null if the whole source was.
+     */
+    public FilmSource(byte[] bytes, int offset, int length, Set<String> fields, ObjectReader filmReader) {
+        this.bytes = bytes;
+        this.offset = offset;
+        this.length = length;
+        this.fields = fields;
+        this.filmReader = filmReader;
+    }
+
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * @param field The name of a field of the title, as in its JSON.
+     * @return True if the field was fetched in the source, so it must be written.
+     */
+    public boolean includes(String field) {
+        return fields == null || fields.contains(field);
+    }
+
+    /**
+     * @return The title held by the source.
+     */
+    public Film toFilm() {
+        try {
+            return filmReader.readValue(bytes, offset, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", FilmSource.class.getSimpleName() + "[", "]")
+                .add("source=" + new String(bytes, offset, length, StandardCharsets.UTF_8))
+                .toString();
+    }
+}
@@ -3,12 +3,21 @@ package com.dfa.imdb_search_api.POJO;
 import com.dfa.imdb_search_api.POJO.aggregations.Aggregation;
 import com.dfa.imdb_search_api.POJO.aggregations.bucket.impl.DateHistogramBucket;
 import com.dfa.imdb_search_api.POJO.aggregations.bucket.impl.TermBucket;
+import com.dfa.imdb_search_api.POJO.serializers.PhraseSuggestionSerializer;
 import com.dfa.imdb_search_api.POJO.serializers.QueryResponseSerializer;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.elasticsearch.search.suggest.phrase.PhraseSuggestion;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Arrays;
 import java.util.StringJoiner;
 
@@ -18,10 +27,13 @@ import static java.lang.System.arraycopy;
 public class QueryResponse {
 
     private final long total;
-    private final Film[] items;
+    private final FilmSource[] sources;
+    private volatile Film[] items;
     private final Aggregation<TermBucket>[] termAggregations;
     private final Aggregation<DateHistogramBucket> dateHistogramAggregation;
-    private final JsonNode suggestion;
+    private final PhraseSuggestion phraseSuggestion;
+    private volatile JsonNode suggestion;
+    private final String cursor;
 
     @JsonCreator()
     public QueryResponse(@JsonProperty long total, @JsonProperty Film[] items,
@@ -29,22 +41,95 @@ public class QueryResponse {
                          @JsonProperty Aggregation<DateHistogramBucket> dateHistogram,
                          @JsonProperty JsonNode suggestion) {
         this.total = total;
+        this.sources = null;
         this.items = items;
         this.termAggregations = termAggregations;
         this.dateHistogramAggregation = dateHistogram;
+        this.phraseSuggestion = null;
         this.suggestion = suggestion;
+        this.cursor = null;
     }
 
+    /**
+     * Response holding the raw sources of the titles and the suggestion as returned by ElasticSearch, which are
+     * serialized without building their {@link Film} nor a tree of the suggestion.
+     *
+     * @param dateHistogram The aggregation of the decades, or null if the search didn't include the aggregations.
+     * @param suggestion    The suggestion, or null if there is none.
+     */
+    public QueryResponse(long total, FilmSource[] sources, Aggregation<TermBucket>[] termAggregations,
+                         Aggregation<DateHistogramBucket> dateHistogram, PhraseSuggestion suggestion) {
+        this(total, sources, termAggregations, dateHistogram, suggestion, null);
+    }
+
+    /**
+     * @param cursor The cursor of the next page of a deep pagination, or null if there is none.
+     */
+    public QueryResponse(long total, FilmSource[] sources, Aggregation<TermBucket>[] termAggregations,
+                         Aggregation<DateHistogramBucket> dateHistogram, PhraseSuggestion suggestion, String cursor) {
+        this.total = total;
+        this.sources = sources;
+        this.termAggregations = termAggregations;
+        this.dateHistogramAggregation = dateHistogram;
+        this.phraseSuggestion = suggestion;
+        this.cursor = cursor;
+    }
+
+    /**
+     * @return The suggestion as a tree, built the first time it is asked for, or a missing node if there is none.
+     */
     public JsonNode getSuggestion() {
-        return suggestion;
+        var tree = suggestion;
+        if (tree == null) {
+            tree = phraseSuggestion != null ? toTree(phraseSuggestion) : MissingNode.getInstance();
+            suggestion = tree;
+        }
+        return tree;
+    }
+
+    /**
+     * @return The suggestion as returned by ElasticSearch, or null if the response was built from a tree.
+     */
+    public PhraseSuggestion getPhraseSuggestion() {
+        return phraseSuggestion;
+    }
+
+    /**
+     * @return True if the response carries any suggestion.
+     */
+    public boolean hasSuggestion() {
+        return phraseSuggestion != null || (suggestion != null && !suggestion.isMissingNode());
     }
 
     public long getTotal() {
         return total;
     }
 
+    /**
+     * @return The cursor of the next page of a deep pagination, or null if there is no next page or the search was
+     * not a deep one.
+     */
+    public String getCursor() {
+        return cursor;
+    }
+
+    /**
+     * @return The titles of the response, built from their sources the first time they are asked for.
+     */
     public Film[] getItems() {
-        return items;
+        var films = items;
+        if (films == null && sources != null) {
+            films = Arrays.stream(sources).map(FilmSource::toFilm).toArray(Film[]::new);
+            items = films;
+        }
+        return films;
+    }
+
+    /**
+     * @return The raw sources of the titles, or null if the response was built from the titles.
+     */
+    public FilmSource[] getSources() {
+        return sources;
     }
 
     public Aggregation<TermBucket>[] getTermAggregations() {
@@ -54,9 +139,11 @@ public class QueryResponse {
     /**
      * Method that return all aggregations in a unique array.
      *
-     * @return An array containing all the aggregations of this response.
+     * @return An array containing all the aggregations of this response, empty if the search didn't include them.
      */
     public Aggregation<?>[] getAggregations() {
+        if (dateHistogramAggregation == null)
+            return termAggregations.clone();
         Aggregation<?>[] allAggregations = new Aggregation[termAggregations.length + 1];
         arraycopy(termAggregations, 0, allAggregations, 0, termAggregations.length);
         allAggregations[termAggregations.length] = dateHistogramAggregation;
@@ -78,11 +165,71 @@ public class QueryResponse {
         return dateHistogramAggregation;
     }
 
+    /**
+     * Helper method, builds the tree of the suggestion from the same JSON it is serialized to.
+     */
+    private static JsonNode toTree(PhraseSuggestion suggestion) {
+        var buffer = new TokenBuffer(null, false);
+        try {
+            new PhraseSuggestionSerializer().serialize(suggestion, buffer, null);
+            try (var parser = buffer.asParser()) {
+                return parser.nextToken() != null ? readTree(parser) : MissingNode.getInstance();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Helper method, builds the tree of the value the parser is at, keeping the types of its numbers. The tree is
+     * built by hand, as the buffer of the suggestion has no mapper.
+     */
+    private static JsonNode readTree(JsonParser parser) throws IOException {
+        var nodes = JsonNodeFactory.instance;
+        var token = parser.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            var object = nodes.objectNode();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                var name = parser.getCurrentName();
+                parser.nextToken();
+                object.set(name, readTree(parser));
+            }
+            return object;
+        }
+        if (token == JsonToken.START_ARRAY) {
+            var array = nodes.arrayNode();
+            while (parser.nextToken() != JsonToken.END_ARRAY)
+                array.add(readTree(parser));
+            return array;
+        }
+        if (token == JsonToken.VALUE_STRING)
+            return nodes.textNode(parser.getText());
+        if (token == JsonToken.VALUE_NUMBER_INT) {
+            return switch (parser.getNumberType()) {
+                case INT -> nodes.numberNode(parser.getIntValue());
+                case LONG -> nodes.numberNode(parser.getLongValue());
+                default -> nodes.numberNode(parser.getBigIntegerValue());
+            };
+        }
+        if (token == JsonToken.VALUE_NUMBER_FLOAT) {
+            return switch (parser.getNumberType()) {
+                case FLOAT -> nodes.numberNode(parser.getFloatValue());
+                case BIG_DECIMAL -> nodes.numberNode(parser.getDecimalValue());
+                default -> nodes.numberNode(parser.getDoubleValue());
+            };
+        }
+        if (token == JsonToken.VALUE_TRUE || token == JsonToken.VALUE_FALSE)
+            return nodes.booleanNode(parser.getBooleanValue());
+        if (token == JsonToken.VALUE_NULL)
+            return nodes.nullNode();
+        throw new IOException("Unexpected token " + token + " in the suggestion");
+    }
+
     @Override
     public String toString() {
         return new StringJoiner(", ", QueryResponse.class.getSimpleName() + "[", "]")
                 .add("total=" + total)
-                .add("items=" + Arrays.toString(items))
+                .add("items=" + Arrays.toString(getItems()))
                 .add("termAggregations=" + Arrays.toString(termAggregations))
                 .add("dateHistogramAggregation=" + dateHistogramAggregation)
                 .toString();
@@ -8,6 +8,11 @@ import com.fasterxml.jackson.databind.ser.std.StdSerializer;
 
 import java.io.IOException;
 
+/**
+ * Writes an aggregation as an object holding, under its name, the count of every bucket by the name of the bucket.
+ * <p>
+ * Every name goes through the generator, so the names of the buckets coming from the titles are escaped.
+ */
 public class AggregationSerializer extends StdSerializer<Aggregation<IBucket>> {
     public AggregationSerializer() {
         this(null);
@@ -20,10 +25,10 @@ public class AggregationSerializer extends StdSerializer<Aggregation<IBucket>> {
     @Override
     public void serialize(Aggregation<IBucket> value, JsonGenerator gen, SerializerProvider provider) throws IOException {
         gen.writeStartObject();
-        gen.writeRaw("\"" + value.getName() + "\"" + ": {");
+        gen.writeObjectFieldStart(value.getName());
         for (IBucket bucket : value.getBuckets())
-            gen.writeObjectField(bucket.getName(), bucket.getCount());
-        gen.writeRaw("}");
+            gen.writeNumberField(bucket.getName(), bucket.getCount());
+        gen.writeEndObject();
         gen.writeEndObject();
     }
 }
@@ -0,0 +1,189 @@
+package com.dfa.imdb_search_api.POJO.serializers;
+
+import com.dfa.imdb_search_api.POJO.Film;
+import com.dfa.imdb_search_api.POJO.FilmSource;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams the source of a title into the output, producing the same JSON as the serialization of its {@link Film}:
+ * the same fields in the same order, following the inclusion of the mapper. The ratings missing from the source are
+ * written as 0, like the Film does. The fields left out of a partial source are not written at all.
+ * <p>
+ * The sources are only written in the search responses, which have always returned the single genres unwrapped, as
+ * if {@link SerializationFeature#WRITE_SINGLE_ELEM_ARRAYS_UNWRAPPED} was enabled. The feature is not enabled in the
+ * mapper, as it would unwrap every array of one element of the rest of the responses too.
+ * <p>
+ * The source is read token by token from its bytes, so neither the Film nor a String of the whole source is built.
+ * The fields not known by the Film are skipped.
+ */
+public class FilmSourceSerializer extends StdSerializer<FilmSource> {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final SerializableString ID = new SerializedString("id");
+    private static final SerializableString TITLE = new SerializedString("title");
+    private static final SerializableString ORIGINAL_TITLE = new SerializedString("original_title");
+    private static final SerializableString GENRES = new SerializedString("genres");
+    private static final SerializableString TYPE = new SerializedString("type");
+    private static final SerializableString START_YEAR = new SerializedString("start_year");
+    private static final SerializableString END_YEAR = new SerializedString("end_year");
+    private static final SerializableString AVERAGE_RATING = new SerializedString("average_rating");
+    private static final SerializableString NUM_VOTES = new SerializedString("num_votes");
+
+    public FilmSourceSerializer() {
+        this(null);
+    }
+
+    protected FilmSourceSerializer(Class<FilmSource> t) {
+        super(t);
+    }
+
+    @Override
+    public void serialize(FilmSource value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        String id = null, title = null, originalTitle = null, type = null, startYear = null, endYear = null;
+        List<String> genres = null;
+        float averageRating = 0;
+        int numVotes = 0;
+
+        try (var parser = JSON_FACTORY.createParser(value.getBytes(), value.getOffset(), value.getLength())) {
+            if (parser.nextToken() != JsonToken.START_OBJECT)
+                throw new JsonParseException(parser, "The source of a title must be an object");
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                var name = parser.getCurrentName();
+                parser.nextToken();
+                switch (name) {
+                    case "id" -> id = text(parser);
+                    case "title" -> title = text(parser);
+                    case "original_title" -> originalTitle = text(parser);
+                    case "genres" -> genres = texts(parser);
+                    case "type" -> type = text(parser);
+                    case "start_year" -> startYear = text(parser);
+                    case "end_year" -> endYear = text(parser);
+                    case "average_rating" -> averageRating = floatValue(parser);
+                    case "num_votes" -> numVotes = parser.getValueAsInt();
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+
+        var inclusion = provider.getConfig().getDefaultPropertyInclusion(Film.class).getValueInclusion();
+        gen.writeStartObject();
+        if (value.includes("id"))
+            writeText(gen, ID, id, inclusion);
+        if (value.includes("title"))
+            writeText(gen, TITLE, title, inclusion);
+        if (value.includes("original_title"))
+            writeText(gen, ORIGINAL_TITLE, originalTitle, inclusion);
+        if (value.includes("genres"))
+            writeGenres(gen, genres, inclusion);
+        if (value.includes("type"))
+            writeText(gen, TYPE, type, inclusion);
+        if (value.includes("start_year"))
+            writeText(gen, START_YEAR, startYear, inclusion);
+        if (value.includes("end_year"))
+            writeText(gen, END_YEAR, endYear, inclusion);
+        if (value.includes("average_rating") && (averageRating != 0 || inclusion != JsonInclude.Include.NON_DEFAULT)) {
+            gen.writeFieldName(AVERAGE_RATING);
+            gen.writeNumber(averageRating);
+        }
+        if (value.includes("num_votes") && (numVotes != 0 || inclusion != JsonInclude.Include.NON_DEFAULT)) {
+            gen.writeFieldName(NUM_VOTES);
+            gen.writeNumber(numVotes);
+        }
+        gen.writeEndObject();
+    }
+
+    /**
+     * Helper method, reads the current value as text, the numbers included, like the Film does.
+     */
+    private static String text(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL)
+            return null;
+        if (parser.currentToken().isStructStart()) {
+            parser.skipChildren();
+            return null;
+        }
+        return parser.getText();
+    }
+
+    /**
+     * Helper method, reads the current array of texts, or a single text as an array of one.
+     */
+    private static List<String> texts(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL)
+            return null;
+        List<String> texts = new ArrayList<>();
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            texts.add(text(parser));
+            return texts;
+        }
+        while (parser.nextToken() != JsonToken.END_ARRAY)
+            texts.add(text(parser));
+        return texts;
+    }
+
+    private static float floatValue(JsonParser parser) throws IOException {
+        return switch (parser.currentToken()) {
+            case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> parser.getFloatValue();
+            case VALUE_STRING -> Float.parseFloat(parser.getText());
+            default -> 0;
+        };
+    }
+
+    private static void writeText(JsonGenerator gen, SerializableString name, String value,
+                                  JsonInclude.Include inclusion) throws IOException {
+        if (value == null && !includesNull(inclusion))
+            return;
+        if (value != null && value.isEmpty() && !includesEmpty(inclusion))
+            return;
+        gen.writeFieldName(name);
+        gen.writeString(value);
+    }
+
+    private static void writeGenres(JsonGenerator gen, List<String> genres, JsonInclude.Include inclusion)
+            throws IOException {
+        if (genres == null) {
+            if (includesNull(inclusion)) {
+                gen.writeFieldName(GENRES);
+                gen.writeNull();
+            }
+            return;
+        }
+        if (genres.isEmpty() && !includesEmpty(inclusion))
+            return;
+
+        gen.writeFieldName(GENRES);
+        if (genres.size() == 1) {
+            gen.writeString(genres.get(0));
+            return;
+        }
+        gen.writeStartArray();
+        for (var genre : genres)
+            gen.writeString(genre);
+        gen.writeEndArray();
+    }
+
+    private static boolean includesNull(JsonInclude.Include inclusion) {
+        return inclusion == null || inclusion == JsonInclude.Include.ALWAYS
+                || inclusion == JsonInclude.Include.USE_DEFAULTS || inclusion == JsonInclude.Include.CUSTOM;
+    }
+
+    private static boolean includesEmpty(JsonInclude.Include inclusion) {
+        return inclusion != JsonInclude.Include.NON_EMPTY && inclusion != JsonInclude.Include.NON_DEFAULT;
+    }
+}
@@ -0,0 +1,68 @@
+package com.dfa.imdb_search_api.POJO.serializers;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.elasticsearch.search.suggest.phrase.PhraseSuggestion;
+
+import java.io.IOException;
+
+/**
+ * Writes the phrase suggestion returned by ElasticSearch straight into the output, with the same JSON ElasticSearch
+ * gives to it: an object holding the entries of the suggestion under its name, each one with its text, offset,
+ * length and options.
+ * <p>
+ * The suggester has no collate query, so the options never carry the collate match.
+ */
+public class PhraseSuggestionSerializer extends StdSerializer<PhraseSuggestion> {
+
+    private static final SerializableString TEXT = new SerializedString("text");
+    private static final SerializableString OFFSET = new SerializedString("offset");
+    private static final SerializableString LENGTH = new SerializedString("length");
+    private static final SerializableString OPTIONS = new SerializedString("options");
+    private static final SerializableString HIGHLIGHTED = new SerializedString("highlighted");
+    private static final SerializableString SCORE = new SerializedString("score");
+
+    public PhraseSuggestionSerializer() {
+        this(null);
+    }
+
+    protected PhraseSuggestionSerializer(Class<PhraseSuggestion> t) {
+        super(t);
+    }
+
+    @Override
+    public void serialize(PhraseSuggestion value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject();
+        gen.writeArrayFieldStart(value.getName());
+        for (var entry : value.getEntries()) {
+            gen.writeStartObject();
+            gen.writeFieldName(TEXT);
+            gen.writeString(entry.getText().string());
+            gen.writeFieldName(OFFSET);
+            gen.writeNumber(entry.getOffset());
+            gen.writeFieldName(LENGTH);
+            gen.writeNumber(entry.getLength());
+            gen.writeFieldName(OPTIONS);
+            gen.writeStartArray();
+            for (var option : entry.getOptions()) {
+                gen.writeStartObject();
+                gen.writeFieldName(TEXT);
+                gen.writeString(option.getText().string());
+                if (option.getHighlighted() != null) {
+                    gen.writeFieldName(HIGHLIGHTED);
+                    gen.writeString(option.getHighlighted().string());
+                }
+                gen.writeFieldName(SCORE);
+                gen.writeNumber(option.getScore());
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+            gen.writeEndObject();
+        }
+        gen.writeEndArray();
+        gen.writeEndObject();
+    }
+}
@@ -2,6 +2,8 @@ package com.dfa.imdb_search_api.POJO.serializers;
 
 import com.dfa.imdb_search_api.POJO.QueryResponse;
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.ser.std.StdSerializer;
 
@@ -9,6 +11,15 @@ import java.io.IOException;
 
 public class QueryResponseSerializer extends StdSerializer<QueryResponse> {
 
+    // The names of the fields are encoded once, and then copied as they are on every response
+    private static final SerializableString TOTAL = new SerializedString("total");
+    private static final SerializableString ITEMS = new SerializedString("items");
+    private static final SerializableString AGGREGATIONS = new SerializedString("aggregations");
+    private static final SerializableString SUGGESTIONS = new SerializedString("suggestions");
+    private static final SerializableString CURSOR = new SerializedString("cursor");
+
+    private final PhraseSuggestionSerializer suggestionSerializer = new PhraseSuggestionSerializer();
+
     public QueryResponseSerializer() {
         this(null);
     }
@@ -21,10 +32,26 @@ public class QueryResponseSerializer extends StdSerializer<QueryResponse> {
     public void serialize(QueryResponse value, JsonGenerator gen, SerializerProvider provider) throws IOException {
 
         gen.writeStartObject();
-        gen.writeNumberField("total", value.getTotal());
-        gen.writeObjectField("items", value.getItems());
-        gen.writeObjectField("aggregations", value.getAggregations());
-        gen.writeObjectField("suggestions", value.getSuggestion());
+        gen.writeFieldName(TOTAL);
+        gen.writeNumber(value.getTotal());
+        // The raw sources are streamed as they are, without building the titles. Only the responses read back from
+        // their JSON hold the titles instead
+        gen.writeFieldName(ITEMS);
+        provider.defaultSerializeValue(value.getSources() != null ? value.getSources() : value.getItems(), gen);
+        gen.writeFieldName(AGGREGATIONS);
+        provider.defaultSerializeValue(value.getAggregations(), gen);
+        gen.writeFieldName(SUGGESTIONS);
+        if (value.getPhraseSuggestion() != null) {
+            // The suggestion is written as it is, without building a tree of it
+            suggestionSerializer.serialize(value.getPhraseSuggestion(), gen, provider);
+        } else {
+            provider.defaultSerializeValue(value.getSuggestion(), gen);
+        }
+        // Only the pages of a deep pagination which are followed by another one carry a cursor
+        if (value.getCursor() != null) {
+            gen.writeFieldName(CURSOR);
+            gen.writeString(value.getCursor());
+        }
         gen.writeEndObject();
 
     }
@@ -1,5 +1,6 @@
 package com.dfa.imdb_search_api.controllers;
 
+import com.dfa.imdb_search_api.elastic.search.InvalidSearchParamException;
 import com.fasterxml.jackson.core.JsonParseException;
 import io.micronaut.http.HttpRequest;
 import io.micronaut.http.HttpResponse;
@@ -33,4 +34,12 @@ public class BaseController {
         return HttpResponse.<JsonError>status(HttpStatus.BAD_REQUEST, "Error in your JSON").body(error);
     }
 
+    @Error
+    public HttpResponse<JsonError> invalidParamError(HttpRequest request, InvalidSearchParamException exception) {
+        JsonError error = new JsonError("INVALID PARAM: " + exception.getMessage())
+                .link(Link.SELF, Link.of(request.getUri()));
+
+        return HttpResponse.<JsonError>status(HttpStatus.BAD_REQUEST, "Error in your params").body(error);
+    }
+
 }
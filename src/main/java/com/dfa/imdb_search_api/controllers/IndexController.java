@@ -3,80 +3,228 @@ package com.dfa.imdb_search_api.controllers;
 import com.dfa.imdb_search_api.elastic.commands.Command;
 import com.dfa.imdb_search_api.elastic.commands.impl.FilmBulkCreationCommand;
 import com.dfa.imdb_search_api.elastic.commands.impl.RatingBulkCreationCommand;
+import com.dfa.imdb_search_api.elastic.ingest.job.IngestJob;
+import com.dfa.imdb_search_api.elastic.ingest.job.IngestJobConflictException;
+import com.dfa.imdb_search_api.elastic.ingest.job.IngestJobManager;
+import com.dfa.imdb_search_api.elastic.ingest.job.IngestJobStatus;
+import com.dfa.imdb_search_api.elastic.ingest.job.IngestMetrics;
+import com.dfa.imdb_search_api.elastic.ingest.source.DataSourceFactory;
+import com.dfa.imdb_search_api.elastic.ingest.source.IDataSource;
 import com.dfa.imdb_search_api.elastic.util.IElasticUtil;
+import com.dfa.imdb_search_api.elastic.util.impl.ElasticClientUtil;
+import io.micronaut.http.HttpRequest;
 import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
 import io.micronaut.http.annotation.Controller;
+import io.micronaut.http.annotation.Delete;
+import io.micronaut.http.annotation.Error;
 import io.micronaut.http.annotation.Get;
+import io.micronaut.http.annotation.PathVariable;
+import io.micronaut.http.hateoas.JsonError;
+import io.micronaut.http.hateoas.Link;
 import jakarta.inject.Inject;
 import jakarta.inject.Named;
 
 import java.io.IOException;
-import java.util.concurrent.Executors;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Supplier;
 
+/**
+ * Every load runs as a job of the {@link IngestJobManager}, so only one load at a time writes into the index and
+ * the progress of any of them can be followed through /index/jobs.
+ */
 @Controller("/index")
 public class IndexController extends BaseController {
 
     private final IElasticUtil elasticUtil;
+    private final DataSourceFactory dataSources;
+    private final IngestJobManager jobs;
 
     @Inject
-    IndexController(@Named("ElasticClientUtil") IElasticUtil elasticUtil) {
+    IndexController(@Named("ElasticClientUtil") IElasticUtil elasticUtil, DataSourceFactory dataSources,
+                    IngestJobManager jobs) {
         this.elasticUtil = elasticUtil;
+        this.dataSources = dataSources;
+        this.jobs = jobs;
     }
 
     /**
      * Manages the petitions to /index
-     * Call which initiates the process of indexing of both the IMDB films and ratings stored in the resources folder.
+     * Call which initiates the process of indexing of both the IMDB films and ratings read from the configured data source.
+     * Both datasets are joined before indexing, so each title is sent just once.
      *
      * @return A response with OK status and the returned String of the called method if everything works well.
      * @throws IOException If something went wrong
-     * @see IElasticUtil#loadIMDBMedia(String, int, Command) ()
+     * @see IElasticUtil#loadJoinedIMDBMedia(IDataSource, IDataSource, boolean, IngestMetrics)
      */
     @Get
     public String index() throws IOException {
-        elasticUtil.loadIMDBMedia("films.tsv", 6000, new FilmBulkCreationCommand());
-        return elasticUtil.loadIMDBMedia("ratings.tsv", 8000, new RatingBulkCreationCommand());
+        return jobs.run("index", ElasticClientUtil.INDEX_NAME, metrics ->
+                elasticUtil.loadJoinedIMDBMedia(dataSources.films(), dataSources.ratings(), false, metrics));
     }
 
+    /**
+     * Manages the petitions to /index/delta
+     * Call which indexes only the titles that changed since the previous load, deleting the ones no longer present
+     * in the datasets. Meant for the daily refresh of the data.
+     *
+     * @return A response with OK status and the returned String of the called method if everything works well.
+     * @throws IOException If something went wrong
+     * @see IElasticUtil#loadDeltaIMDBMedia(IDataSource, IDataSource, IngestMetrics)
+     */
+    @Get("/delta")
+    public String indexDelta() throws IOException {
+        return jobs.run("delta", ElasticClientUtil.INDEX_NAME, metrics ->
+                elasticUtil.loadDeltaIMDBMedia(dataSources.films(), dataSources.ratings(), metrics));
+    }
+
+    /**
+     * Manages the petitions to /index/rebuild
+     * Call which indexes both datasets into a new index, tuned for bulk loading, while the searches keep using the
+     * current one. Once loaded, the new index is optimized for reads and replaces the current one atomically.
+     *
+     * @return A response with OK status and the returned String of the called method if everything works well.
+     * @throws IOException If something went wrong
+     * @see IElasticUtil#rebuildIMDBMedia(IDataSource, IDataSource, IngestMetrics)
+     */
+    @Get("/rebuild")
+    public String rebuild() throws IOException {
+        return jobs.run("rebuild", ElasticClientUtil.INDEX_NAME, metrics ->
+                elasticUtil.rebuildIMDBMedia(dataSources.films(), dataSources.ratings(), metrics));
+    }
+
+    /**
+     * Manages the petitions to /index/snapshot/export
+     * Call which parses both datasets and exports the titles, merged with their ratings, into a compact columnar
+     * snapshot. The index is not modified, so it can run while the index is being loaded.
+     *
+     * @return A response with OK status and the returned String of the called method if everything works well.
+     * @throws IOException If something went wrong
+     * @see IElasticUtil#exportSnapshot(IDataSource, IDataSource, Path, IngestMetrics)
+     */
+    @Get("/snapshot/export")
+    public String exportSnapshot() throws IOException {
+        var snapshot = dataSources.snapshot();
+        return jobs.run("snapshot export", snapshot.toString(), metrics ->
+                elasticUtil.exportSnapshot(dataSources.films(), dataSources.ratings(), snapshot, metrics));
+    }
+
+    /**
+     * Manages the petitions to /index/snapshot
+     * Call which indexes the titles of the exported snapshot, several times faster than parsing the datasets.
+     * Meant to load the same data into a new cluster.
+     *
+     * @return A response with OK status and the returned String of the called method if everything works well.
+     * @throws IOException If something went wrong
+     * @see IElasticUtil#loadSnapshot(Path, IngestMetrics)
+     */
+    @Get("/snapshot")
+    public String indexSnapshot() throws IOException {
+        return jobs.run("snapshot", ElasticClientUtil.INDEX_NAME, metrics ->
+                elasticUtil.loadSnapshot(dataSources.snapshot(), metrics));
+    }
+
+    /**
+     * Manages the petitions to /index/snapshot/rebuild
+     * Same as /index/rebuild, but reading the titles from the exported snapshot. Meant to apply a change of the
+     * mapping without parsing the datasets again.
+     *
+     * @return A response with OK status and the returned String of the called method if everything works well.
+     * @throws IOException If something went wrong
+     * @see IElasticUtil#rebuildFromSnapshot(Path, IngestMetrics)
+     */
+    @Get("/snapshot/rebuild")
+    public String rebuildFromSnapshot() throws IOException {
+        return jobs.run("snapshot rebuild", ElasticClientUtil.INDEX_NAME, metrics ->
+                elasticUtil.rebuildFromSnapshot(dataSources.snapshot(), metrics));
+    }
+
+    /**
+     * Manages the petitions to /index/background
+     * Call which starts the joined indexing as a background job. If a previous background load was interrupted,
+     * it resumes from its last checkpoint instead of starting from the first line.
+     *
+     * @return A response with ACCEPTED status and the status of the job, containing its id.
+     * @see IElasticUtil#loadJoinedIMDBMedia(IDataSource, IDataSource, boolean, IngestMetrics)
+     */
     @Get("/background")
-    public HttpResponse<String> indexBackground() {
-        Executors.defaultThreadFactory().newThread(this::runIndex).start();
-        return HttpResponse.accepted();
+    public HttpResponse<IngestJobStatus> indexBackground() {
+        var job = jobs.submit("background", ElasticClientUtil.INDEX_NAME, metrics ->
+                elasticUtil.loadJoinedIMDBMedia(dataSources.films(), dataSources.ratings(), true, metrics));
+        return HttpResponse.accepted().body(job.status());
     }
 
     /**
      * Manages the petitions to /index/films
-     * Call which initiates the process of indexing of the IMDB films stored in the resources folder.
+     * Call which initiates the process of indexing of the IMDB films read from the configured data source.
      *
      * @return A response with OK status and the returned String of the called method if everything works well.
      * @throws IOException If something went wrong
-     * @see IElasticUtil#loadIMDBMedia(String, int, Command) ()
+     * @see IElasticUtil#loadIMDBMedia(IDataSource, Supplier, IngestMetrics)
      */
     @Get("/films")
     public String indexFilms() throws IOException {
-        return elasticUtil.loadIMDBMedia("ratings.tsv", 5000, new FilmBulkCreationCommand());
+        return jobs.run("films", ElasticClientUtil.INDEX_NAME, metrics ->
+                elasticUtil.loadIMDBMedia(dataSources.films(), FilmBulkCreationCommand::new, metrics));
     }
 
     /**
      * Manages the petitions to /index/ratings
-     * Call which initiates the process of indexing of the IMDB ratings stored in the resources folder.
+     * Call which initiates the process of indexing of the IMDB ratings read from the configured data source.
      *
      * @return A response with OK status and the returned String of the called method if everything works well.
      * @throws IOException If something went wrong
-     * @see IElasticUtil#loadIMDBMedia(String, int, Command) ()
+     * @see IElasticUtil#loadIMDBMedia(IDataSource, Supplier, IngestMetrics)
      */
     @Get("/ratings")
     public String indexRatings() throws IOException {
-        return elasticUtil.loadIMDBMedia("ratings.tsv", 5000, new RatingBulkCreationCommand());
+        return jobs.run("ratings", ElasticClientUtil.INDEX_NAME, metrics ->
+                elasticUtil.loadIMDBMedia(dataSources.ratings(), RatingBulkCreationCommand::new, metrics));
     }
 
-    private void runIndex() {
-        try {
-            elasticUtil.loadIMDBMedia("films.tsv", 12000, new FilmBulkCreationCommand());
-            elasticUtil.loadIMDBMedia("ratings.tsv", 20000, new RatingBulkCreationCommand());
-        } catch (IOException exception) {
-            System.err.println("ERROR: Error while indexing.");
-            exception.printStackTrace();
-        }
-        System.out.println("Index finished");
+    /**
+     * Manages the petitions to /index/jobs
+     *
+     * @return The status of the running jobs and the last finished ones, the oldest first.
+     */
+    @Get("/jobs")
+    public List<IngestJobStatus> findJobs() {
+        return jobs.findAll().stream().map(IngestJob::status).toList();
+    }
+
+    /**
+     * Manages the petitions to /index/jobs/{id}
+     * Shows the progress of the job: rows read per second, bytes read, latency percentiles of the bulks,
+     * items rejected by ElasticSearch and the estimated time left.
+     *
+     * @param id The id of the job, as returned when it was started.
+     * @return A response with OK status and the status of the job, or NOT FOUND if there is no such job.
+     */
+    @Get("/jobs/{id}")
+    public HttpResponse<IngestJobStatus> findJob(@PathVariable String id) {
+        var job = jobs.find(id);
+        return job != null ? HttpResponse.ok(job.status()) : HttpResponse.notFound();
+    }
+
+    /**
+     * Manages the DELETE petitions to /index/jobs/{id}
+     * Cancels the job, which stops at the next line read. The bulks already sent are not rolled back.
+     *
+     * @param id The id of the job, as returned when it was started.
+     * @return A response with ACCEPTED status and the status of the job, or NOT FOUND if there is no such job.
+     */
+    @Delete("/jobs/{id}")
+    public HttpResponse<IngestJobStatus> cancelJob(@PathVariable String id) {
+        var job = jobs.cancel(id);
+        return job != null ? HttpResponse.accepted().body(job.status()) : HttpResponse.notFound();
+    }
+
+    @Error
+    public HttpResponse<JsonError> jobConflictError(HttpRequest request, IngestJobConflictException exception) {
+        JsonError error = new JsonError(exception.getMessage())
+                .link(Link.SELF, Link.of(request.getUri()));
+
+        return HttpResponse.<JsonError>status(HttpStatus.CONFLICT, "Ingest job already running").body(error);
     }
 }
@@ -2,6 +2,10 @@ package com.dfa.imdb_search_api.controllers;
 
 import com.dfa.imdb_search_api.POJO.Film;
 import com.dfa.imdb_search_api.POJO.QueryResponse;
+import com.dfa.imdb_search_api.elastic.search.InvalidSearchParamException;
+import com.dfa.imdb_search_api.elastic.search.SearchCache;
+import com.dfa.imdb_search_api.elastic.search.SearchCacheStats;
+import com.dfa.imdb_search_api.elastic.search.SearchPage;
 import com.dfa.imdb_search_api.elastic.util.IElasticUtil;
 import io.micronaut.http.annotation.Controller;
 import io.micronaut.http.annotation.Get;
@@ -10,55 +14,120 @@ import io.micronaut.http.annotation.QueryValue;
 import jakarta.inject.Inject;
 import jakarta.inject.Named;
 
-import java.io.IOException;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 @Controller("/search")
 public class SearchController extends BaseController {
 
+    /**
+     * Maximum number of titles which can be asked at once to "/search/titles".
+     */
+    private static final int MAX_TITLE_IDS = 100;
+
     private final IElasticUtil elasticUtil;
+    private final SearchCache searchCache;
 
     @Inject
-    SearchController(@Named("ElasticClientUtil") IElasticUtil elasticUtil) {
+    SearchController(@Named("ElasticClientUtil") IElasticUtil elasticUtil, SearchCache searchCache) {
         this.elasticUtil = elasticUtil;
+        this.searchCache = searchCache;
     }
 
     /**
      * Manage the petitions to "/search?query=queryText&{...}"
+     * <p>
+     * The search is asynchronous, so the thread of the petition is released while ElasticSearch answers.
+     * <p>
+     * The response can be narrowed with "include=items,aggregations,suggestions", to return only some of its
+     * sections, and with "fields=id,title,...", to return only some fields of the titles. The rest of the response
+     * is not even asked to ElasticSearch.
+     * <p>
+     * The titles are paged with "size" and "from", up to the first {@link SearchPage#MAX_WINDOW} titles. The deeper
+     * titles are paged with "cursor", "*" for the first page and then the cursor returned by the previous page.
      *
      * @param query,title The String the petition shall contain with the query info
-     * @return The response of the server, serialized as a JSON {@link QueryResponse}
-     * @throws IOException If there's a problem when accessing ElasticSearch
+     * @param include     The sections of the response to return, all of them if empty
+     * @param fields      The fields of the titles to return, all of them if empty
+     * @param size        The number of titles of the page, up to {@link SearchPage#MAX_SIZE}
+     * @param from        The offset of the page
+     * @param cursor      The cursor of the page of a deep pagination
+     * @return The response of the server, serialized as a JSON {@link QueryResponse}, or an IOException if there's
+     * a problem when accessing ElasticSearch. An unknown section or field, or an invalid page, is answered with a
+     * 400.
      */
     @SuppressWarnings("OptionalUsedAsFieldOrParameterType")
     @Get
-    public QueryResponse search(@QueryValue("query") String query, @QueryValue("genres") Optional<String> genres,
-                                @QueryValue("type") Optional<String> type,
-                                @QueryValue("date") Optional<String> date,
-                                @QueryValue("filter*") Optional<String> filter) throws IOException {
+    public CompletableFuture<QueryResponse> search(@QueryValue("query") String query,
+                                                   @QueryValue("genres") Optional<String> genres,
+                                                   @QueryValue("type") Optional<String> type,
+                                                   @QueryValue("date") Optional<String> date,
+                                                   @QueryValue("filter*") Optional<String> filter,
+                                                   @QueryValue("include") Optional<String> include,
+                                                   @QueryValue("fields") Optional<String> fields,
+                                                   @QueryValue("size") Optional<String> size,
+                                                   @QueryValue("from") Optional<String> from,
+                                                   @QueryValue("cursor") Optional<String> cursor) {
 
         var params = Map.of(
                 "query", query,
                 "genres", genres.orElse(""),
                 "type", type.orElse(""),
                 "date", date.orElse(""),
-                "filters", filter.orElse(""));
+                "filters", filter.orElse(""),
+                "include", include.orElse(""),
+                "fields", fields.orElse(""),
+                "size", size.orElse(""),
+                "from", from.orElse(""),
+                "cursor", cursor.orElse(""));
+
+        return elasticUtil.searchByParamsAsync(params);
 
-        return elasticUtil.searchByParams(params);
+    }
 
+    /**
+     * Manage the petitions to "/search/cache/stats"
+     *
+     * @return The hits, misses, evictions and size of the cache of search results.
+     */
+    @Get("/cache/stats")
+    public SearchCacheStats searchCacheStats() {
+        return searchCache.stats();
     }
 
     /**
      * Manage the petitions to "/search/titles/:titleID"
      *
      * @param titleID The ID of the title you're looking for
-     * @return The title you were looking for
-     * @throws IOException If there's a problem when accessing ElasticSearch
+     * @return The title you were looking for, or an IOException if there's a problem when accessing ElasticSearch.
+     * If there is no title with that id, the response is a 404.
      */
     @Get("/titles/{titleID}")
-    public Film searchByTitleID(@PathVariable String titleID) throws IOException {
-        return elasticUtil.searchByTitleID(titleID);
+    public CompletableFuture<Film> searchByTitleID(@PathVariable String titleID) {
+        return elasticUtil.searchByTitleIDAsync(titleID);
+    }
+
+    /**
+     * Manage the petitions to "/search/titles?ids=tt0000001,tt0000002"
+     *
+     * @param ids The IDs of the titles you're looking for, separated by commas, up to {@link #MAX_TITLE_IDS}
+     * @return The titles you were looking for, in the order of their IDs, or an IOException if there's a problem
+     * when accessing ElasticSearch. The IDs without a title are left out.
+     */
+    @Get("/titles")
+    public CompletableFuture<Film[]> searchByTitleIDs(@QueryValue("ids") String ids) {
+        Set<String> titleIDs = new LinkedHashSet<>();
+        for (var id : ids.split(","))
+            if (!id.isBlank())
+                titleIDs.add(id.strip());
+
+        if (titleIDs.size() > MAX_TITLE_IDS)
+            throw new InvalidSearchParamException("At most " + MAX_TITLE_IDS + " titles can be asked at once");
+
+        return elasticUtil.searchByTitleIDsAsync(titleIDs);
     }
 
 }
\ No newline at end of file
@@ -1,14 +1,32 @@
 package com.dfa.imdb_search_api.elastic.commands;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import org.elasticsearch.action.bulk.BulkRequest;
+import com.dfa.imdb_search_api.elastic.ingest.BulkBuffer;
+import com.dfa.imdb_search_api.elastic.ingest.tsv.TsvRecord;
 
 import java.io.IOException;
 
 public interface Command {
 
-    default void execute(String line, BulkRequest bulk, ObjectMapper objectMapper) throws IOException {
+    /**
+     * Reads the fields of a line of the data source and writes the corresponding action straight into the bulk,
+     * encoding the document with the streaming generator of the bulk.
+     *
+     * @param record The record pointing to the line to be processed.
+     * @param bulk   The bulk the new action is written to.
+     * @throws IOException If the document can't be encoded.
+     */
+    default void execute(TsvRecord record, BulkBuffer bulk) throws IOException {
         throw new RuntimeException("Interface not implemented");
     }
 
-}
\ No newline at end of file
+    /**
+     * Called once all the lines of the data source have been processed, before sending the last bulk.
+     * Lets the command add the actions that depend on the whole source, like the deletion of missing documents.
+     *
+     * @param bulk The last bulk of the source.
+     * @throws IOException If the actions can't be encoded.
+     */
+    default void finish(BulkBuffer bulk) throws IOException {
+    }
+
+}
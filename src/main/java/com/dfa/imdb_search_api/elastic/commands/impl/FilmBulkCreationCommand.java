@@ -2,36 +2,62 @@ package com.dfa.imdb_search_api.elastic.commands.impl;
 
 import com.dfa.imdb_search_api.POJO.Film;
 import com.dfa.imdb_search_api.elastic.commands.Command;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import org.elasticsearch.action.bulk.BulkRequest;
-import org.elasticsearch.action.update.UpdateRequest;
-import org.elasticsearch.xcontent.XContentType;
+import com.dfa.imdb_search_api.elastic.ingest.BulkBuffer;
+import com.dfa.imdb_search_api.elastic.ingest.tsv.TsvRecord;
+import org.elasticsearch.xcontent.XContentBuilder;
+
+import java.io.IOException;
 
 public class FilmBulkCreationCommand implements Command {
 
     @Override
-    public void execute(String line, BulkRequest bulk, ObjectMapper objectMapper) throws JsonProcessingException {
-        Film film = createFilmFromLine(line);
-        String filmJson = objectMapper.writeValueAsString(film);
-        bulk.add(new UpdateRequest("imdb", film.getId())
-                .doc(filmJson, XContentType.JSON)
-                .upsert(filmJson, XContentType.JSON));
+    public void execute(TsvRecord record, BulkBuffer bulk) throws IOException {
+        Film film = createFilmFromRecord(record);
+        bulk.upsert("imdb", film.getId(), document -> writeFilm(document, film));
     }
 
     /**
      * Helper method, creates a {@link Film} POJO from a line extracted from the data source.
      *
-     * @param line String containing the info of the film separated by tabs.
+     * @param record Record pointing to the line containing the info of the film separated by tabs.
      * @return A Film POJO
      */
-    private Film createFilmFromLine(String line) {
-        var data = line.split("\t");
-        return new Film(data[0], data[2], data[3],
-                data[8].equals("\\N") ? null : data[8].split(","),
-                data[1],
-                data[5].equals("\\N") ? null : data[5] + "-01-01",
-                data[6].equals("\\N") ? null : data[6] + "-01-01");
+    protected Film createFilmFromRecord(TsvRecord record) {
+        var id = record.nextString();
+        var type = record.nextPooledString();
+        var title = record.nextString();
+        var originalTitle = record.nextString();
+        record.skip(); // isAdult
+        var startYear = record.nextYearDate();
+        var endYear = record.nextYearDate();
+        record.skip(); // runtimeMinutes
+        var genres = record.nextPooledStringArray(',');
+        return new Film(id, title, originalTitle, genres, type, startYear, endYear);
+    }
+
+    /**
+     * Helper method, writes the fields of the film read from the films dataset, in the same order and with the
+     * same names as its JSON serialization, skipping the empty ones.
+     * The rating fields are left out, so merging the film doesn't reset the rating of an existing document.
+     *
+     * @param document The document being written.
+     * @param film     The film to be written.
+     * @throws IOException If the fields can't be encoded.
+     */
+    protected void writeFilm(XContentBuilder document, Film film) throws IOException {
+        document.field("id", film.getId());
+        writeIfPresent(document, "title", film.getTitle());
+        writeIfPresent(document, "original_title", film.getOriginal_title());
+        if (film.getGenres() != null && film.getGenres().length > 0)
+            document.array("genres", film.getGenres());
+        writeIfPresent(document, "type", film.getType());
+        writeIfPresent(document, "start_year", film.getStart_year());
+        writeIfPresent(document, "end_year", film.getEnd_year());
+    }
+
+    private static void writeIfPresent(XContentBuilder document, String name, String value) throws IOException {
+        if (value != null && !value.isEmpty())
+            document.field(name, value);
     }
 
 }
@@ -0,0 +1,114 @@
+package com.dfa.imdb_search_api.elastic.commands.impl;
+
+import com.dfa.imdb_search_api.POJO.Film;
+import com.dfa.imdb_search_api.elastic.ingest.BulkBuffer;
+import com.dfa.imdb_search_api.elastic.ingest.TitleIds;
+import com.dfa.imdb_search_api.elastic.ingest.delta.DeltaTracker;
+import com.dfa.imdb_search_api.elastic.ingest.delta.Fingerprint;
+import com.dfa.imdb_search_api.elastic.ingest.join.RatingTable;
+import com.dfa.imdb_search_api.elastic.ingest.tsv.TsvRecord;
+import org.elasticsearch.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Command creating the whole document of a title in one go, merging the film with its rating before indexing it.
+ * <p>
+ * As the document is complete it is sent as a plain index operation, instead of the update with upsert used when
+ * films and ratings are indexed separately, which saves ElasticSearch a get and a reindex per document.
+ * <p>
+ * The fingerprint of every title is recorded in a {@link DeltaTracker}. Titles whose fingerprint didn't change since
+ * the previous run are skipped, and titles which disappeared from the dataset are deleted.
+ */
+public class JoinedFilmIndexCommand extends FilmBulkCreationCommand {
+
+    private final String index;
+    private final RatingTable ratings;
+    private final DeltaTracker deltaTracker;
+
+    /**
+     * @param index        The index, or alias, where the documents are written.
+     * @param ratings      The ratings of the titles, merged into each film, or null if the films are received
+     *                     already merged, like the ones of a snapshot.
+     * @param deltaTracker The tracker of the fingerprints of the titles, or null if the films are only read.
+     */
+    public JoinedFilmIndexCommand(String index, RatingTable ratings, DeltaTracker deltaTracker) {
+        this.index = index;
+        this.ratings = ratings;
+        this.deltaTracker = deltaTracker;
+    }
+
+    @Override
+    public void execute(TsvRecord record, BulkBuffer bulk) throws IOException {
+        Film film = createFilmFromRecord(record);
+        int idNumber = TitleIds.parse(film.getId());
+        mergeRating(film, idNumber);
+        index(film, idNumber, bulk);
+    }
+
+    /**
+     * Parses the film of the line and merges it with its rating, without indexing it.
+     *
+     * @param record The record pointing to the line of the film.
+     * @return The film, with its rating if it has any.
+     */
+    public Film readFilm(TsvRecord record) {
+        Film film = createFilmFromRecord(record);
+        mergeRating(film, TitleIds.parse(film.getId()));
+        return film;
+    }
+
+    /**
+     * Indexes a film already merged with its rating, unless it didn't change since the previous run.
+     *
+     * @param film     The film to be indexed.
+     * @param idNumber The numeric part of the id of the film.
+     * @param bulk     The bulk the action is written to, along with the deletions of the missing titles.
+     * @throws IOException If the fingerprints can't be read or written or the document can't be encoded.
+     */
+    public void index(Film film, int idNumber, BulkBuffer bulk) throws IOException {
+        if (!deltaTracker.update(idNumber, Fingerprint.of(film), id -> addDelete(bulk, id)))
+            return;
+
+        bulk.index(index, film.getId(), document -> writeFilm(document, film));
+    }
+
+    @Override
+    public void finish(BulkBuffer bulk) throws IOException {
+        deltaTracker.finish(id -> addDelete(bulk, id));
+    }
+
+    /**
+     * As the document is indexed whole, the rating is written too.
+     */
+    @Override
+    protected void writeFilm(XContentBuilder document, Film film) throws IOException {
+        super.writeFilm(document, film);
+        document.field("average_rating", film.getAverage_rating());
+        document.field("num_votes", film.getNum_votes());
+    }
+
+    /**
+     * Helper method, copies the rating of the title, if any, into the film.
+     *
+     * @param film     The film to be completed with its rating.
+     * @param idNumber The numeric part of the id of the film.
+     */
+    private void mergeRating(Film film, int idNumber) {
+        int slot = ratings.find(idNumber);
+        if (slot < 0)
+            return;
+
+        film.setAverage_rating(ratings.averageRating(slot));
+        film.setNum_votes(ratings.numVotes(slot));
+    }
+
+    private void addDelete(BulkBuffer bulk, int idNumber) {
+        try {
+            bulk.delete(index, TitleIds.format(idNumber));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
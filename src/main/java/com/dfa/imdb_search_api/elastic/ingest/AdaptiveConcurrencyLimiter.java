@@ -0,0 +1,185 @@
+package com.dfa.imdb_search_api.elastic.ingest;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limit of the bulk requests in flight which adapts to the capacity of the cluster, following an AIMD scheme
+ * (additive increase, multiplicative decrease) like the congestion control of TCP.
+ * <p>
+ * Every response of a full sized bulk is a sample of the cost of indexing, measured as the "took" time reported by
+ * ElasticSearch per MB sent. The lowest cost seen is the baseline of an idle cluster. While the cost stays close to
+ * it the limit grows by one request for every window of responses. When the cost doubles the baseline the cluster
+ * is queueing the requests, and the limit is cut by a quarter; when it rejects items with 429 Too Many Requests it
+ * is cut by half. The cuts are applied at most once per window, as the responses of the requests sent before a cut
+ * still reflect the previous limit.
+ * <p>
+ * The baseline slowly drifts up towards the observed cost, so it follows a cluster that becomes permanently slower
+ * instead of keeping the limit at its minimum forever.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double BYTES_PER_MB = 1024 * 1024;
+    private static final double CONGESTION_RATIO = 2;
+    private static final double CONGESTION_DECREASE = 0.75;
+    private static final double REJECTION_DECREASE = 0.5;
+    private static final double BASELINE_DRIFT = 0.01;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final int maxLimit;
+    private final long minSampleBytes;
+
+    private double limit;
+    private int inFlight;
+    private long nextTicket;
+    private long windowEnd;
+    private double baselineCost = Double.NaN;
+
+    /**
+     * @param initialLimit The limit used until the first responses arrive.
+     * @param maxLimit     The maximum number of requests in flight, whatever the cluster can take.
+     * @param bulkSize     The target size in bytes of the bulks. Smaller bulks, like the last one of a load, are
+     *                     not used to measure the cost, as their fixed overhead would make them look expensive.
+     */
+    public AdaptiveConcurrencyLimiter(int initialLimit, int maxLimit, long bulkSize) {
+        this.maxLimit = Math.max(1, maxLimit);
+        this.limit = Math.max(1, Math.min(initialLimit, this.maxLimit));
+        this.minSampleBytes = bulkSize / 2;
+    }
+
+    /**
+     * Blocks until there is room for one more request under the current limit.
+     *
+     * @return The ticket of the request, to be given back in {@link #onResponse(long, long, long)} or
+     * {@link #onRejected(long)}.
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    public long acquire() throws InterruptedException {
+        lock.lock();
+        try {
+            while (inFlight >= currentLimit())
+                changed.await();
+            inFlight++;
+            return nextTicket++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Frees the room of a request, once its response has been processed.
+     */
+    public void release() {
+        lock.lock();
+        try {
+            inFlight--;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until every request has been released.
+     *
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    public void awaitIdle() throws InterruptedException {
+        lock.lock();
+        try {
+            while (inFlight > 0)
+                changed.await();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until every request has been released, or until the timeout elapses.
+     *
+     * @return True if every request was released, false if the timeout elapsed first.
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (inFlight > 0) {
+                if (nanos <= 0)
+                    return false;
+                nanos = changed.awaitNanos(nanos);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adjusts the limit with the response of a bulk in which no item was rejected.
+     *
+     * @param ticket     The ticket of the request.
+     * @param tookMillis The time ElasticSearch took to process the bulk.
+     * @param bytes      The size of the bulk.
+     */
+    public void onResponse(long ticket, long tookMillis, long bytes) {
+        lock.lock();
+        try {
+            if (bytes >= minSampleBytes && bytes > 0) {
+                double cost = tookMillis / (bytes / BYTES_PER_MB);
+                if (Double.isNaN(baselineCost) || cost < baselineCost)
+                    baselineCost = cost;
+                else
+                    baselineCost += (cost - baselineCost) * BASELINE_DRIFT;
+
+                if (cost > baselineCost * CONGESTION_RATIO) {
+                    decrease(ticket, CONGESTION_DECREASE);
+                    return;
+                }
+            }
+
+            limit = Math.min(maxLimit, limit + 1 / limit);
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Cuts the limit after the cluster rejected the bulk, or some of its items, because its queues were full.
+     *
+     * @param ticket The ticket of the request.
+     */
+    public void onRejected(long ticket) {
+        lock.lock();
+        try {
+            decrease(ticket, REJECTION_DECREASE);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The number of requests allowed in flight right now.
+     */
+    public int currentLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Helper method, cuts the limit unless it was already cut after this request was sent.
+     */
+    private void decrease(long ticket, double ratio) {
+        if (ticket < windowEnd)
+            return;
+        limit = Math.max(1, limit * ratio);
+        windowEnd = nextTicket;
+    }
+}
@@ -0,0 +1,253 @@
+package com.dfa.imdb_search_api.elastic.ingest;
+
+import org.elasticsearch.xcontent.XContent;
+import org.elasticsearch.xcontent.XContentBuilder;
+import org.elasticsearch.xcontent.XContentType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Body of a bulk request, written straight into a byte buffer with the streaming generators of XContent.
+ * <p>
+ * Unlike a {@link org.elasticsearch.action.bulk.BulkRequest}, the documents are never turned into Strings nor
+ * copied into intermediate arrays: each action and its document are encoded in place, one after the other,
+ * separated as the _bulk endpoint expects. The content type can be JSON or SMILE, which is more compact and
+ * cheaper to parse for ElasticSearch.
+ * <p>
+ * The byte arrays are borrowed from a {@link BufferPool} and given back once the bulk has been answered.
+ * <p>
+ * The offset of every item is recorded, so the items which failed can be copied as they are into a new bulk to be
+ * retried, or written to the dead letter file.
+ */
+public class BulkBuffer extends OutputStream {
+
+    private final XContentType contentType;
+    private final XContent xContent;
+    private final byte separator;
+    private final BufferPool pool;
+
+    private byte[] buffer;
+    private int size;
+    private int numberOfActions;
+    private String lastId;
+    // Start of the action and of the document of each item, -1 for the items without document
+    private int[] actionOffsets = new int[256];
+    private int[] sourceOffsets = new int[256];
+
+    /**
+     * Writes the fields of a document.
+     */
+    @FunctionalInterface
+    public interface DocumentWriter {
+        void write(XContentBuilder document) throws IOException;
+    }
+
+    public BulkBuffer(XContentType contentType, BufferPool pool) {
+        if (contentType != XContentType.JSON && contentType != XContentType.SMILE)
+            throw new IllegalArgumentException("Bulk requests can only be sent as JSON or SMILE, not " + contentType);
+        this.contentType = contentType;
+        this.xContent = contentType.xContent();
+        this.separator = xContent.streamSeparator();
+        this.pool = pool;
+        this.buffer = pool.borrow();
+    }
+
+    /**
+     * Adds an index action, which creates the document or replaces it completely.
+     *
+     * @param index    The index, or alias, where the document is written.
+     * @param id       The id of the document.
+     * @param document Writes the fields of the document.
+     * @throws IOException If the document can't be encoded.
+     */
+    public void index(String index, String id, DocumentWriter document) throws IOException {
+        writeAction("index", index, id);
+        sourceOffsets[numberOfActions - 1] = size;
+        try (var builder = new XContentBuilder(xContent, this)) {
+            builder.startObject();
+            document.write(builder);
+            builder.endObject();
+        }
+        write(separator);
+    }
+
+    /**
+     * Adds an update action which merges the fields into the document, creating it if it doesn't exist.
+     * The fields are sent just once, with doc_as_upsert, instead of repeating them as doc and upsert.
+     *
+     * @param index    The index, or alias, where the document is written.
+     * @param id       The id of the document.
+     * @param document Writes the fields to be merged.
+     * @throws IOException If the document can't be encoded.
+     */
+    public void upsert(String index, String id, DocumentWriter document) throws IOException {
+        writeAction("update", index, id);
+        sourceOffsets[numberOfActions - 1] = size;
+        try (var builder = new XContentBuilder(xContent, this)) {
+            builder.startObject().startObject("doc");
+            document.write(builder);
+            builder.endObject().field("doc_as_upsert", true).endObject();
+        }
+        write(separator);
+    }
+
+    /**
+     * Adds a delete action.
+     *
+     * @param index The index, or alias, containing the document.
+     * @param id    The id of the document.
+     * @throws IOException If the action can't be encoded.
+     */
+    public void delete(String index, String id) throws IOException {
+        writeAction("delete", index, id);
+    }
+
+    /**
+     * Appends an item of another bulk, action and document, exactly as it was encoded.
+     *
+     * @param bulk The bulk containing the item, which must have the same content type.
+     * @param item The position of the item in that bulk.
+     */
+    public void copyItem(BulkBuffer bulk, int item) {
+        int start = bulk.actionOffsets[item];
+        int source = bulk.sourceOffsets[item];
+        addItem(size, source < 0 ? -1 : size + source - start);
+        write(bulk.buffer, start, bulk.itemEnd(item) - start);
+    }
+
+    public int numberOfActions() {
+        return numberOfActions;
+    }
+
+    /**
+     * @return The size in bytes of the body.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The id of the last document added, or null if the bulk is empty.
+     */
+    public String lastId() {
+        return lastId;
+    }
+
+    /**
+     * @return The offset where the action of the item starts.
+     */
+    int actionOffset(int item) {
+        return actionOffsets[item];
+    }
+
+    /**
+     * @return The offset where the document of the item starts, or -1 if the item has no document.
+     */
+    int sourceOffset(int item) {
+        return sourceOffsets[item];
+    }
+
+    /**
+     * @return The offset right after the item, separator included.
+     */
+    int itemEnd(int item) {
+        return item + 1 < numberOfActions ? actionOffsets[item + 1] : size;
+    }
+
+    public XContentType getContentType() {
+        return contentType;
+    }
+
+    /**
+     * @return The array holding the body, valid from 0 to {@link #size()}. It is not a copy.
+     */
+    public byte[] array() {
+        return buffer;
+    }
+
+    /**
+     * Gives the byte array back to the pool. The bulk can't be used after that.
+     */
+    public void release() {
+        pool.giveBack(buffer);
+        buffer = null;
+    }
+
+    @Override
+    public void write(int b) {
+        ensureCapacity(size + 1);
+        buffer[size++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+        ensureCapacity(size + length);
+        System.arraycopy(bytes, offset, buffer, size, length);
+        size += length;
+    }
+
+    private void writeAction(String action, String index, String id) throws IOException {
+        addItem(size, -1);
+        try (var builder = new XContentBuilder(xContent, this)) {
+            builder.startObject().startObject(action)
+                    .field("_index", index)
+                    .field("_id", id)
+                    .endObject().endObject();
+        }
+        write(separator);
+        lastId = id;
+    }
+
+    private void addItem(int actionOffset, int sourceOffset) {
+        if (numberOfActions == actionOffsets.length) {
+            actionOffsets = Arrays.copyOf(actionOffsets, numberOfActions * 2);
+            sourceOffsets = Arrays.copyOf(sourceOffsets, numberOfActions * 2);
+        }
+        actionOffsets[numberOfActions] = actionOffset;
+        sourceOffsets[numberOfActions] = sourceOffset;
+        numberOfActions++;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > buffer.length)
+            buffer = Arrays.copyOf(buffer, Math.max(capacity, buffer.length * 2));
+    }
+
+    /**
+     * Small pool of byte arrays, so the arrays of the bulks already answered are reused by the next ones instead
+     * of growing new arrays for every bulk.
+     */
+    public static class BufferPool {
+
+        private final byte[][] arrays;
+        private final int initialSize;
+        private final int maxPooledSize;
+        private int available;
+
+        /**
+         * @param capacity      Maximum number of arrays kept in the pool.
+         * @param initialSize   Size of the new arrays.
+         * @param maxPooledSize Arrays bigger than this are not kept, so an outlier doesn't retain memory.
+         */
+        public BufferPool(int capacity, int initialSize, int maxPooledSize) {
+            this.arrays = new byte[capacity][];
+            this.initialSize = initialSize;
+            this.maxPooledSize = maxPooledSize;
+        }
+
+        synchronized byte[] borrow() {
+            if (available == 0)
+                return new byte[initialSize];
+            var array = arrays[--available];
+            arrays[available] = null;
+            return array;
+        }
+
+        synchronized void giveBack(byte[] array) {
+            if (array != null && available < arrays.length && array.length <= maxPooledSize)
+                arrays[available++] = array;
+        }
+    }
+}
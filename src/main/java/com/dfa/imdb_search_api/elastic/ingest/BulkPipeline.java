@@ -0,0 +1,495 @@
+package com.dfa.imdb_search_api.elastic.ingest;
+
+import com.dfa.imdb_search_api.elastic.ingest.checkpoint.Checkpoint;
+import com.dfa.imdb_search_api.elastic.ingest.checkpoint.CheckpointStore;
+import com.dfa.imdb_search_api.elastic.ingest.job.IngestMetrics;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.ResponseException;
+import org.elasticsearch.client.ResponseListener;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.xcontent.DeprecationHandler;
+import org.elasticsearch.xcontent.NamedXContentRegistry;
+import org.elasticsearch.xcontent.XContentType;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Sends bulk requests to ElasticSearch asynchronously, so the parsing of the next bulk can run ahead while
+ * the previous ones are being indexed.
+ * <p>
+ * The bulks are {@link BulkBuffer}s created by {@link #newBulk()}, whose bodies are sent as they are through the
+ * low level client, so the documents are encoded only once. Their byte arrays are reused by the next bulks once
+ * answered. The bulks are sized by bytes rather than by rows, see {@link #isFull(BulkBuffer)}, as the rows of the
+ * different datasets have very different sizes.
+ * <p>
+ * The amount of work in flight is bounded in two ways: by the number of concurrent requests, which adapts to the
+ * capacity of the cluster through an {@link AdaptiveConcurrencyLimiter}, and by the total size in bytes of those
+ * requests. When any of those limits is reached {@link #submit(BulkBuffer)} blocks the caller until a response
+ * arrives, which provides backpressure to the parser.
+ * <p>
+ * If a {@link CheckpointStore} is given, the position of the source after each bulk is saved once that bulk and
+ * all the previous ones have been acknowledged, as the responses can arrive out of order. The checkpoints are
+ * written by a thread of the pipeline, so the threads of the client never wait for the disk.
+ * <p>
+ * The responses are filtered with {@link BulkResult#FILTER_PATH}, so only the status and the errors of the items
+ * come back. The items failed with a transient error, like the rejections of a saturated cluster, are sent again
+ * in a new bulk after an exponential backoff, as are the whole bulks failed by connection errors or 429/503
+ * responses. The items that failed permanently, or ran out of retries, are written to a {@link DeadLetterFile}
+ * instead of being lost, and the load goes on. That file is written by the same thread as the checkpoints.
+ * <p>
+ * If {@link IngestMetrics} are given, the latency and the failed items of every bulk are recorded in them.
+ * <p>
+ * A load that stops before {@link #awaitCompletion()}, because it failed or was cancelled, must {@link #abort()} the
+ * pipeline and wait for the bulks still in flight with {@link #awaitTermination(long, TimeUnit)}, so none of its
+ * writes lands once the load has returned.
+ */
+public class BulkPipeline {
+
+    /**
+     * Room left in the buffers over the bulk size, as a bulk is only checked once the last row has been added.
+     */
+    private static final int BUFFER_SLACK = 64 * 1024;
+    private static final long MAX_RETRY_BACKOFF_MILLIS = 30_000;
+    private static final RequestOptions JSON_RESPONSE = RequestOptions.DEFAULT.toBuilder()
+            .addHeader("Accept", XContentType.JSON.mediaTypeWithoutParameters())
+            .build();
+
+    private final RestHighLevelClient client;
+    private final CheckpointStore checkpoints;
+    private final IngestMetrics metrics;
+    private final XContentType contentType;
+    private final ContentType httpContentType;
+    private final BulkBuffer.BufferPool bufferPool;
+    private final int bulkSize;
+    private final int maxBytesInFlight;
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final Semaphore bytePermits;
+    private final DeadLetterFile deadLetters;
+    private final int maxRetries;
+    private final long retryBackoffMillis;
+    private final AtomicReference<Exception> failure = new AtomicReference<>();
+    private final Deque<PendingBulk> pending = new ArrayDeque<>();
+    private final ThreadPoolExecutor writer;
+
+    public BulkPipeline(RestHighLevelClient client, IngestConfiguration configuration) {
+        this(client, configuration, null, null);
+    }
+
+    public BulkPipeline(RestHighLevelClient client, IngestConfiguration configuration, CheckpointStore checkpoints,
+                        IngestMetrics metrics) {
+        this.client = client;
+        this.checkpoints = checkpoints;
+        this.metrics = metrics;
+        this.contentType = configuration.getContentType();
+        this.httpContentType = ContentType.create(contentType.mediaTypeWithoutParameters());
+        this.maxBytesInFlight = (int) Math.min(Integer.MAX_VALUE,
+                Math.max(1, configuration.getMaxBytesInFlight()));
+        this.bulkSize = (int) Math.min(maxBytesInFlight, Math.max(1, configuration.getBulkSize()));
+        int concurrency = Math.max(1, configuration.getConcurrency());
+        this.limiter = new AdaptiveConcurrencyLimiter(configuration.getInitialConcurrency(), concurrency, bulkSize);
+        this.bytePermits = new Semaphore(maxBytesInFlight);
+        this.deadLetters = new DeadLetterFile(Path.of(configuration.getDeadLetterPath()));
+        this.maxRetries = Math.max(0, configuration.getMaxRetries());
+        this.retryBackoffMillis = Math.max(1, configuration.getRetryBackoffMillis());
+        // One array per bulk in flight plus the one being filled
+        this.bufferPool = new BulkBuffer.BufferPool(concurrency + 1, bulkSize + BUFFER_SLACK, maxBytesInFlight);
+        // A single thread keeps the files written in order, and it stops on its own once the pipeline is idle
+        this.writer = new ThreadPoolExecutor(1, 1, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            var thread = new Thread(runnable, "bulk-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.writer.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * @return A new empty bulk, encoded with the configured content type.
+     */
+    public BulkBuffer newBulk() {
+        return new BulkBuffer(contentType, bufferPool);
+    }
+
+    /**
+     * @param bulk The bulk being filled.
+     * @return True if the bulk reached the configured size in bytes and must be submitted.
+     */
+    public boolean isFull(BulkBuffer bulk) {
+        return bulk.size() >= bulkSize;
+    }
+
+    /**
+     * Sends the bulk asynchronously, waiting first for room in the pipeline if needed.
+     *
+     * @param bulk The bulk to be sent. Empty bulks are ignored.
+     * @throws IOException If a previous bulk failed or the thread is interrupted while waiting.
+     */
+    public void submit(BulkBuffer bulk) throws IOException {
+        submit(bulk, null);
+    }
+
+    /**
+     * Sends the bulk asynchronously, waiting first for room in the pipeline if needed.
+     * The bulk can't be used after being submitted.
+     *
+     * @param bulk       The bulk to be sent. Empty bulks are ignored.
+     * @param checkpoint The position of the source right after the last line of the bulk, or null.
+     * @throws IOException If a previous bulk failed for good or the thread is interrupted while waiting.
+     */
+    public void submit(BulkBuffer bulk, Checkpoint checkpoint) throws IOException {
+        if (bulk.numberOfActions() == 0) {
+            bulk.release();
+            return;
+        }
+        checkFailure();
+
+        // A single bulk bigger than the whole budget is let through alone instead of blocking forever
+        int size = Math.min(bulk.size(), maxBytesInFlight);
+        long ticket = acquireTicket();
+        try {
+            acquire(bytePermits, size);
+        } catch (IOException e) {
+            limiter.release();
+            throw e;
+        }
+        // A previous bulk may have failed while this one was waiting for room
+        if (failure.get() != null) {
+            bytePermits.release(size);
+            limiter.release();
+            bulk.release();
+            checkFailure();
+        }
+
+        var pendingBulk = new PendingBulk(checkpoint, ticket, size);
+        synchronized (pending) {
+            pending.addLast(pendingBulk);
+        }
+        send(pendingBulk, bulk, 0);
+    }
+
+    /**
+     * Blocks until every submitted bulk has been answered by ElasticSearch, retries included, and its checkpoint
+     * has been saved.
+     *
+     * @throws IOException If any of the bulks failed or the thread is interrupted while waiting.
+     */
+    public void awaitCompletion() throws IOException {
+        try {
+            limiter.awaitIdle();
+            awaitWriter(Long.MAX_VALUE);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the bulk pipeline");
+        }
+        checkFailure();
+    }
+
+    /**
+     * Stops the pipeline, after a failure or a cancellation of the load. The bulks not submitted yet are refused, the
+     * pending retries are dropped and no more checkpoints are saved, even for the bulks acknowledged from now on.
+     */
+    public void abort() {
+        failure.compareAndSet(null, new CancellationException("The bulk pipeline was aborted"));
+    }
+
+    /**
+     * Blocks until every submitted bulk has been answered and every checkpoint written, or until the timeout
+     * elapses. An interruption of the thread, which is how the loads are cancelled, doesn't cut the wait short, and
+     * it is restored afterwards.
+     *
+     * @return True if every bulk was answered, false if the timeout elapsed first.
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) {
+        boolean interrupted = Thread.interrupted();
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        try {
+            while (true) {
+                try {
+                    return limiter.awaitIdle(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)
+                            && awaitWriter(deadline - System.nanoTime());
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Helper method, blocks until the writer has run every task queued so far, or until the timeout elapses.
+     *
+     * @param nanos The timeout, in nanoseconds.
+     * @return True if the tasks were run, false if the timeout elapsed first.
+     */
+    private boolean awaitWriter(long nanos) throws InterruptedException {
+        try {
+            writer.submit(() -> { }).get(nanos, TimeUnit.NANOSECONDS);
+            return true;
+        } catch (ExecutionException e) {
+            // The task does nothing, so it can't fail
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Helper method, sends an attempt of a bulk. The first attempt sends the bulk as submitted, the next ones only
+     * the items which failed with a transient error.
+     * <p>
+     * The room taken by the bulk in the pipeline is kept until its last attempt is answered, so the retries slow down
+     * the parsing instead of piling up.
+     *
+     * @param pendingBulk The submitted bulk this attempt belongs to.
+     * @param bulk        The items to be sent in this attempt.
+     * @param attempt     The number of the attempt, 0 for the first one.
+     */
+    private void send(PendingBulk pendingBulk, BulkBuffer bulk, int attempt) {
+        // Once the load has failed there is no point in retrying
+        if (attempt > 0 && failure.get() != null) {
+            bulk.release();
+            release(pendingBulk);
+            return;
+        }
+
+        var request = new Request("POST", "/_bulk");
+        request.addParameter("filter_path", BulkResult.FILTER_PATH);
+        request.setEntity(new ByteArrayEntity(bulk.array(), 0, bulk.size(), httpContentType));
+        request.setOptions(JSON_RESPONSE);
+        long start = System.nanoTime();
+
+        client.getLowLevelClient().performRequestAsync(request, new ResponseListener() {
+            @Override
+            public void onSuccess(Response response) {
+                try {
+                    var result = parseResponse(response);
+                    if (result.hasRejections())
+                        limiter.onRejected(pendingBulk.ticket);
+                    else
+                        limiter.onResponse(pendingBulk.ticket, result.getTookMillis(), bulk.size());
+                    if (metrics != null) {
+                        metrics.bulkCompleted(System.nanoTime() - start, result);
+                        metrics.setConcurrency(limiter.currentLimit());
+                    }
+                    handleResult(pendingBulk, bulk, attempt, result);
+                } catch (IOException | RuntimeException e) {
+                    fail(pendingBulk, bulk, e);
+                }
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                int status = e instanceof ResponseException responseException
+                        ? responseException.getResponse().getStatusLine().getStatusCode() : -1;
+                if (status == RestStatus.TOO_MANY_REQUESTS.getStatus())
+                    limiter.onRejected(pendingBulk.ticket);
+
+                // Connection errors and timeouts are worth retrying too, the whole bulk is sent again
+                boolean retryable = status < 0 ? e instanceof IOException : BulkResult.isRetryable(status);
+                if (retryable && attempt < maxRetries) {
+                    if (metrics != null)
+                        metrics.itemsRetried(bulk.numberOfActions());
+                    retryLater(pendingBulk, bulk, attempt + 1);
+                } else {
+                    fail(pendingBulk, bulk, e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Helper method, resubmits the items that failed with a transient error, if there are retries left, and writes
+     * the rest of the failed items to the dead letter file. Once there is nothing left to retry the bulk is
+     * acknowledged.
+     */
+    private void handleResult(PendingBulk pendingBulk, BulkBuffer bulk, int attempt, BulkResult result) {
+        if (!result.hasFailures()) {
+            bulk.release();
+            complete(pendingBulk);
+            return;
+        }
+
+        BulkBuffer retry = null;
+        List<BulkResult.ItemFailure> permanent = new ArrayList<>();
+        for (var itemFailure : result.getFailures()) {
+            if (itemFailure.isRetryable() && attempt < maxRetries) {
+                if (retry == null)
+                    retry = newBulk();
+                retry.copyItem(bulk, itemFailure.getItem());
+            } else {
+                permanent.add(itemFailure);
+            }
+        }
+
+        if (permanent.isEmpty()) {
+            bulk.release();
+            resolve(pendingBulk, retry, attempt);
+            return;
+        }
+        // The file is written by the writer rather than by the thread of the client which got the response
+        var retryBulk = retry;
+        writer.execute(() -> {
+            try {
+                deadLetters.write(bulk, permanent);
+                if (metrics != null)
+                    metrics.itemsDeadLettered(permanent.size());
+            } catch (IOException | RuntimeException e) {
+                if (retryBulk != null)
+                    retryBulk.release();
+                fail(pendingBulk, bulk, e);
+                return;
+            }
+            bulk.release();
+            resolve(pendingBulk, retryBulk, attempt);
+        });
+    }
+
+    /**
+     * Helper method, acknowledges the bulk once its failed items have been written, or sends the items to be
+     * retried.
+     */
+    private void resolve(PendingBulk pendingBulk, BulkBuffer retry, int attempt) {
+        if (retry == null) {
+            complete(pendingBulk);
+            return;
+        }
+        if (metrics != null)
+            metrics.itemsRetried(retry.numberOfActions());
+        retryLater(pendingBulk, retry, attempt + 1);
+    }
+
+    /**
+     * Helper method, sends the attempt after an exponential backoff with jitter, so the retries of the bulks
+     * rejected at the same time don't hit the cluster at the same time again.
+     */
+    private void retryLater(PendingBulk pendingBulk, BulkBuffer bulk, int attempt) {
+        long backoff = Math.min(MAX_RETRY_BACKOFF_MILLIS, retryBackoffMillis << Math.min(attempt - 1, 20));
+        long delay = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+        CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS)
+                .execute(() -> send(pendingBulk, bulk, attempt));
+    }
+
+    /**
+     * Helper method, parses the body of the response. It is JSON whatever the content type of the request,
+     * as the client asks for JSON responses.
+     */
+    private static BulkResult parseResponse(Response response) throws IOException {
+        try (var content = response.getEntity().getContent();
+             var parser = XContentType.JSON.xContent().createParser(NamedXContentRegistry.EMPTY,
+                     DeprecationHandler.IGNORE_DEPRECATIONS, content)) {
+            return BulkResult.fromXContent(parser);
+        }
+    }
+
+    /**
+     * Marks the bulk as acknowledged and saves the checkpoint of the last bulk of the contiguous acknowledged ones.
+     * Once a bulk fails no more checkpoints are saved, so the load resumes from before the failed bulk.
+     * <p>
+     * The checkpoint is handed to the writer while holding the lock, so they are saved in the same order.
+     */
+    private void acknowledge(PendingBulk bulk) {
+        Checkpoint checkpoint = null;
+        synchronized (pending) {
+            bulk.acknowledged = true;
+            while (!pending.isEmpty() && pending.peekFirst().acknowledged) {
+                var first = pending.pollFirst();
+                if (first.checkpoint != null)
+                    checkpoint = first.checkpoint;
+            }
+
+            if (checkpoint != null && checkpoints != null && failure.get() == null)
+                writer.execute(saveCheckpoint(checkpoint));
+        }
+    }
+
+    /**
+     * Helper method, the task of the writer which saves a checkpoint. If it can't be saved the load fails, as it
+     * couldn't be resumed.
+     */
+    private Runnable saveCheckpoint(Checkpoint checkpoint) {
+        return () -> {
+            try {
+                checkpoints.save(checkpoint);
+            } catch (RuntimeException e) {
+                failure.compareAndSet(null, e);
+            }
+        };
+    }
+
+    private void complete(PendingBulk pendingBulk) {
+        acknowledge(pendingBulk);
+        release(pendingBulk);
+    }
+
+    private void fail(PendingBulk pendingBulk, BulkBuffer bulk, Exception e) {
+        failure.compareAndSet(null, e);
+        bulk.release();
+        release(pendingBulk);
+    }
+
+    private void release(PendingBulk pendingBulk) {
+        bytePermits.release(pendingBulk.size);
+        limiter.release();
+    }
+
+    private void checkFailure() throws IOException {
+        var exception = failure.get();
+        if (exception instanceof IOException ioException)
+            throw ioException;
+        if (exception != null)
+            throw new IOException("Error while sending a bulk request", exception);
+    }
+
+    private long acquireTicket() throws IOException {
+        try {
+            return limiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the bulk pipeline");
+        }
+    }
+
+    private static void acquire(Semaphore semaphore, int permits) throws IOException {
+        try {
+            semaphore.acquire(permits);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the bulk pipeline");
+        }
+    }
+
+    private static final class PendingBulk {
+        private final Checkpoint checkpoint;
+        private final long ticket;
+        private final int size;
+        private boolean acknowledged;
+
+        private PendingBulk(Checkpoint checkpoint, long ticket, int size) {
+            this.checkpoint = checkpoint;
+            this.ticket = ticket;
+            this.size = size;
+        }
+    }
+}
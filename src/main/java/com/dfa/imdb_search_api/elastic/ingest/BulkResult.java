@@ -0,0 +1,195 @@
+package com.dfa.imdb_search_api.elastic.ingest;
+
+import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.xcontent.XContentParser;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Response of a bulk request sent with {@link #FILTER_PATH}, which keeps only what is needed to find the failed
+ * items: the time taken, the error flag and the id, status and error of each item.
+ * <p>
+ * {@link org.elasticsearch.action.bulk.BulkResponse#fromXContent(XContentParser)} can't parse such a filtered
+ * response, as it requires the index and the version of every item, so this class parses it on its own. The items
+ * keep their position in the response, which is the position of their action in the request.
+ */
+public class BulkResult {
+
+    public static final String FILTER_PATH = "took,errors,items.*._id,items.*.status,items.*.error";
+
+    private final long tookMillis;
+    private final int numberOfItems;
+    private final List<ItemFailure> failures;
+
+    public BulkResult(long tookMillis, int numberOfItems, List<ItemFailure> failures) {
+        this.tookMillis = tookMillis;
+        this.numberOfItems = numberOfItems;
+        this.failures = failures;
+    }
+
+    /**
+     * Parses a filtered bulk response.
+     *
+     * @param parser The parser of the response, before its first token.
+     * @return The result of the bulk.
+     * @throws IOException If the response is malformed.
+     */
+    public static BulkResult fromXContent(XContentParser parser) throws IOException {
+        long took = 0;
+        int items = 0;
+        List<ItemFailure> failures = new ArrayList<>();
+
+        expect(parser.nextToken(), XContentParser.Token.START_OBJECT, parser);
+        while (parser.nextToken() == XContentParser.Token.FIELD_NAME) {
+            var field = parser.currentName();
+            var token = parser.nextToken();
+            if ("took".equals(field)) {
+                took = parser.longValue();
+            } else if ("items".equals(field) && token == XContentParser.Token.START_ARRAY) {
+                while (parser.nextToken() != XContentParser.Token.END_ARRAY) {
+                    var failure = parseItem(items, parser);
+                    if (failure != null)
+                        failures.add(failure);
+                    items++;
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        return new BulkResult(took, items, failures);
+    }
+
+    /**
+     * Helper method, parses an item of the form {"index": {"_id": ..., "status": ..., "error": {...}}}.
+     *
+     * @return The failure of the item, or null if it succeeded.
+     */
+    private static ItemFailure parseItem(int position, XContentParser parser) throws IOException {
+        expect(parser.currentToken(), XContentParser.Token.START_OBJECT, parser);
+        expect(parser.nextToken(), XContentParser.Token.FIELD_NAME, parser);
+        expect(parser.nextToken(), XContentParser.Token.START_OBJECT, parser);
+
+        String id = null;
+        int status = 0;
+        Map<String, Object> error = null;
+        while (parser.nextToken() == XContentParser.Token.FIELD_NAME) {
+            var field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "_id" -> id = parser.text();
+                case "status" -> status = parser.intValue();
+                case "error" -> error = parser.map();
+                default -> parser.skipChildren();
+            }
+        }
+        expect(parser.nextToken(), XContentParser.Token.END_OBJECT, parser);
+
+        return error != null ? new ItemFailure(position, id, status, error) : null;
+    }
+
+    private static void expect(XContentParser.Token actual, XContentParser.Token expected, XContentParser parser)
+            throws IOException {
+        if (actual != expected)
+            throw new IOException("Malformed bulk response, expected " + expected + " but found " + actual
+                    + " at " + parser.getTokenLocation());
+    }
+
+    public long getTookMillis() {
+        return tookMillis;
+    }
+
+    public int getNumberOfItems() {
+        return numberOfItems;
+    }
+
+    /**
+     * @return The failed items, in the order of the request.
+     */
+    public List<ItemFailure> getFailures() {
+        return failures;
+    }
+
+    public boolean hasFailures() {
+        return !failures.isEmpty();
+    }
+
+    /**
+     * @return True if any item was rejected because the write queues of the cluster were full.
+     */
+    public boolean hasRejections() {
+        for (var failure : failures)
+            if (failure.isRejected())
+                return true;
+        return false;
+    }
+
+    /**
+     * Failure of a single item of the bulk.
+     */
+    public static final class ItemFailure {
+
+        private final int item;
+        private final String id;
+        private final int status;
+        private final Map<String, Object> error;
+
+        /**
+         * @param item   The position of the item in the bulk request.
+         * @param id     The id of the document.
+         * @param status The HTTP status of the item.
+         * @param error  The error, as returned by ElasticSearch.
+         */
+        public ItemFailure(int item, String id, int status, Map<String, Object> error) {
+            this.item = item;
+            this.id = id;
+            this.status = status;
+            this.error = error;
+        }
+
+        public int getItem() {
+            return item;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public Map<String, Object> getError() {
+            return error;
+        }
+
+        /**
+         * @return True if the item was rejected by a full write queue (429 Too Many Requests).
+         */
+        public boolean isRejected() {
+            return status == RestStatus.TOO_MANY_REQUESTS.getStatus();
+        }
+
+        /**
+         * @return True if the failure is transient and the item may succeed if sent again: rejections and
+         * unavailable shards. Mapping errors and the like would fail the same way every time.
+         */
+        public boolean isRetryable() {
+            return BulkResult.isRetryable(status);
+        }
+    }
+
+    /**
+     * @param status An HTTP status returned by ElasticSearch.
+     * @return True if the status is due to a transient condition of the cluster.
+     */
+    public static boolean isRetryable(int status) {
+        return status == RestStatus.TOO_MANY_REQUESTS.getStatus()
+                || status == RestStatus.BAD_GATEWAY.getStatus()
+                || status == RestStatus.SERVICE_UNAVAILABLE.getStatus()
+                || status == RestStatus.GATEWAY_TIMEOUT.getStatus();
+    }
+}
@@ -0,0 +1,79 @@
+package com.dfa.imdb_search_api.elastic.ingest;
+
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.xcontent.XContentBuilder;
+import org.elasticsearch.xcontent.XContentFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * NDJSON file where the items that failed permanently are appended, one line per item, so no row is lost silently
+ * and they can be inspected and sent again once the cause is fixed.
+ * <p>
+ * Each line holds the id, status and error returned by ElasticSearch, along with the action and the document as
+ * they were sent. Those are converted to JSON when the bulks are encoded as SMILE.
+ */
+public class DeadLetterFile {
+
+    private final Path path;
+
+    public DeadLetterFile(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Appends the failed items of a bulk.
+     *
+     * @param bulk     The bulk containing the items, as sent.
+     * @param failures The failures of the items, as returned by ElasticSearch.
+     * @throws IOException If the file can't be written.
+     */
+    public synchronized void write(BulkBuffer bulk, List<BulkResult.ItemFailure> failures) throws IOException {
+        var parent = path.toAbsolutePath().getParent();
+        if (parent != null)
+            Files.createDirectories(parent);
+
+        try (var output = Files.newOutputStream(path, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            var failedAt = Instant.now().toString();
+            for (var failure : failures) {
+                try (var line = XContentFactory.jsonBuilder()) {
+                    line.startObject()
+                            .field("_id", failure.getId())
+                            .field("status", failure.getStatus())
+                            .field("failed_at", failedAt)
+                            .field("error", failure.getError());
+                    writeItem(line, bulk, failure.getItem());
+                    line.endObject();
+                    BytesReference.bytes(line).writeTo(output);
+                }
+                output.write('\n');
+            }
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Helper method, copies the action and the document of the item, leaving out their separators.
+     */
+    private static void writeItem(XContentBuilder line, BulkBuffer bulk, int item)
+            throws IOException {
+        var contentType = bulk.getContentType();
+        int action = bulk.actionOffset(item);
+        int source = bulk.sourceOffset(item);
+        int end = bulk.itemEnd(item);
+
+        int actionEnd = (source < 0 ? end : source) - 1;
+        line.rawField("action", new ByteArrayInputStream(bulk.array(), action, actionEnd - action), contentType);
+        if (source >= 0)
+            line.rawField("document", new ByteArrayInputStream(bulk.array(), source, end - 1 - source), contentType);
+    }
+}
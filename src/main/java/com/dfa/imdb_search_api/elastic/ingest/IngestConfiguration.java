@@ -0,0 +1,235 @@
+package com.dfa.imdb_search_api.elastic.ingest;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import org.elasticsearch.xcontent.XContentType;
+
+/**
+ * Configuration of the ingest process, bound to the "ingest" prefix of the application.yml.
+ */
+@ConfigurationProperties("ingest")
+public class IngestConfiguration {
+
+    /**
+     * Maximum number of bulk requests in flight at the same time. The actual number adapts to the latency and the
+     * rejections of the cluster, up to this one.
+     */
+    private int concurrency = 8;
+
+    /**
+     * Number of bulk requests in flight at the start of a load, until the limit adapts to the cluster.
+     */
+    private int initialConcurrency = 2;
+
+    /**
+     * Size in bytes of the bulk requests.
+     */
+    private long bulkSize = 5L * 1024 * 1024;
+
+    /**
+     * Maximum amount of bytes that can be in flight, waiting for a response, at the same time.
+     */
+    private long maxBytesInFlight = 64L * 1024 * 1024;
+
+    /**
+     * Maximum number of times a bulk, or its items failed with a transient error, are sent again.
+     */
+    private int maxRetries = 5;
+
+    /**
+     * Wait before the first retry, doubled on each of the next ones.
+     */
+    private long retryBackoffMillis = 200;
+
+    /**
+     * NDJSON file where the items that failed permanently are appended.
+     */
+    private String deadLetterPath = "imdb-dead-letters.ndjson";
+
+    /**
+     * Folder containing the IMDB dumps. If not set, the uncompressed files of the resources folder are used.
+     */
+    private String dataPath;
+
+    /**
+     * Name of the films dump inside the data path.
+     */
+    private String filmsFile = "title.basics.tsv.gz";
+
+    /**
+     * Name of the ratings dump inside the data path.
+     */
+    private String ratingsFile = "title.ratings.tsv.gz";
+
+    /**
+     * Size of the buffers used to read and decompress the dumps.
+     */
+    private int readBufferSize = 1024 * 1024;
+
+    /**
+     * Number of threads parsing an uncompressed dump in parallel, 0 to use one per core and 1 to disable it.
+     */
+    private int parseThreads = 0;
+
+    /**
+     * File where the fingerprints of the indexed titles are stored, to compute the delta of the next load.
+     */
+    private String fingerprintPath = "imdb-fingerprints.bin";
+
+    /**
+     * File where the parsed titles are exported, in a columnar binary format, to be indexed again without parsing
+     * the dumps.
+     */
+    private String snapshotPath = "imdb-snapshot.bin";
+
+    /**
+     * File where the position of the last acknowledged bulk is stored, to resume an interrupted load.
+     */
+    private String checkpointPath = "imdb-checkpoint.properties";
+
+    /**
+     * Maximum number of ingest jobs running at the same time, each one loading a different index.
+     */
+    private int maxJobs = 2;
+
+    /**
+     * Content type of the bulk requests, JSON or SMILE. SMILE is a binary encoding of JSON, smaller and faster
+     * to parse.
+     */
+    private XContentType contentType = XContentType.JSON;
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public void setConcurrency(int concurrency) {
+        this.concurrency = concurrency;
+    }
+
+    public int getInitialConcurrency() {
+        return initialConcurrency;
+    }
+
+    public void setInitialConcurrency(int initialConcurrency) {
+        this.initialConcurrency = initialConcurrency;
+    }
+
+    public long getBulkSize() {
+        return bulkSize;
+    }
+
+    public void setBulkSize(long bulkSize) {
+        this.bulkSize = bulkSize;
+    }
+
+    public long getMaxBytesInFlight() {
+        return maxBytesInFlight;
+    }
+
+    public void setMaxBytesInFlight(long maxBytesInFlight) {
+        this.maxBytesInFlight = maxBytesInFlight;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    public void setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    public long getRetryBackoffMillis() {
+        return retryBackoffMillis;
+    }
+
+    public void setRetryBackoffMillis(long retryBackoffMillis) {
+        this.retryBackoffMillis = retryBackoffMillis;
+    }
+
+    public String getDeadLetterPath() {
+        return deadLetterPath;
+    }
+
+    public void setDeadLetterPath(String deadLetterPath) {
+        this.deadLetterPath = deadLetterPath;
+    }
+
+    public String getDataPath() {
+        return dataPath;
+    }
+
+    public void setDataPath(String dataPath) {
+        this.dataPath = dataPath;
+    }
+
+    public String getFilmsFile() {
+        return filmsFile;
+    }
+
+    public void setFilmsFile(String filmsFile) {
+        this.filmsFile = filmsFile;
+    }
+
+    public String getRatingsFile() {
+        return ratingsFile;
+    }
+
+    public void setRatingsFile(String ratingsFile) {
+        this.ratingsFile = ratingsFile;
+    }
+
+    public int getReadBufferSize() {
+        return readBufferSize;
+    }
+
+    public void setReadBufferSize(int readBufferSize) {
+        this.readBufferSize = readBufferSize;
+    }
+
+    public int getParseThreads() {
+        return parseThreads;
+    }
+
+    public void setParseThreads(int parseThreads) {
+        this.parseThreads = parseThreads;
+    }
+
+    public String getFingerprintPath() {
+        return fingerprintPath;
+    }
+
+    public void setFingerprintPath(String fingerprintPath) {
+        this.fingerprintPath = fingerprintPath;
+    }
+
+    public String getSnapshotPath() {
+        return snapshotPath;
+    }
+
+    public void setSnapshotPath(String snapshotPath) {
+        this.snapshotPath = snapshotPath;
+    }
+
+    public String getCheckpointPath() {
+        return checkpointPath;
+    }
+
+    public void setCheckpointPath(String checkpointPath) {
+        this.checkpointPath = checkpointPath;
+    }
+
+    public int getMaxJobs() {
+        return maxJobs;
+    }
+
+    public void setMaxJobs(int maxJobs) {
+        this.maxJobs = maxJobs;
+    }
+
+    public XContentType getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(XContentType contentType) {
+        this.contentType = contentType;
+    }
+}
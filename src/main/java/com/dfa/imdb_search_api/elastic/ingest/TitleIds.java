@@ -0,0 +1,37 @@
+package com.dfa.imdb_search_api.elastic.ingest;
+
+/**
+ * Helper methods to convert the IMDB title ids (tt0413300) from and to their numeric part (413300),
+ * which is the compact key used by the ingest structures.
+ */
+public final class TitleIds {
+
+    private static final String PREFIX = "tt";
+    private static final int MIN_DIGITS = 7;
+
+    private TitleIds() {
+    }
+
+    /**
+     * @param id A title id, like tt0413300
+     * @return The numeric part of the id, like 413300
+     * @throws NumberFormatException If the id is not a valid title id
+     */
+    public static int parse(String id) {
+        if (!id.startsWith(PREFIX))
+            throw new NumberFormatException("Invalid title id: " + id);
+        return Integer.parseInt(id, PREFIX.length(), id.length(), 10);
+    }
+
+    /**
+     * @param number The numeric part of a title id, like 413300
+     * @return The title id, padded with zeros to seven digits like IMDB does, like tt0413300
+     */
+    public static String format(int number) {
+        var digits = Integer.toString(number);
+        var builder = new StringBuilder(PREFIX.length() + Math.max(MIN_DIGITS, digits.length())).append(PREFIX);
+        for (int i = digits.length(); i < MIN_DIGITS; i++)
+            builder.append('0');
+        return builder.append(digits).toString();
+    }
+}
@@ -0,0 +1,76 @@
+package com.dfa.imdb_search_api.elastic.ingest.checkpoint;
+
+import java.util.Objects;
+import java.util.StringJoiner;
+
+/**
+ * Position of a data source up to which every line has been acknowledged by ElasticSearch.
+ */
+public class Checkpoint {
+
+    private final String source;
+    private final long sourceSize;
+    private final long lineNumber;
+    private final long byteOffset;
+    private final String lastId;
+
+    /**
+     * @param source     Name of the data source.
+     * @param sourceSize Size of the data source, used to detect that the source changed since the checkpoint.
+     * @param lineNumber Number of lines of the source already processed, header included.
+     * @param byteOffset Offset of the uncompressed source right after the last processed line.
+     * @param lastId     Id of the last document sent.
+     */
+    public Checkpoint(String source, long sourceSize, long lineNumber, long byteOffset, String lastId) {
+        this.source = source;
+        this.sourceSize = sourceSize;
+        this.lineNumber = lineNumber;
+        this.byteOffset = byteOffset;
+        this.lastId = lastId;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public long getSourceSize() {
+        return sourceSize;
+    }
+
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    public long getByteOffset() {
+        return byteOffset;
+    }
+
+    public String getLastId() {
+        return lastId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Checkpoint that = (Checkpoint) o;
+        return sourceSize == that.sourceSize && lineNumber == that.lineNumber && byteOffset == that.byteOffset
+                && Objects.equals(source, that.source) && Objects.equals(lastId, that.lastId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(source, sourceSize, lineNumber, byteOffset, lastId);
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", Checkpoint.class.getSimpleName() + "[", "]")
+                .add("source='" + source + "'")
+                .add("sourceSize=" + sourceSize)
+                .add("lineNumber=" + lineNumber)
+                .add("byteOffset=" + byteOffset)
+                .add("lastId='" + lastId + "'")
+                .toString();
+    }
+}
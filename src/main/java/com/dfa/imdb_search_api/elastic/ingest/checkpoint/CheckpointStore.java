@@ -0,0 +1,97 @@
+package com.dfa.imdb_search_api.elastic.ingest.checkpoint;
+
+import com.dfa.imdb_search_api.elastic.ingest.source.IDataSource;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Properties;
+
+/**
+ * Persists the last {@link Checkpoint} of an ingest in a small properties file.
+ * <p>
+ * Every save is durable: the checkpoint is written to a temporary file, flushed to disk and then moved over the
+ * previous one atomically, so a crash at any moment leaves either the old or the new checkpoint.
+ */
+public class CheckpointStore {
+
+    private final Path path;
+
+    public CheckpointStore(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * @param source The source about to be ingested.
+     * @return The stored checkpoint if it belongs to that same source, null if not.
+     * @throws IOException If the checkpoint file can't be read.
+     */
+    public Checkpoint find(IDataSource source) throws IOException {
+        if (!Files.exists(path))
+            return null;
+
+        var properties = new Properties();
+        try (var reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+
+        var checkpoint = new Checkpoint(properties.getProperty("source"),
+                Long.parseLong(properties.getProperty("source.size", "-1")),
+                Long.parseLong(properties.getProperty("line", "0")),
+                Long.parseLong(properties.getProperty("offset", "0")),
+                properties.getProperty("last.id"));
+
+        if (!source.getName().equals(checkpoint.getSource()) || source.size() != checkpoint.getSourceSize())
+            return null;
+        return checkpoint;
+    }
+
+    /**
+     * Durably replaces the stored checkpoint.
+     *
+     * @param checkpoint The new checkpoint.
+     * @throws UncheckedIOException If the checkpoint can't be written.
+     */
+    public synchronized void save(Checkpoint checkpoint) {
+        var properties = new Properties();
+        properties.setProperty("source", checkpoint.getSource());
+        properties.setProperty("source.size", Long.toString(checkpoint.getSourceSize()));
+        properties.setProperty("line", Long.toString(checkpoint.getLineNumber()));
+        properties.setProperty("offset", Long.toString(checkpoint.getByteOffset()));
+        if (checkpoint.getLastId() != null)
+            properties.setProperty("last.id", checkpoint.getLastId());
+
+        try {
+            var content = new StringWriter();
+            properties.store(content, "IMDB ingest checkpoint");
+
+            var parent = path.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            var temporary = parent.resolve(path.getFileName() + ".tmp");
+            try (var channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                channel.write(ByteBuffer.wrap(content.toString().getBytes(StandardCharsets.UTF_8)));
+                channel.force(true);
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error saving the ingest checkpoint", e);
+        }
+    }
+
+    /**
+     * Removes the stored checkpoint, once the ingest has finished.
+     *
+     * @throws IOException If the checkpoint file can't be deleted.
+     */
+    public synchronized void clear() throws IOException {
+        Files.deleteIfExists(path);
+    }
+}
@@ -0,0 +1,219 @@
+package com.dfa.imdb_search_api.elastic.ingest.delta;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Compares the fingerprints of the titles being ingested with the ones persisted by the previous run, and writes
+ * the new ones for the next run.
+ * <p>
+ * The fingerprints file is a binary file with a header followed by one (int id, long fingerprint) pair per title,
+ * sorted by id. As the IMDB datasets are also sorted by id, both are compared with a streaming merge, so the memory
+ * used doesn't depend on the number of titles. The ids must be received in ascending order.
+ * <p>
+ * The new file is written next to the target and only replaces it on {@link #commit()}, so a failed run keeps the
+ * fingerprints of the last successful one.
+ * <p>
+ * When a dataset is parsed in parallel ranges, each range records its titles in its own tracker, without a previous
+ * file, and the trackers are joined into the target in the order of the ranges. {@link RangeDeltaTrackers}
+ */
+public class DeltaTracker implements Closeable {
+
+    private static final int MAGIC = 0x494D4650; // IMFP
+    private static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final DataInputStream previous;
+    private final DataOutputStream next;
+    private final Path target;
+    private final Path temporary;
+
+    private int previousId = -1;
+    private long previousFingerprint;
+    private int firstId = -1;
+    private int lastId = -1;
+    private boolean committed;
+
+    private long changed;
+    private long unchanged;
+    private long deleted;
+
+    /**
+     * @param previousFile The fingerprints of the previous run, or null to consider every title as changed.
+     *                     A missing file is treated as an empty one.
+     * @param target       The file where the fingerprints of this run are stored on commit.
+     * @throws IOException If the previous file is not valid or the new one can't be created.
+     */
+    public DeltaTracker(Path previousFile, Path target) throws IOException {
+        this.target = target;
+        this.previous = previousFile != null && Files.exists(previousFile) ? openPrevious(previousFile) : null;
+
+        var parent = target.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        this.temporary = Files.createTempFile(parent, target.getFileName().toString(), ".tmp");
+        this.next = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), BUFFER_SIZE));
+        next.writeInt(MAGIC);
+        next.writeInt(VERSION);
+
+        advancePrevious();
+    }
+
+    /**
+     * Records the fingerprint of a title, reporting the titles of the previous run that are no longer present.
+     *
+     * @param id          Numeric part of the title id.
+     * @param fingerprint The fingerprint of the title. {@link Fingerprint#of(com.dfa.imdb_search_api.POJO.Film)}
+     * @param deletedIds  Receives the ids of the previous run, lower than this one, which are no longer present.
+     * @return True if the title is new or it changed since the previous run.
+     * @throws IOException If the ids are not sorted or an error occur while reading or writing the files.
+     */
+    public boolean update(int id, long fingerprint, IntConsumer deletedIds) throws IOException {
+        if (id <= lastId)
+            throw new IOException("Titles must be sorted by id to compute the delta, found " + id + " after " + lastId);
+        if (firstId < 0)
+            firstId = id;
+        lastId = id;
+
+        next.writeInt(id);
+        next.writeLong(fingerprint);
+
+        while (previousId >= 0 && previousId < id) {
+            deleted++;
+            deletedIds.accept(previousId);
+            advancePrevious();
+        }
+
+        boolean isChanged = previousId != id || previousFingerprint != fingerprint;
+        if (previousId == id)
+            advancePrevious();
+
+        if (isChanged) changed++;
+        else unchanged++;
+        return isChanged;
+    }
+
+    /**
+     * Reports the remaining titles of the previous run, the ones after the last received id, as deleted.
+     *
+     * @param deletedIds Receives the ids of the titles no longer present.
+     * @throws IOException If an error occur while reading the previous file.
+     */
+    public void finish(IntConsumer deletedIds) throws IOException {
+        while (previousId >= 0) {
+            deleted++;
+            deletedIds.accept(previousId);
+            advancePrevious();
+        }
+    }
+
+    /**
+     * Replaces the fingerprints of the previous run with the ones of this run.
+     *
+     * @throws IOException If the file can't be written.
+     */
+    public void commit() throws IOException {
+        next.close();
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        committed = true;
+    }
+
+    /**
+     * Joins the fingerprints of several trackers, one per range of the dataset, replacing the fingerprints of the
+     * previous run. The trackers must still be closed by the caller, which discards their own files.
+     *
+     * @param segments The trackers of the ranges, in the order of the dataset, all of them writing to the target.
+     * @param target   The file where the fingerprints are stored.
+     * @throws IOException If the ids of the ranges overlap or the file can't be written.
+     */
+    static void commit(List<DeltaTracker> segments, Path target) throws IOException {
+        // A single range is already the whole file
+        if (segments.size() == 1) {
+            segments.get(0).commit();
+            return;
+        }
+
+        var parent = target.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        var temporary = Files.createTempFile(parent, target.getFileName().toString(), ".tmp");
+        try {
+            try (var output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary),
+                    BUFFER_SIZE))) {
+                output.writeInt(MAGIC);
+                output.writeInt(VERSION);
+
+                int lastId = -1;
+                for (var segment : segments) {
+                    segment.next.close();
+                    if (segment.firstId < 0)
+                        continue;
+                    if (segment.firstId <= lastId)
+                        throw new IOException("Titles must be sorted by id to compute the delta, found "
+                                + segment.firstId + " after " + lastId);
+                    lastId = segment.lastId;
+
+                    try (var input = Files.newInputStream(segment.temporary)) {
+                        input.skipNBytes(2 * Integer.BYTES);
+                        input.transferTo(output);
+                    }
+                }
+            }
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Closes the files, discarding the new fingerprints if they weren't committed.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (previous != null)
+                previous.close();
+            next.close();
+        } finally {
+            if (!committed)
+                Files.deleteIfExists(temporary);
+        }
+    }
+
+    public long getChanged() {
+        return changed;
+    }
+
+    public long getUnchanged() {
+        return unchanged;
+    }
+
+    public long getDeleted() {
+        return deleted;
+    }
+
+    private static DataInputStream openPrevious(Path file) throws IOException {
+        var input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE));
+        try {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION)
+                throw new IOException("Invalid fingerprints file: " + file);
+        } catch (IOException e) {
+            input.close();
+            throw e;
+        }
+        return input;
+    }
+
+    private void advancePrevious() throws IOException {
+        if (previous == null)
+            return;
+        try {
+            previousId = previous.readInt();
+            previousFingerprint = previous.readLong();
+        } catch (EOFException e) {
+            previousId = -1;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.dfa.imdb_search_api.elastic.ingest.delta;
+
+import com.dfa.imdb_search_api.POJO.Film;
+
+/**
+ * Computes a 64 bits fingerprint of the indexed content of a title, used to detect which titles changed between
+ * two versions of the IMDB datasets.
+ * <p>
+ * It is a FNV-1a hash of every field of the document, finished with a mixing step so that small changes flip
+ * about half of the bits.
+ */
+public final class Fingerprint {
+
+    private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+
+    private long hash = OFFSET_BASIS;
+
+    private Fingerprint() {
+    }
+
+    /**
+     * @param film The film, already merged with its rating.
+     * @return The fingerprint of the film.
+     */
+    public static long of(Film film) {
+        var fingerprint = new Fingerprint()
+                .add(film.getId())
+                .add(film.getTitle())
+                .add(film.getOriginal_title())
+                .add(film.getType())
+                .add(film.getStart_year())
+                .add(film.getEnd_year())
+                .add(Float.floatToIntBits(film.getAverage_rating()))
+                .add(film.getNum_votes());
+
+        var genres = film.getGenres();
+        if (genres == null)
+            fingerprint.add(-1);
+        else
+            for (var genre : genres) fingerprint.add(genre);
+
+        return mix(fingerprint.hash);
+    }
+
+    private Fingerprint add(String value) {
+        if (value == null)
+            return add(-1);
+        for (int i = 0; i < value.length(); i++)
+            addChar(value.charAt(i));
+        // Separator, so that moving characters between fields changes the fingerprint
+        return addChar(0xFFFF);
+    }
+
+    private Fingerprint add(int value) {
+        return addChar(value >>> 16).addChar(value & 0xFFFF);
+    }
+
+    private Fingerprint addChar(int value) {
+        hash = (hash ^ (value & 0xFF)) * PRIME;
+        hash = (hash ^ (value >>> 8 & 0xFF)) * PRIME;
+        return this;
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+}
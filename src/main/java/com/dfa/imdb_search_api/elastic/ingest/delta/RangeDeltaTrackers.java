@@ -0,0 +1,68 @@
+package com.dfa.imdb_search_api.elastic.ingest.delta;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Records the fingerprints of a dataset parsed in ranges, with one {@link DeltaTracker} per range, and joins them
+ * in the order of the ranges on {@link #commit()}.
+ * <p>
+ * The trackers have no previous file, every title is considered as changed, so it is meant for the full loads.
+ */
+public class RangeDeltaTrackers implements Closeable {
+
+    private final Path target;
+    private final Map<Integer, DeltaTracker> trackers = new TreeMap<>();
+
+    /**
+     * @param target The file where the fingerprints are stored on commit.
+     */
+    public RangeDeltaTrackers(Path target) {
+        this.target = target;
+    }
+
+    /**
+     * @param range The position of the range in the dataset.
+     * @return The tracker of the range, created the first time.
+     * @throws IOException If the file of the tracker can't be created.
+     */
+    public synchronized DeltaTracker forRange(int range) throws IOException {
+        var tracker = trackers.get(range);
+        if (tracker == null) {
+            tracker = new DeltaTracker(null, target);
+            trackers.put(range, tracker);
+        }
+        return tracker;
+    }
+
+    /**
+     * Replaces the fingerprints of the previous run with the ones of all the ranges.
+     *
+     * @throws IOException If the ids of the ranges overlap or the file can't be written.
+     */
+    public synchronized void commit() throws IOException {
+        DeltaTracker.commit(new ArrayList<>(trackers.values()), target);
+    }
+
+    /**
+     * Closes the trackers, discarding their files.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        IOException failure = null;
+        for (var tracker : trackers.values()) {
+            try {
+                tracker.close();
+            } catch (IOException e) {
+                if (failure == null) failure = e;
+                else failure.addSuppressed(e);
+            }
+        }
+        if (failure != null)
+            throw failure;
+    }
+}
@@ -0,0 +1,169 @@
+package com.dfa.imdb_search_api.elastic.ingest.job;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * An ingest running, or already finished, in the {@link IngestJobManager}.
+ * <p>
+ * Cancelling a job interrupts the thread running it, which makes the load stop at the next line read or bulk sent.
+ */
+public class IngestJob {
+
+    public enum State {RUNNING, SUCCEEDED, FAILED, CANCELLED}
+
+    private final String id = UUID.randomUUID().toString();
+    private final String type;
+    private final String index;
+    private final IngestTask task;
+    private final IngestMetrics metrics = new IngestMetrics();
+    private final CompletableFuture<String> result = new CompletableFuture<>();
+    private final Instant startedAt = Instant.now();
+
+    private volatile State state = State.RUNNING;
+    private volatile Instant finishedAt;
+    private volatile String message;
+    private volatile boolean cancelled;
+    private Throwable failure;
+    private Thread runner;
+
+    IngestJob(String type, String index, IngestTask task) {
+        this.type = type;
+        this.index = index;
+        this.task = task;
+    }
+
+    /**
+     * Runs the task in the current thread, recording its outcome. The callers of {@link #await()} are not
+     * released until {@link #publish()} is called.
+     */
+    void run() {
+        synchronized (this) {
+            if (cancelled) {
+                finish(State.CANCELLED, "Cancelled before starting", null);
+                return;
+            }
+            runner = Thread.currentThread();
+        }
+
+        try {
+            var resultMessage = task.run(metrics);
+            finish(State.SUCCEEDED, resultMessage, null);
+        } catch (Throwable e) {
+            // Errors too, or the job would stay running forever and its callers would never be released
+            if (cancelled)
+                finish(State.CANCELLED, "Cancelled", e);
+            else
+                finish(State.FAILED, e.getMessage(), e);
+        } finally {
+            synchronized (this) {
+                runner = null;
+                // Don't leak the interruption of a cancellation to the next job of the thread
+                Thread.interrupted();
+            }
+        }
+    }
+
+    /**
+     * Asks the job to stop, interrupting the thread running it.
+     *
+     * @return False if the job had already finished.
+     */
+    public synchronized boolean cancel() {
+        if (state != State.RUNNING)
+            return false;
+        cancelled = true;
+        if (runner != null)
+            runner.interrupt();
+        return true;
+    }
+
+    /**
+     * Blocks until the job finishes.
+     *
+     * @return The message returned by the task.
+     * @throws IOException If the task failed, was cancelled or the thread is interrupted while waiting.
+     */
+    public String await() throws IOException {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the ingest job " + id);
+        } catch (CancellationException e) {
+            throw new InterruptedIOException("Ingest job " + id + " cancelled");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException)
+                throw ioException;
+            throw new IOException("Ingest job " + id + " failed", e.getCause());
+        }
+    }
+
+    /**
+     * Releases the callers of {@link #await()} with the outcome of the job.
+     */
+    void publish() {
+        if (state == State.SUCCEEDED)
+            result.complete(message);
+        else if (state == State.CANCELLED)
+            result.cancel(false);
+        else
+            result.completeExceptionally(failure != null ? failure : new IOException("Ingest job " + id + " failed"));
+    }
+
+    private void finish(State finalState, String finalMessage, Throwable exception) {
+        this.message = finalMessage;
+        this.failure = exception;
+        metrics.finish();
+        this.finishedAt = Instant.now();
+        this.state = finalState;
+    }
+
+    /**
+     * @return A snapshot of the state and metrics of the job.
+     */
+    public IngestJobStatus status() {
+        return new IngestJobStatus(this);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getIndex() {
+        return index;
+    }
+
+    public IngestMetrics getMetrics() {
+        return metrics;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public boolean isFinished() {
+        return state != State.RUNNING;
+    }
+}
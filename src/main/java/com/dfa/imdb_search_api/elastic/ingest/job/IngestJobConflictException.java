@@ -0,0 +1,12 @@
+package com.dfa.imdb_search_api.elastic.ingest.job;
+
+/**
+ * Thrown when an ingest job can't be started, because another job is already loading the same index
+ * or too many jobs are waiting for an ingest thread.
+ */
+public class IngestJobConflictException extends RuntimeException {
+
+    public IngestJobConflictException(String message) {
+        super(message);
+    }
+}
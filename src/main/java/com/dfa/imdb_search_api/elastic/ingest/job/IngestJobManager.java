@@ -0,0 +1,164 @@
+package com.dfa.imdb_search_api.elastic.ingest.job;
+
+import com.dfa.imdb_search_api.elastic.ingest.IngestConfiguration;
+import com.dfa.imdb_search_api.elastic.search.IndexGeneration;
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the ingest jobs in a bounded pool of threads, allowing just one job at a time per index, so two loads
+ * never fight over the same index. Jobs of other indices wait in a bounded queue while every thread is busy.
+ * <p>
+ * The jobs are kept after finishing, up to a limit, so their final metrics can still be queried.
+ */
+@Singleton
+public class IngestJobManager {
+
+    private static final Logger LOG = LoggerFactory.getLogger(IngestJobManager.class);
+    private static final int MAX_FINISHED_JOBS = 20;
+
+    private final ExecutorService executor;
+    private final Map<String, IngestJob> jobs = new LinkedHashMap<>();
+    private final Map<String, IngestJob> runningByIndex = new HashMap<>();
+    private final IndexGeneration indexGeneration;
+
+    @Inject
+    public IngestJobManager(IngestConfiguration configuration, IndexGeneration indexGeneration) {
+        this.indexGeneration = indexGeneration;
+        int maxJobs = Math.max(1, configuration.getMaxJobs());
+        this.executor = new ThreadPoolExecutor(maxJobs, maxJobs, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(maxJobs), new IngestThreadFactory());
+    }
+
+    /**
+     * Starts the job in the background.
+     *
+     * @param type  The kind of load, shown in the job status.
+     * @param index The index loaded by the job. Only one job can load an index at the same time.
+     * @param task  The load itself.
+     * @return The job, already running.
+     * @throws IngestJobConflictException If the index is already being loaded or too many jobs are waiting.
+     */
+    public synchronized IngestJob submit(String type, String index, IngestTask task) {
+        var running = runningByIndex.get(index);
+        if (running != null)
+            throw new IngestJobConflictException("The index " + index + " is already being loaded by the job "
+                    + running.getId());
+
+        var job = new IngestJob(type, index, task);
+        try {
+            executor.execute(() -> runJob(job));
+        } catch (RejectedExecutionException e) {
+            throw new IngestJobConflictException("Too many ingest jobs waiting, try again later");
+        }
+
+        runningByIndex.put(index, job);
+        jobs.put(job.getId(), job);
+        evictFinishedJobs();
+        return job;
+    }
+
+    /**
+     * Runs the job in the background and waits for it to finish.
+     *
+     * @return The message returned by the task.
+     * @throws IOException                If the task failed or was cancelled.
+     * @throws IngestJobConflictException If the index is already being loaded or too many jobs are waiting.
+     * @see #submit(String, String, IngestTask)
+     */
+    public String run(String type, String index, IngestTask task) throws IOException {
+        return submit(type, index, task).await();
+    }
+
+    /**
+     * @param id The id of the job.
+     * @return The job, or null if there is no job with that id.
+     */
+    public synchronized IngestJob find(String id) {
+        return jobs.get(id);
+    }
+
+    /**
+     * @return The jobs known by the manager, the oldest first.
+     */
+    public synchronized List<IngestJob> findAll() {
+        return new ArrayList<>(jobs.values());
+    }
+
+    /**
+     * Asks the job to stop.
+     *
+     * @param id The id of the job.
+     * @return The job, or null if there is no job with that id.
+     */
+    public IngestJob cancel(String id) {
+        var job = find(id);
+        if (job != null && job.cancel())
+            LOG.info("Cancelling ingest job {}", id);
+        return job;
+    }
+
+    @PreDestroy
+    void close() {
+        executor.shutdownNow();
+    }
+
+    private void runJob(IngestJob job) {
+        LOG.info("Ingest job {} ({}) started", job.getId(), job.getType());
+        try {
+            job.run();
+        } finally {
+            // Whatever the outcome, the job may have changed the content of the index
+            indexGeneration.bump();
+            synchronized (this) {
+                runningByIndex.remove(job.getIndex(), job);
+            }
+            LOG.info("Ingest job {} finished: {}", job.getId(), job.status());
+            // Once the index is released, so whoever is waiting can start a new job right away
+            job.publish();
+        }
+    }
+
+    /**
+     * Helper method, removes the oldest finished jobs once there are too many of them.
+     */
+    private void evictFinishedJobs() {
+        int finished = (int) jobs.values().stream().filter(IngestJob::isFinished).count();
+        Iterator<IngestJob> iterator = jobs.values().iterator();
+        while (finished > MAX_FINISHED_JOBS && iterator.hasNext()) {
+            if (iterator.next().isFinished()) {
+                iterator.remove();
+                finished--;
+            }
+        }
+    }
+
+    private static final class IngestThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            var thread = new Thread(runnable, "ingest-job-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.dfa.imdb_search_api.elastic.ingest.job;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Snapshot of the state and metrics of an {@link IngestJob}, as returned by the job endpoints.
+ */
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public class IngestJobStatus {
+
+    private final String id;
+    private final String type;
+    private final String index;
+    private final IngestJob.State state;
+    private final String phase;
+    private final String startedAt;
+    private final String finishedAt;
+    private final double elapsedSeconds;
+    private final long rows;
+    private final double rowsPerSecond;
+    private final long bytesRead;
+    private final Long totalBytes;
+    private final Double progress;
+    private final Long etaSeconds;
+    private final long bulks;
+    private final int concurrency;
+    private final Map<String, Double> bulkLatencyMs;
+    private final long failedItems;
+    private final long rejectedItems;
+    private final long retriedItems;
+    private final long deadLetterItems;
+    private final String message;
+
+    IngestJobStatus(IngestJob job) {
+        var metrics = job.getMetrics();
+        var finished = job.getFinishedAt();
+        var latency = metrics.getBulkLatency();
+
+        this.id = job.getId();
+        this.type = job.getType();
+        this.index = job.getIndex();
+        this.state = job.getState();
+        this.phase = metrics.getPhase();
+        this.startedAt = job.getStartedAt().toString();
+        this.finishedAt = finished != null ? finished.toString() : null;
+        this.elapsedSeconds = Duration.between(job.getStartedAt(), finished != null ? finished : Instant.now())
+                .toMillis() / 1000d;
+        this.rows = metrics.getRows();
+        this.rowsPerSecond = Math.round(metrics.getRowsPerSecond());
+        this.bytesRead = metrics.getBytesRead();
+
+        long total = metrics.getTotalBytes();
+        this.totalBytes = total > 0 ? total : null;
+        this.progress = total > 0 ? Math.min(1d, (double) bytesRead / total) : null;
+        long eta = metrics.getEtaSeconds();
+        this.etaSeconds = eta >= 0 && !job.isFinished() ? eta : null;
+
+        this.bulks = latency.count();
+        this.concurrency = metrics.getConcurrency();
+        this.bulkLatencyMs = new LinkedHashMap<>();
+        bulkLatencyMs.put("p50", latency.percentile(50));
+        bulkLatencyMs.put("p90", latency.percentile(90));
+        bulkLatencyMs.put("p99", latency.percentile(99));
+        bulkLatencyMs.put("max", latency.max());
+        this.failedItems = metrics.getFailedItems();
+        this.rejectedItems = metrics.getRejectedItems();
+        this.retriedItems = metrics.getRetriedItems();
+        this.deadLetterItems = metrics.getDeadLetterItems();
+        this.message = job.getMessage();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getIndex() {
+        return index;
+    }
+
+    public IngestJob.State getState() {
+        return state;
+    }
+
+    public String getPhase() {
+        return phase;
+    }
+
+    public String getStartedAt() {
+        return startedAt;
+    }
+
+    public String getFinishedAt() {
+        return finishedAt;
+    }
+
+    public double getElapsedSeconds() {
+        return elapsedSeconds;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public double getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    public Long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public Double getProgress() {
+        return progress;
+    }
+
+    public Long getEtaSeconds() {
+        return etaSeconds;
+    }
+
+    public long getBulks() {
+        return bulks;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public Map<String, Double> getBulkLatencyMs() {
+        return bulkLatencyMs;
+    }
+
+    public long getFailedItems() {
+        return failedItems;
+    }
+
+    public long getRejectedItems() {
+        return rejectedItems;
+    }
+
+    public long getRetriedItems() {
+        return retriedItems;
+    }
+
+    public long getDeadLetterItems() {
+        return deadLetterItems;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", IngestJobStatus.class.getSimpleName() + "[", "]")
+                .add("id='" + id + "'")
+                .add("type='" + type + "'")
+                .add("state=" + state)
+                .add("phase='" + phase + "'")
+                .add("rows=" + rows)
+                .add("rowsPerSecond=" + rowsPerSecond)
+                .add("bytesRead=" + bytesRead)
+                .add("etaSeconds=" + etaSeconds)
+                .add("rejectedItems=" + rejectedItems)
+                .add("deadLetterItems=" + deadLetterItems)
+                .toString();
+    }
+}
@@ -0,0 +1,169 @@
+package com.dfa.imdb_search_api.elastic.ingest.job;
+
+import com.dfa.imdb_search_api.elastic.ingest.BulkResult;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live metrics of an ingest, updated by the thread reading the source and by the bulk responses, and polled
+ * by the job status endpoint.
+ */
+public class IngestMetrics {
+
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder failedItems = new LongAdder();
+    private final LongAdder rejectedItems = new LongAdder();
+    private final LongAdder retriedItems = new LongAdder();
+    private final LongAdder deadLetterItems = new LongAdder();
+    private final LatencyHistogram bulkLatency = new LatencyHistogram();
+
+    private volatile String phase = "starting";
+    private volatile long totalBytes = -1;
+    private volatile long readingStartNanos;
+    private volatile long readingEndNanos;
+    private volatile int concurrency;
+
+    /**
+     * Marks the start of the reading of the main source, from which the throughput and ETA are computed.
+     *
+     * @param totalBytes The size of the source as stored, or -1 if unknown.
+     */
+    public void startReading(long totalBytes) {
+        this.totalBytes = totalBytes;
+        this.bytesRead.reset();
+        this.readingEndNanos = 0;
+        this.readingStartNanos = System.nanoTime();
+    }
+
+    /**
+     * Marks the end of the ingest, so the throughput and ETA keep their final values instead of decaying with time.
+     */
+    public void finish() {
+        if (readingStartNanos != 0 && readingEndNanos == 0)
+            readingEndNanos = System.nanoTime();
+    }
+
+    public void rowRead() {
+        rows.increment();
+    }
+
+    /**
+     * Records the latency of a bulk request and counts its failed items. The items rejected by a full write queue
+     * of ElasticSearch (429 Too Many Requests) are counted apart, as they mean the cluster is saturated.
+     *
+     * @param nanos  The time from the sending of the bulk to its response.
+     * @param result The response of the bulk.
+     */
+    public void bulkCompleted(long nanos, BulkResult result) {
+        bulkLatency.record(nanos);
+        for (var failure : result.getFailures()) {
+            failedItems.increment();
+            if (failure.isRejected())
+                rejectedItems.increment();
+        }
+    }
+
+    /**
+     * @param items The number of items sent again after a transient failure.
+     */
+    public void itemsRetried(int items) {
+        retriedItems.add(items);
+    }
+
+    /**
+     * @param items The number of items written to the dead letter file after failing for good.
+     */
+    public void itemsDeadLettered(int items) {
+        deadLetterItems.add(items);
+    }
+
+    /**
+     * @return The counter of the bytes read from the main source, as stored. {@link #startReading(long)}
+     */
+    public LongAdder bytesReadCounter() {
+        return bytesRead;
+    }
+
+    public void setPhase(String phase) {
+        this.phase = phase;
+    }
+
+    public String getPhase() {
+        return phase;
+    }
+
+    public long getRows() {
+        return rows.sum();
+    }
+
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public long getFailedItems() {
+        return failedItems.sum();
+    }
+
+    public long getRejectedItems() {
+        return rejectedItems.sum();
+    }
+
+    public long getRetriedItems() {
+        return retriedItems.sum();
+    }
+
+    public long getDeadLetterItems() {
+        return deadLetterItems.sum();
+    }
+
+    /**
+     * @param concurrency The number of bulk requests currently allowed in flight.
+     */
+    public void setConcurrency(int concurrency) {
+        this.concurrency = concurrency;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public LatencyHistogram getBulkLatency() {
+        return bulkLatency;
+    }
+
+    /**
+     * @return The seconds elapsed since the start of the reading, up to the end of the ingest once it finished,
+     * 0 if it has not started.
+     */
+    public double getReadingSeconds() {
+        long start = readingStartNanos;
+        long end = readingEndNanos;
+        return start == 0 ? 0 : ((end != 0 ? end : System.nanoTime()) - start) / 1e9;
+    }
+
+    /**
+     * @return The rows read per second since the start of the reading.
+     */
+    public double getRowsPerSecond() {
+        double seconds = getReadingSeconds();
+        return seconds > 0 ? getRows() / seconds : 0;
+    }
+
+    /**
+     * @return The estimated seconds left to read the whole source, at the current throughput,
+     * or -1 if it can't be estimated yet.
+     */
+    public long getEtaSeconds() {
+        long total = totalBytes;
+        long read = getBytesRead();
+        double seconds = getReadingSeconds();
+        if (total <= 0 || read <= 0 || seconds <= 0)
+            return -1;
+        return (long) Math.ceil(Math.max(0, total - read) * seconds / read);
+    }
+}
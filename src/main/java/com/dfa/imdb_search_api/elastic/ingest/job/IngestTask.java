@@ -0,0 +1,18 @@
+package com.dfa.imdb_search_api.elastic.ingest.job;
+
+import java.io.IOException;
+
+/**
+ * The work done by an ingest job.
+ */
+@FunctionalInterface
+public interface IngestTask {
+
+    /**
+     * @param metrics The metrics of the job, to be updated while the data is loaded.
+     * @return A message describing the result of the load.
+     * @throws IOException If an error occur during the load.
+     */
+    String run(IngestMetrics metrics) throws IOException;
+
+}
@@ -0,0 +1,78 @@
+package com.dfa.imdb_search_api.elastic.ingest.job;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock free histogram of latencies, used to get the percentiles of the bulk requests while they are being sent.
+ * <p>
+ * The latencies are stored in microseconds, in logarithmic buckets: each power of two is split into 8 buckets,
+ * so the percentiles have an error lower than 12.5% while the histogram takes a fixed amount of memory.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final long MIN_MICROS = SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(64 * SUB_BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * @param nanos The latency to be recorded, in nanoseconds.
+     */
+    public void record(long nanos) {
+        long micros = Math.max(MIN_MICROS, nanos / 1000);
+        counts.incrementAndGet(bucketOf(micros));
+        count.incrementAndGet();
+        max.accumulateAndGet(micros, Math::max);
+    }
+
+    /**
+     * @return The number of latencies recorded.
+     */
+    public long count() {
+        return count.get();
+    }
+
+    /**
+     * @param percentile The percentile, between 0 and 100.
+     * @return The latency in milliseconds below which that percentage of the recorded latencies fall,
+     * or 0 if nothing has been recorded.
+     */
+    public double percentile(double percentile) {
+        long total = count.get();
+        if (total == 0)
+            return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int bucket = 0; bucket < counts.length(); bucket++) {
+            seen += counts.get(bucket);
+            if (seen >= rank)
+                return Math.min(upperBoundOf(bucket), max.get()) / 1000d;
+        }
+        return max.get() / 1000d;
+    }
+
+    /**
+     * @return The highest latency recorded in milliseconds.
+     */
+    public double max() {
+        return max.get() / 1000d;
+    }
+
+    private static int bucketOf(long micros) {
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return exponent * SUB_BUCKETS + subBucket;
+    }
+
+    private static long upperBoundOf(int bucket) {
+        int exponent = bucket / SUB_BUCKETS;
+        int subBucket = bucket % SUB_BUCKETS;
+        int shift = exponent - SUB_BUCKET_BITS;
+        return ((long) (SUB_BUCKETS + subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,158 @@
+package com.dfa.imdb_search_api.elastic.ingest.join;
+
+import com.dfa.imdb_search_api.elastic.ingest.tsv.TsvRecordReader;
+
+import java.io.IOException;
+
+/**
+ * Compact in memory table with the ratings of every title, used to join them with the films while indexing.
+ * <p>
+ * It is an open addressing hash table keyed by the numeric part of the title id (tt0413300 -> 413300), stored in
+ * primitive arrays, so there are no boxed keys nor Strings per entry. The whole IMDB ratings dataset fits in a few
+ * tens of megabytes.
+ */
+public class RatingTable {
+
+    private static final int EMPTY = 0;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private int[] keys;
+    private float[] averageRatings;
+    private int[] numVotes;
+    private int size;
+    private int mask;
+
+    public RatingTable() {
+        this(1 << 16);
+    }
+
+    public RatingTable(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    /**
+     * Reads all the lines of a ratings source (tconst, averageRating, numVotes) into a new table.
+     *
+     * @param reader The reader of the ratings source, positioned before the header.
+     * @return The table with all the ratings of the source.
+     * @throws IOException If an error occur while reading the source.
+     */
+    public static RatingTable load(TsvRecordReader reader) throws IOException {
+        var table = new RatingTable(1 << 21);
+        // Skip the header of the file
+        reader.next();
+
+        while (reader.next()) {
+            var record = reader.record();
+            int id = record.nextIdNumber();
+            float averageRating = record.nextFloat(0);
+            int votes = record.nextInt(0);
+            table.put(id, averageRating, votes);
+        }
+        return table;
+    }
+
+    /**
+     * Adds or replaces the rating of a title.
+     *
+     * @param id            Numeric part of the title id, greater than 0.
+     * @param averageRating Average rating of the title.
+     * @param votes         Number of votes of the title.
+     */
+    public void put(int id, float averageRating, int votes) {
+        if (id <= EMPTY)
+            throw new IllegalArgumentException("Invalid title id: " + id);
+
+        int slot = slotOf(id);
+        if (keys[slot] == EMPTY) {
+            keys[slot] = id;
+            if (++size > keys.length * LOAD_FACTOR) {
+                resize();
+                slot = slotOf(id);
+            }
+        }
+        averageRatings[slot] = averageRating;
+        numVotes[slot] = votes;
+    }
+
+    /**
+     * @param id Numeric part of the title id.
+     * @return The slot holding the rating of the title, or -1 if it has no rating.
+     */
+    public int find(int id) {
+        if (id <= EMPTY)
+            return -1;
+        int slot = slotOf(id);
+        return keys[slot] == id ? slot : -1;
+    }
+
+    /**
+     * @param slot A slot returned by {@link #find(int)}
+     * @return The average rating stored at the slot.
+     */
+    public float averageRating(int slot) {
+        return averageRatings[slot];
+    }
+
+    /**
+     * @param slot A slot returned by {@link #find(int)}
+     * @return The number of votes stored at the slot.
+     */
+    public int numVotes(int slot) {
+        return numVotes[slot];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The slot holding the id or, if it isn't in the table, the empty slot where it should be placed.
+     */
+    private int slotOf(int id) {
+        int slot = mix(id) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != id)
+            slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    private void resize() {
+        var oldKeys = keys;
+        var oldAverageRatings = averageRatings;
+        var oldNumVotes = numVotes;
+
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slotOf(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                averageRatings[slot] = oldAverageRatings[i];
+                numVotes[slot] = oldNumVotes[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        averageRatings = new float[capacity];
+        numVotes = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(2, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        return Math.max(capacity, 16);
+    }
+
+    /**
+     * Spreads the consecutive ids over the whole table (murmur3 finalizer).
+     */
+    private static int mix(int id) {
+        int hash = id;
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,149 @@
+package com.dfa.imdb_search_api.elastic.ingest.rebuild;
+
+import org.apache.http.client.config.RequestConfig;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest.AliasActions;
+import org.elasticsearch.action.admin.indices.alias.get.GetAliasesRequest;
+import org.elasticsearch.action.admin.indices.delete.DeleteIndexRequest;
+import org.elasticsearch.action.admin.indices.forcemerge.ForceMergeRequest;
+import org.elasticsearch.action.admin.indices.refresh.RefreshRequest;
+import org.elasticsearch.action.admin.indices.settings.put.UpdateSettingsRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.client.indices.CreateIndexRequest;
+import org.elasticsearch.client.indices.GetIndexRequest;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.core.TimeValue;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Versioned index loaded in the background and then exposed to the searches through an alias.
+ * <p>
+ * The index is created with settings meant for bulk loading: no refreshes, no replicas and an asynchronous
+ * translog. Once loaded, those settings are reset to the ones of the mapping file, the index is merged into a single
+ * segment, which is the best layout for an index that won't be written until the next rebuild, and the alias is moved
+ * onto it in a single atomic operation. The searches keep using the previous index until that moment.
+ */
+public class ShadowIndex {
+
+    private static final DateTimeFormatter VERSION_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+    private static final String[] BULK_SETTINGS = {
+            "index.refresh_interval", "index.number_of_replicas", "index.translog.durability"};
+
+    /**
+     * Refreshing and merging a whole IMDB index takes much longer than the default socket timeout of the client.
+     */
+    private static final RequestOptions LONG_RUNNING = RequestOptions.DEFAULT.toBuilder()
+            .setRequestConfig(RequestConfig.custom().setSocketTimeout((int) TimeValue.timeValueHours(1).millis())
+                    .build())
+            .build();
+
+    private final RestHighLevelClient client;
+    private final String alias;
+    private final String name;
+
+    private ShadowIndex(RestHighLevelClient client, String alias, String name) {
+        this.client = client;
+        this.alias = alias;
+        this.name = name;
+    }
+
+    /**
+     * Creates a new versioned index, named after the alias and the current time, with bulk loading settings.
+     *
+     * @param client The client used to manage the index.
+     * @param alias  The alias which will point to the index once loaded.
+     * @param source The mappings and settings of the index, as read from the mapping file.
+     * @return The new index, still not visible through the alias.
+     * @throws IOException If the index can't be created.
+     */
+    @SuppressWarnings("unchecked")
+    public static ShadowIndex create(RestHighLevelClient client, String alias, Map<String, Object> source)
+            throws IOException {
+        var name = alias + "-" + LocalDateTime.now(ZoneOffset.UTC).format(VERSION_FORMAT);
+
+        var indexSource = new HashMap<>(source);
+        var settings = new HashMap<String, Object>(
+                (Map<String, Object>) source.getOrDefault("settings", Map.of()));
+        settings.put("index.refresh_interval", "-1");
+        settings.put("index.number_of_replicas", 0);
+        settings.put("index.translog.durability", "async");
+        indexSource.put("settings", settings);
+
+        client.indices().create(new CreateIndexRequest(name).source(indexSource), RequestOptions.DEFAULT);
+        return new ShadowIndex(client, alias, name);
+    }
+
+    /**
+     * @return The name of the versioned index, where the documents must be written.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Resets the bulk loading settings to the ones of the mapping file, makes the documents visible and merges
+     * the index into a single segment.
+     *
+     * @throws IOException If an error occur while updating or merging the index.
+     */
+    public void optimizeForReads() throws IOException {
+        var settings = Settings.builder();
+        for (var setting : BULK_SETTINGS)
+            settings.putNull(setting);
+        client.indices().putSettings(new UpdateSettingsRequest(name).settings(settings), RequestOptions.DEFAULT);
+
+        client.indices().refresh(new RefreshRequest(name), LONG_RUNNING);
+        client.indices().forcemerge(new ForceMergeRequest(name).maxNumSegments(1), LONG_RUNNING);
+    }
+
+    /**
+     * Moves the alias onto this index in a single atomic operation.
+     * If there is a plain index named as the alias, left by the direct loads, it is deleted in that same operation.
+     *
+     * @return The names of the indices the alias pointed to, which are no longer searched.
+     * @throws IOException If the alias can't be moved.
+     */
+    public List<String> swapAlias() throws IOException {
+        var aliases = new IndicesAliasesRequest()
+                .addAliasAction(AliasActions.add().index(name).alias(alias));
+
+        List<String> previous = List.copyOf(client.indices()
+                .getAlias(new GetAliasesRequest(alias), RequestOptions.DEFAULT).getAliases().keySet());
+
+        if (!previous.isEmpty())
+            aliases.addAliasAction(AliasActions.remove().indices(previous.toArray(String[]::new)).alias(alias));
+        else if (client.indices().exists(new GetIndexRequest(alias), RequestOptions.DEFAULT))
+            aliases.addAliasAction(AliasActions.removeIndex().index(alias));
+
+        client.indices().updateAliases(aliases, RequestOptions.DEFAULT);
+        return previous;
+    }
+
+    /**
+     * Deletes the indices replaced by this one.
+     *
+     * @param previous The indices returned by {@link #swapAlias()}.
+     * @throws IOException If the indices can't be deleted.
+     */
+    public void deletePrevious(List<String> previous) throws IOException {
+        if (!previous.isEmpty())
+            client.indices().delete(new DeleteIndexRequest(previous.toArray(String[]::new)), RequestOptions.DEFAULT);
+    }
+
+    /**
+     * Deletes the index, used to discard it when the rebuild fails before swapping the alias.
+     *
+     * @throws IOException If the index can't be deleted.
+     */
+    public void delete() throws IOException {
+        client.indices().delete(new DeleteIndexRequest(name), RequestOptions.DEFAULT);
+    }
+}
@@ -0,0 +1,86 @@
+package com.dfa.imdb_search_api.elastic.ingest.snapshot;
+
+/**
+ * Layout of the snapshot files, shared by the {@link SnapshotWriter} and the {@link SnapshotReader}.
+ * <p>
+ * A snapshot starts with a header: magic, version, number of titles and the offset and length of every column, in
+ * the order of {@link #COLUMNS}. It is followed by the dictionaries of the types and the genres, and then by the
+ * columns themselves, each one holding a single field of every title in the order they were written:
+ * <ul>
+ *     <li>ids: the numeric part of the title id, as an int.</li>
+ *     <li>types: the position of the type in its dictionary plus one, 0 for null, as a byte.</li>
+ *     <li>years: the start and the end year, as shorts, -1 for null.</li>
+ *     <li>genres: the number of genres, {@link #NULL_COUNT} for null, followed by their positions in the
+ *     dictionary, as bytes.</li>
+ *     <li>titles: the title and the original title as UTF-8, prefixed by their length as a varint.</li>
+ *     <li>ratings: the average rating as a float and the number of votes as an int.</li>
+ * </ul>
+ * All the numbers are big endian.
+ */
+final class SnapshotFormat {
+
+    static final int MAGIC = 0x494D534E; // IMSN
+    static final int VERSION = 1;
+
+    static final int IDS = 0;
+    static final int TYPES = 1;
+    static final int YEARS = 2;
+    static final int GENRES = 3;
+    static final int TITLES = 4;
+    static final int RATINGS = 5;
+    static final int COLUMNS = 6;
+
+    /**
+     * Size of the header: magic, version, number of titles and the offset and length of each column.
+     */
+    static final int HEADER_SIZE = 4 + 4 + 8 + COLUMNS * 16;
+
+    /**
+     * Dictionaries are indexed by a byte, 0 being reserved for null in the types.
+     */
+    static final int MAX_DICTIONARY_SIZE = 254;
+
+    static final int NULL_COUNT = 0xFF;
+    static final short NULL_YEAR = -1;
+
+    /**
+     * Length prefixes of the titles: null, the original title being the same as the title, or the length plus
+     * {@link #LENGTH_OFFSET}.
+     */
+    static final int NULL_STRING = 0;
+    static final int SAME_STRING = 1;
+    static final int LENGTH_OFFSET = 2;
+
+    private static final String DATE_SUFFIX = "-01-01";
+
+    private SnapshotFormat() {
+    }
+
+    /**
+     * @param date A date as indexed, the first day of the year (yyyy-01-01), or null.
+     * @return The year, or {@link #NULL_YEAR} if the date is null.
+     * @throws IllegalArgumentException If the date is not the first day of a year between 0 and 32767, written
+     *                                  as {@link #formatYear(int)} would.
+     */
+    static short parseYear(String date) {
+        if (date == null)
+            return NULL_YEAR;
+        if (date.endsWith(DATE_SUFFIX)) {
+            try {
+                int year = Integer.parseInt(date, 0, date.length() - DATE_SUFFIX.length(), 10);
+                if (year >= 0 && year <= Short.MAX_VALUE && formatYear(year).equals(date))
+                    return (short) year;
+            } catch (NumberFormatException e) {
+                // Reported below
+            }
+        }
+        throw new IllegalArgumentException("Invalid year date: " + date);
+    }
+
+    /**
+     * @return The first day of the year, as the TSV parser builds it.
+     */
+    static String formatYear(int year) {
+        return year < 1000 ? String.format("%04d", year) + DATE_SUFFIX : year + DATE_SUFFIX;
+    }
+}
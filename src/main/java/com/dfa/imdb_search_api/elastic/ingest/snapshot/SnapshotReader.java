@@ -0,0 +1,231 @@
+package com.dfa.imdb_search_api.elastic.ingest.snapshot;
+
+import com.dfa.imdb_search_api.POJO.Film;
+import com.dfa.imdb_search_api.elastic.ingest.TitleIds;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reads back the titles of a snapshot written by a {@link SnapshotWriter}, in the order they were written.
+ * {@link SnapshotFormat}
+ * <p>
+ * Every column is memory mapped and read with its own cursor, so a title is decoded straight from the page cache
+ * without parsing any text: the numbers are read as they are, the types and genres are shared instances of their
+ * dictionaries and the year dates are cached. Only the id and the titles create new Strings.
+ * <p>
+ * Instances are not thread safe.
+ */
+public class SnapshotReader implements Closeable {
+
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer[] columns = new MappedByteBuffer[SnapshotFormat.COLUMNS];
+    private final long size;
+    private final long count;
+    private final String[] types;
+    private final String[] genres;
+    private final String[] yearDates = new String[Short.MAX_VALUE + 1];
+    private final LongAdder bytesRead;
+
+    private byte[] scratch = new byte[256];
+    private long position;
+    private int idNumber;
+
+    private SnapshotReader(Path path, FileChannel channel, LongAdder bytesRead) throws IOException {
+        this.path = path;
+        this.channel = channel;
+        this.bytesRead = bytesRead;
+        this.size = channel.size();
+
+        var header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, SnapshotFormat.HEADER_SIZE));
+        if (header.remaining() < SnapshotFormat.HEADER_SIZE || header.getInt() != SnapshotFormat.MAGIC)
+            throw new IOException(path + " is not a snapshot of the IMDB data");
+        int version = header.getInt();
+        if (version != SnapshotFormat.VERSION)
+            throw new IOException("Unsupported version " + version + " of the snapshot " + path);
+        this.count = header.getLong();
+
+        long dictionariesEnd = size;
+        for (int i = 0; i < SnapshotFormat.COLUMNS; i++) {
+            long offset = header.getLong();
+            long length = header.getLong();
+            if (offset < SnapshotFormat.HEADER_SIZE || length < 0 || offset + length > size)
+                throw new IOException("Corrupted snapshot " + path + ", column " + i + " out of the file");
+            if (length > Integer.MAX_VALUE)
+                throw new IOException("Column " + i + " of the snapshot " + path + " is too big to be mapped");
+            columns[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+            dictionariesEnd = Math.min(dictionariesEnd, offset);
+        }
+
+        var dictionaries = channel.map(FileChannel.MapMode.READ_ONLY, SnapshotFormat.HEADER_SIZE,
+                dictionariesEnd - SnapshotFormat.HEADER_SIZE);
+        this.types = readDictionary(dictionaries);
+        this.genres = readDictionary(dictionaries);
+    }
+
+    /**
+     * Opens a snapshot.
+     *
+     * @param path      The snapshot file.
+     * @param bytesRead Counter where the bytes of each title are added as it is read, to follow the progress.
+     * @return The reader, positioned before the first title.
+     * @throws IOException If the file can't be read or is not a valid snapshot.
+     */
+    public static SnapshotReader open(Path path, LongAdder bytesRead) throws IOException {
+        var channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new SnapshotReader(path, channel, bytesRead);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the next title.
+     *
+     * @return The film, merged with its rating, or null if there are no more titles.
+     * @throws IOException If the snapshot is corrupted.
+     */
+    public Film next() throws IOException {
+        if (position >= count)
+            return null;
+
+        try {
+            long start = consumed();
+            idNumber = columns[SnapshotFormat.IDS].getInt();
+            int typeCode = columns[SnapshotFormat.TYPES].get() & 0xFF;
+            var type = typeCode == 0 ? null : types[typeCode - 1];
+            var startYear = readYear();
+            var endYear = readYear();
+            var filmGenres = readGenres();
+            var title = readString(null);
+            var originalTitle = readString(title);
+
+            var film = new Film(TitleIds.format(idNumber), title, originalTitle, filmGenres, type, startYear,
+                    endYear);
+            film.setAverage_rating(columns[SnapshotFormat.RATINGS].getFloat());
+            film.setNum_votes(columns[SnapshotFormat.RATINGS].getInt());
+
+            position++;
+            bytesRead.add(consumed() - start);
+            return film;
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupted snapshot " + path + " at title " + position, e);
+        }
+    }
+
+    /**
+     * @return The numeric part of the id of the last title read, which saves parsing it back from the film.
+     */
+    public int idNumber() {
+        return idNumber;
+    }
+
+    /**
+     * @return The number of titles of the snapshot.
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * @return The size in bytes of the file.
+     */
+    public long size() {
+        return size;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public void close() throws IOException {
+        // The mappings are released once the buffers are collected
+        channel.close();
+    }
+
+    private String readYear() {
+        short year = columns[SnapshotFormat.YEARS].getShort();
+        if (year == SnapshotFormat.NULL_YEAR)
+            return null;
+
+        var date = yearDates[year];
+        if (date == null) {
+            date = SnapshotFormat.formatYear(year);
+            yearDates[year] = date;
+        }
+        return date;
+    }
+
+    private String[] readGenres() {
+        var column = columns[SnapshotFormat.GENRES];
+        int length = column.get() & 0xFF;
+        if (length == SnapshotFormat.NULL_COUNT)
+            return null;
+
+        var values = new String[length];
+        for (int i = 0; i < length; i++)
+            values[i] = genres[column.get() & 0xFF];
+        return values;
+    }
+
+    /**
+     * Helper method, reads a length prefixed String of the titles column.
+     *
+     * @param previous The value returned if the String is marked as equal to the previous one.
+     */
+    private String readString(String previous) {
+        var column = columns[SnapshotFormat.TITLES];
+        int prefix = readVarInt(column);
+        if (prefix == SnapshotFormat.NULL_STRING)
+            return null;
+        if (prefix == SnapshotFormat.SAME_STRING)
+            return previous;
+
+        int length = prefix - SnapshotFormat.LENGTH_OFFSET;
+        if (scratch.length < length)
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        column.get(scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static int readVarInt(MappedByteBuffer column) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = column.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0)
+                return value;
+        }
+    }
+
+    /**
+     * Helper method, sums the positions of the cursors of all the columns.
+     */
+    private long consumed() {
+        long consumed = 0;
+        for (var column : columns)
+            consumed += column.position();
+        return consumed;
+    }
+
+    private static String[] readDictionary(MappedByteBuffer dictionaries) {
+        var values = new String[dictionaries.getShort()];
+        for (int i = 0; i < values.length; i++) {
+            int length = dictionaries.getShort() & 0xFFFF;
+            var bytes = new byte[length];
+            dictionaries.get(bytes);
+            values[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return values;
+    }
+}
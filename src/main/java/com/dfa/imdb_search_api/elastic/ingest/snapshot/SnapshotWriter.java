@@ -0,0 +1,261 @@
+package com.dfa.imdb_search_api.elastic.ingest.snapshot;
+
+import com.dfa.imdb_search_api.POJO.Film;
+import com.dfa.imdb_search_api.elastic.ingest.TitleIds;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the parsed titles, merged with their ratings, into a compact columnar snapshot which can be indexed
+ * again without parsing the IMDB dumps. {@link SnapshotFormat}
+ * <p>
+ * Each column is streamed into its own temporary file while the titles are written, so the memory used doesn't
+ * depend on the number of titles. On {@link #commit()} the columns are joined after the header and the
+ * dictionaries, and the result replaces the target atomically, so a failed export keeps the previous snapshot.
+ * <p>
+ * The titles are stored exactly as parsed, so a film read back from the snapshot has the same fingerprint as the
+ * one read from the dumps.
+ */
+public class SnapshotWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Path target;
+    private final Path[] columnFiles = new Path[SnapshotFormat.COLUMNS];
+    private final DataOutputStream[] columns = new DataOutputStream[SnapshotFormat.COLUMNS];
+    private final Map<String, Integer> types = new HashMap<>();
+    private final Map<String, Integer> genres = new HashMap<>();
+    private final List<String> typeDictionary = new ArrayList<>();
+    private final List<String> genreDictionary = new ArrayList<>();
+
+    private long count;
+    private boolean closed;
+
+    /**
+     * @param target The file where the snapshot is stored on commit.
+     * @throws IOException If the temporary files of the columns can't be created.
+     */
+    public SnapshotWriter(Path target) throws IOException {
+        this.target = target;
+        var parent = target.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        try {
+            for (int i = 0; i < SnapshotFormat.COLUMNS; i++) {
+                columnFiles[i] = Files.createTempFile(parent, target.getFileName().toString(), ".col" + i);
+                columns[i] = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(columnFiles[i]),
+                        BUFFER_SIZE));
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Appends a title to the snapshot.
+     *
+     * @param film The film, already merged with its rating.
+     * @throws IOException If the film can't be encoded, like an id which is not a canonical IMDB id or more
+     *                     distinct types or genres than a dictionary can hold, or the columns can't be written.
+     */
+    public void write(Film film) throws IOException {
+        int id = parseId(film.getId());
+        columns[SnapshotFormat.IDS].writeInt(id);
+
+        var type = film.getType();
+        columns[SnapshotFormat.TYPES].writeByte(type == null ? 0 : encode(type, types, typeDictionary) + 1);
+
+        try {
+            columns[SnapshotFormat.YEARS].writeShort(SnapshotFormat.parseYear(film.getStart_year()));
+            columns[SnapshotFormat.YEARS].writeShort(SnapshotFormat.parseYear(film.getEnd_year()));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Can't write " + film.getId() + " to the snapshot: " + e.getMessage(), e);
+        }
+
+        writeGenres(film.getGenres());
+
+        var titles = columns[SnapshotFormat.TITLES];
+        writeString(titles, film.getTitle(), false);
+        writeString(titles, film.getOriginal_title(), film.getOriginal_title() != null
+                && film.getOriginal_title().equals(film.getTitle()));
+
+        columns[SnapshotFormat.RATINGS].writeFloat(film.getAverage_rating());
+        columns[SnapshotFormat.RATINGS].writeInt(film.getNum_votes());
+        count++;
+    }
+
+    /**
+     * @return The number of titles written.
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Joins the columns into the target, replacing the previous snapshot.
+     *
+     * @throws IOException If the file can't be written.
+     */
+    public void commit() throws IOException {
+        for (var column : columns)
+            column.close();
+
+        var dictionaries = new ByteArrayOutputStream();
+        try (var output = new DataOutputStream(dictionaries)) {
+            writeDictionary(output, typeDictionary);
+            writeDictionary(output, genreDictionary);
+        }
+
+        var parent = target.toAbsolutePath().getParent();
+        var temporary = Files.createTempFile(parent, target.getFileName().toString(), ".tmp");
+        try {
+            try (var channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                var header = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel),
+                        BUFFER_SIZE));
+                header.writeInt(SnapshotFormat.MAGIC);
+                header.writeInt(SnapshotFormat.VERSION);
+                header.writeLong(count);
+                long offset = SnapshotFormat.HEADER_SIZE + dictionaries.size();
+                for (var columnFile : columnFiles) {
+                    long length = Files.size(columnFile);
+                    header.writeLong(offset);
+                    header.writeLong(length);
+                    offset += length;
+                }
+                dictionaries.writeTo(header);
+                header.flush();
+
+                for (var columnFile : columnFiles)
+                    try (var column = FileChannel.open(columnFile, StandardOpenOption.READ)) {
+                        long position = 0;
+                        long size = column.size();
+                        while (position < size)
+                            position += column.transferTo(position, size - position, channel);
+                    }
+                // On disk before the move, so a crash can't leave the target pointing to an incomplete snapshot
+                channel.force(true);
+            }
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Discards the files of the columns. If the snapshot was not committed, the previous one is left untouched.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed)
+            return;
+        closed = true;
+
+        IOException failure = null;
+        for (int i = 0; i < SnapshotFormat.COLUMNS; i++) {
+            try {
+                if (columns[i] != null)
+                    columns[i].close();
+                if (columnFiles[i] != null)
+                    Files.deleteIfExists(columnFiles[i]);
+            } catch (IOException e) {
+                if (failure == null) failure = e;
+                else failure.addSuppressed(e);
+            }
+        }
+        if (failure != null)
+            throw failure;
+    }
+
+    /**
+     * Helper method, parses the numeric part of the id, checking that it is formatted back to the same id.
+     */
+    private static int parseId(String id) throws IOException {
+        try {
+            int number = TitleIds.parse(id);
+            if (TitleIds.format(number).equals(id))
+                return number;
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IOException("Can't write " + id + " to the snapshot, it is not an IMDB title id");
+    }
+
+    private void writeGenres(String[] values) throws IOException {
+        var column = columns[SnapshotFormat.GENRES];
+        if (values == null) {
+            column.writeByte(SnapshotFormat.NULL_COUNT);
+            return;
+        }
+        if (values.length >= SnapshotFormat.NULL_COUNT)
+            throw new IOException("Too many genres to be written to the snapshot: " + values.length);
+
+        column.writeByte(values.length);
+        for (var value : values)
+            column.writeByte(encode(value, genres, genreDictionary));
+    }
+
+    /**
+     * Helper method, finds the position of the value in the dictionary, adding it if it is a new one.
+     */
+    private static int encode(String value, Map<String, Integer> codes, List<String> dictionary)
+            throws IOException {
+        var code = codes.get(value);
+        if (code == null) {
+            if (dictionary.size() >= SnapshotFormat.MAX_DICTIONARY_SIZE)
+                throw new IOException("Too many distinct values to be written to the snapshot: " + value);
+            code = dictionary.size();
+            codes.put(value, code);
+            dictionary.add(value);
+        }
+        return code;
+    }
+
+    /**
+     * Helper method, writes the UTF-8 bytes of the value prefixed by a varint with its length.
+     *
+     * @param same True to write only the marker of a value equal to the previous one.
+     */
+    private static void writeString(DataOutputStream column, String value, boolean same) throws IOException {
+        if (value == null) {
+            writeVarInt(column, SnapshotFormat.NULL_STRING);
+        } else if (same) {
+            writeVarInt(column, SnapshotFormat.SAME_STRING);
+        } else {
+            var bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(column, bytes.length + SnapshotFormat.LENGTH_OFFSET);
+            column.write(bytes);
+        }
+    }
+
+    private static void writeVarInt(DataOutputStream column, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            column.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        column.writeByte(value);
+    }
+
+    private static void writeDictionary(DataOutputStream output, List<String> dictionary) throws IOException {
+        output.writeShort(dictionary.size());
+        for (var value : dictionary) {
+            var bytes = value.getBytes(StandardCharsets.UTF_8);
+            output.writeShort(bytes.length);
+            output.write(bytes);
+        }
+    }
+}
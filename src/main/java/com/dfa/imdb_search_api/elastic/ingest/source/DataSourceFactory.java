@@ -0,0 +1,54 @@
+package com.dfa.imdb_search_api.elastic.ingest.source;
+
+import com.dfa.imdb_search_api.elastic.ingest.IngestConfiguration;
+import com.dfa.imdb_search_api.elastic.ingest.source.impl.ClasspathDataSource;
+import com.dfa.imdb_search_api.elastic.ingest.source.impl.FileDataSource;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+import java.nio.file.Path;
+
+/**
+ * Creates the data sources of the films and ratings depending on the ingest configuration.
+ * <p>
+ * If "ingest.data-path" is set, the dumps are read from that folder, decompressing them if needed.
+ * If not, the uncompressed films.tsv and ratings.tsv files of the resources folder are used.
+ */
+@Singleton
+public class DataSourceFactory {
+
+    private final IngestConfiguration configuration;
+
+    @Inject
+    public DataSourceFactory(IngestConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    /**
+     * @return The source of the films (title.basics) data.
+     */
+    public IDataSource films() {
+        return create(configuration.getFilmsFile(), "films.tsv");
+    }
+
+    /**
+     * @return The source of the ratings (title.ratings) data.
+     */
+    public IDataSource ratings() {
+        return create(configuration.getRatingsFile(), "ratings.tsv");
+    }
+
+    /**
+     * @return The snapshot file where the parsed titles are exported and read back from.
+     */
+    public Path snapshot() {
+        return Path.of(configuration.getSnapshotPath());
+    }
+
+    private IDataSource create(String fileName, String resourceName) {
+        var dataPath = configuration.getDataPath();
+        if (dataPath == null || dataPath.isBlank())
+            return new ClasspathDataSource(resourceName);
+        return new FileDataSource(Path.of(dataPath, fileName), configuration.getReadBufferSize());
+    }
+}
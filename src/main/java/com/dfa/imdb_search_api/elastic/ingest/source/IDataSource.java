@@ -0,0 +1,51 @@
+package com.dfa.imdb_search_api.elastic.ingest.source;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Source of the IMDB data to be indexed, like a resource of the classpath or a dump in the filesystem.
+ */
+public interface IDataSource {
+
+    /**
+     * @return A name identifying the source, used in logs and progress reports.
+     */
+    String getName();
+
+    /**
+     * Opens a new stream with the uncompressed content of the source.
+     *
+     * @return The stream, which must be closed by the caller.
+     * @throws IOException If the source can't be opened.
+     */
+    InputStream open() throws IOException;
+
+    /**
+     * Same as {@link #open()}, adding the number of bytes read from the source, as stored, to the counter.
+     * Comparing that counter with {@link #size()} gives the progress of the reading.
+     *
+     * @param bytesRead The counter of the bytes read.
+     * @return The stream, which must be closed by the caller.
+     * @throws IOException If the source can't be opened.
+     */
+    default InputStream open(LongAdder bytesRead) throws IOException {
+        return new MeteredInputStream(open(), bytesRead);
+    }
+
+    /**
+     * @return The size in bytes of the source as stored, or -1 if it is unknown.
+     */
+    long size();
+
+    /**
+     * @return The path of the source if it is an uncompressed file of the filesystem, which can be memory mapped
+     * and read in parallel ranges, or null otherwise.
+     */
+    default Path uncompressedFile() {
+        return null;
+    }
+
+}
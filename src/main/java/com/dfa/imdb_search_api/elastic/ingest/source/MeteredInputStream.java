@@ -0,0 +1,43 @@
+package com.dfa.imdb_search_api.elastic.ingest.source;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Stream adding the number of bytes read to a counter, which can be polled from other threads while reading.
+ */
+public class MeteredInputStream extends FilterInputStream {
+
+    private final LongAdder bytesRead;
+
+    public MeteredInputStream(InputStream input, LongAdder bytesRead) {
+        super(input);
+        this.bytesRead = bytesRead;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int value = super.read();
+        if (value >= 0)
+            bytesRead.increment();
+        return value;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int read = in.read(buffer, offset, length);
+        if (read > 0)
+            bytesRead.add(read);
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = in.skip(n);
+        if (skipped > 0)
+            bytesRead.add(skipped);
+        return skipped;
+    }
+}
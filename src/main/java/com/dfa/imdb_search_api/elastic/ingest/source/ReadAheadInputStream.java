@@ -0,0 +1,157 @@
+package com.dfa.imdb_search_api.elastic.ingest.source;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * InputStream which reads its source on a dedicated thread, a few buffers ahead of the consumer.
+ * <p>
+ * Used to run the decompression of the dumps in parallel with the parsing. The buffers are recycled between
+ * both threads, so no memory is allocated once the stream is running.
+ * <p>
+ * The source is closed by the reading thread once it stops, never while it is being read, as closing a
+ * {@link java.util.zip.GZIPInputStream} in the middle of a read breaks its inflater.
+ */
+public class ReadAheadInputStream extends InputStream {
+
+    private static final int BUFFERS = 4;
+
+    /**
+     * Maximum time {@link #close()} waits for the reading thread to stop and close the source.
+     */
+    private static final long CLOSE_TIMEOUT_MILLIS = 5000;
+
+    private final InputStream source;
+    private final BlockingQueue<Chunk> filled = new ArrayBlockingQueue<>(BUFFERS + 1);
+    private final BlockingQueue<Chunk> free = new ArrayBlockingQueue<>(BUFFERS);
+    private final Thread reader;
+
+    private Chunk current;
+    private int position;
+    private volatile IOException failure;
+    private volatile boolean closed;
+
+    public ReadAheadInputStream(InputStream source, int bufferSize, String name) {
+        this.source = source;
+        for (int i = 0; i < BUFFERS; i++)
+            free.add(new Chunk(new byte[bufferSize]));
+
+        this.reader = new Thread(this::readSource, "read-ahead-" + name);
+        this.reader.setDaemon(true);
+        this.reader.start();
+    }
+
+    @Override
+    public int read() throws IOException {
+        var chunk = nextChunk();
+        if (chunk == null)
+            return -1;
+        return chunk.data[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0)
+            return 0;
+
+        var chunk = nextChunk();
+        if (chunk == null)
+            return -1;
+
+        int count = Math.min(length, chunk.length - position);
+        System.arraycopy(chunk.data, position, buffer, offset, count);
+        position += count;
+        return count;
+    }
+
+    /**
+     * Stops the reading thread and waits a bounded time for it to close the source. If the source is blocked in a
+     * read which ignores the interruption, it is closed as soon as that read returns.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        reader.interrupt();
+        try {
+            reader.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while closing " + reader.getName());
+        }
+    }
+
+    /**
+     * @return The chunk with pending data to be read, or null at the end of the stream.
+     */
+    private Chunk nextChunk() throws IOException {
+        if (current != null && position < current.length)
+            return current;
+
+        if (current != null) {
+            if (current.length < 0)
+                return null;
+            free.add(current);
+        }
+
+        try {
+            current = filled.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for " + reader.getName());
+        }
+        position = 0;
+
+        if (current.length < 0) {
+            if (failure != null)
+                throw failure;
+            return null;
+        }
+        return current;
+    }
+
+    private void readSource() {
+        try (source) {
+            while (!closed) {
+                var chunk = free.take();
+                chunk.length = readFully(chunk.data);
+                if (chunk.length <= 0)
+                    break;
+                filled.put(chunk);
+            }
+        } catch (IOException e) {
+            failure = e;
+        } catch (InterruptedException e) {
+            return;
+        }
+        // End of stream marker
+        filled.offer(new Chunk(new byte[0], -1));
+    }
+
+    private int readFully(byte[] data) throws IOException {
+        int total = 0;
+        while (total < data.length) {
+            int read = source.read(data, total, data.length - total);
+            if (read < 0)
+                break;
+            total += read;
+        }
+        return total;
+    }
+
+    private static final class Chunk {
+        private final byte[] data;
+        private int length;
+
+        private Chunk(byte[] data) {
+            this(data, 0);
+        }
+
+        private Chunk(byte[] data, int length) {
+            this.data = data;
+            this.length = length;
+        }
+    }
+}
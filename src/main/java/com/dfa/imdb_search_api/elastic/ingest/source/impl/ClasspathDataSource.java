@@ -0,0 +1,44 @@
+package com.dfa.imdb_search_api.elastic.ingest.source.impl;
+
+import com.dfa.imdb_search_api.elastic.ingest.source.IDataSource;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Data source reading an uncompressed TSV file located at the resources folder.
+ */
+public class ClasspathDataSource implements IDataSource {
+
+    private final String resourceName;
+
+    public ClasspathDataSource(String resourceName) {
+        this.resourceName = resourceName;
+    }
+
+    @Override
+    public String getName() {
+        return resourceName;
+    }
+
+    @Override
+    public InputStream open() throws IOException {
+        var stream = this.getClass().getClassLoader().getResourceAsStream(resourceName);
+        if (stream == null)
+            throw new FileNotFoundException("Resource " + resourceName + " not found");
+        return stream;
+    }
+
+    @Override
+    public long size() {
+        var resource = this.getClass().getClassLoader().getResource(resourceName);
+        if (resource == null)
+            return -1;
+        try {
+            return resource.openConnection().getContentLengthLong();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.dfa.imdb_search_api.elastic.ingest.source.impl;
+
+import com.dfa.imdb_search_api.elastic.ingest.source.IDataSource;
+import com.dfa.imdb_search_api.elastic.ingest.source.MeteredInputStream;
+import com.dfa.imdb_search_api.elastic.ingest.source.ReadAheadInputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Data source reading a file of the filesystem, like the dumps published at https://datasets.imdbws.com.
+ * <p>
+ * Files ending in .gz are decompressed on the fly. The decompression runs on its own thread, through a
+ * {@link ReadAheadInputStream}, so it overlaps with the parsing of the lines and the sending of the bulks.
+ * Uncompressed files can be read in parallel instead. {@link #uncompressedFile()}
+ */
+public class FileDataSource implements IDataSource {
+
+    private final Path path;
+    private final int bufferSize;
+
+    public FileDataSource(Path path, int bufferSize) {
+        this.path = path;
+        this.bufferSize = bufferSize;
+    }
+
+    @Override
+    public String getName() {
+        return path.getFileName().toString();
+    }
+
+    @Override
+    public InputStream open() throws IOException {
+        return decompress(Files.newInputStream(path));
+    }
+
+    /**
+     * Counts the bytes of the file before decompressing them, so they can be compared with its size.
+     */
+    @Override
+    public InputStream open(LongAdder bytesRead) throws IOException {
+        return decompress(new MeteredInputStream(Files.newInputStream(path), bytesRead));
+    }
+
+    private InputStream decompress(InputStream stream) throws IOException {
+        if (!isCompressed())
+            return stream;
+
+        try {
+            return new ReadAheadInputStream(new GZIPInputStream(stream, bufferSize), bufferSize, getName());
+        } catch (IOException e) {
+            stream.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public long size() {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    @Override
+    public Path uncompressedFile() {
+        return isCompressed() ? null : path;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public boolean isCompressed() {
+        return getName().endsWith(".gz");
+    }
+}
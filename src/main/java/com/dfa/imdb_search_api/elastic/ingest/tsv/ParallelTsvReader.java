@@ -0,0 +1,209 @@
+package com.dfa.imdb_search_api.elastic.ingest.tsv;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reads an uncompressed TSV file in parallel, splitting it into byte ranges aligned to the line breaks which are
+ * parsed at the same time by the workers of a {@link ForkJoinPool}.
+ * <p>
+ * The file is memory mapped, so the ranges are read straight from the page cache without system calls nor
+ * contention between the workers. Each range is read through its own {@link TsvRecordReader}, so a range is
+ * processed exactly like a whole file, and its lines are seen in order. The order between ranges is not defined.
+ * <p>
+ * The header, the first line of the file, is skipped.
+ */
+public class ParallelTsvReader {
+
+    /**
+     * A single mapping can't exceed 2GB, so bigger files are split into more ranges than workers.
+     */
+    private static final long MAX_RANGE_SIZE = 1L << 30;
+
+    private final Path path;
+    private final int parallelism;
+    private final long minRangeSize;
+    private final int bufferSize;
+
+    /**
+     * Processes the lines of a range.
+     */
+    @FunctionalInterface
+    public interface RangeProcessor {
+
+        /**
+         * @param range  The position of the range in the file, 0 for the first one.
+         * @param reader The reader of the lines of the range, which stops at its end.
+         * @throws IOException If the lines can't be processed.
+         */
+        void process(int range, TsvRecordReader reader) throws IOException;
+    }
+
+    /**
+     * @param path         The uncompressed TSV file.
+     * @param parallelism  The number of workers parsing the file at the same time.
+     * @param minRangeSize The minimum size of the ranges, so small files are not split for nothing.
+     * @param bufferSize   The size of the buffer of the reader of each range.
+     */
+    public ParallelTsvReader(Path path, int parallelism, long minRangeSize, int bufferSize) {
+        this.path = path;
+        this.parallelism = Math.max(1, parallelism);
+        this.minRangeSize = Math.max(1, minRangeSize);
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Splits the file into ranges and processes all of them, blocking until they are done.
+     * If any range fails or the calling thread is interrupted, the rest of the ranges stop at their next read.
+     *
+     * @param processor The processor of each range.
+     * @param bytesRead Counter where the bytes read are added, to follow the progress.
+     * @return The number of ranges processed.
+     * @throws IOException If the file can't be read or any range fails.
+     */
+    public int read(RangeProcessor processor, LongAdder bytesRead) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            var ranges = split(channel);
+            var cancelled = new AtomicBoolean();
+            var pool = new ForkJoinPool(Math.min(parallelism, Math.max(1, ranges.size())));
+            try {
+                List<Future<Void>> tasks = new ArrayList<>();
+                for (int i = 0; i < ranges.size(); i++) {
+                    int range = i;
+                    var bounds = ranges.get(i);
+                    tasks.add(pool.submit(ForkJoinTask.adapt(() -> {
+                        var mapped = channel.map(FileChannel.MapMode.READ_ONLY, bounds[0], bounds[1] - bounds[0]);
+                        try (var reader = new TsvRecordReader(
+                                new MappedRangeInputStream(mapped, cancelled, bytesRead), bufferSize)) {
+                            processor.process(range, reader);
+                        }
+                        return null;
+                    })));
+                }
+
+                awaitAll(tasks, cancelled);
+                return ranges.size();
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Splits the file, after its header, into ranges of about the same size, each one ending right after a line
+     * break.
+     *
+     * @return The start and end offsets of the ranges, in the order of the file.
+     * @throws IOException If the file can't be read.
+     */
+    private List<long[]> split(FileChannel channel) throws IOException {
+        long size = channel.size();
+        long first = nextLineStart(channel, 0);
+        long length = size - first;
+
+        int parts = (int) Math.max(1, Math.min(parallelism, length / minRangeSize));
+        parts = (int) Math.max(parts, (length + MAX_RANGE_SIZE - 1) / MAX_RANGE_SIZE);
+
+        List<long[]> ranges = new ArrayList<>();
+        long start = first;
+        for (int i = 1; i <= parts && start < size; i++) {
+            long end = i == parts ? size : nextLineStart(channel, Math.max(start, first + length * i / parts));
+            if (end > start)
+                ranges.add(new long[]{start, end});
+            start = end;
+        }
+        return ranges;
+    }
+
+    /**
+     * Helper method, finds the first byte after the next line break at or after the offset.
+     *
+     * @return The offset of the start of the next line, or the size of the file if there are no more lines.
+     */
+    private static long nextLineStart(FileChannel channel, long offset) throws IOException {
+        var buffer = ByteBuffer.allocate(8192);
+        long position = offset;
+        while (true) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0)
+                return channel.size();
+            for (int i = 0; i < read; i++)
+                if (buffer.get(i) == '\n')
+                    return position + i + 1;
+            position += read;
+        }
+    }
+
+    /**
+     * Helper method, waits for the ranges, stopping all of them as soon as one fails or the wait is interrupted.
+     */
+    private static void awaitAll(List<Future<Void>> tasks, AtomicBoolean cancelled) throws IOException {
+        try {
+            for (var task : tasks)
+                task.get();
+        } catch (InterruptedException e) {
+            cancelled.set(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Parallel reading interrupted");
+        } catch (ExecutionException e) {
+            cancelled.set(true);
+            // The fork join tasks wrap the checked exceptions of the callables in RuntimeExceptions
+            for (var cause = e.getCause(); cause != null; cause = cause.getCause())
+                if (cause instanceof IOException ioException)
+                    throw ioException;
+            if (e.getCause() instanceof RuntimeException runtimeException)
+                throw runtimeException;
+            throw new IOException("Error while reading a range", e.getCause());
+        }
+    }
+
+    /**
+     * Stream over a mapped range, which stops with an {@link InterruptedIOException} once the reading is cancelled.
+     */
+    private static final class MappedRangeInputStream extends InputStream {
+
+        private final MappedByteBuffer buffer;
+        private final AtomicBoolean cancelled;
+        private final LongAdder bytesRead;
+
+        private MappedRangeInputStream(MappedByteBuffer buffer, AtomicBoolean cancelled, LongAdder bytesRead) {
+            this.buffer = buffer;
+            this.cancelled = cancelled;
+            this.bytesRead = bytesRead;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (cancelled.get())
+                throw new InterruptedIOException("Parallel reading cancelled");
+            if (!buffer.hasRemaining())
+                return -1;
+
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            bytesRead.add(count);
+            return count;
+        }
+    }
+}
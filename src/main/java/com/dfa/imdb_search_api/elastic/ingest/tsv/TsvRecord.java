@@ -0,0 +1,261 @@
+package com.dfa.imdb_search_api.elastic.ingest.tsv;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Cursor over the fields of a single TSV line, read straight from the byte buffer that holds it.
+ * <p>
+ * The fields are consumed in order. Numbers are parsed in place and the IMDB null marker (\N) is detected
+ * without creating any String, so the only objects created per line are the Strings the caller really asks for.
+ * Low cardinality values (types, genres) and year dates are cached, so those don't create objects either.
+ * <p>
+ * Instances are reused for every line and are not thread safe.
+ */
+public class TsvRecord {
+
+    private static final byte TAB = '\t';
+    private static final int MAX_YEAR = 3000;
+    private static final int[] POWERS_OF_TEN = {1, 10, 100, 1000, 10000, 100000, 1000000, 10000000};
+
+    private final StringPool pool = new StringPool();
+    private final String[] yearDates = new String[MAX_YEAR];
+
+    private byte[] buffer;
+    private int position;
+    private int end;
+    private int fieldEnd;
+
+    /**
+     * Points the cursor to the first field of a new line.
+     *
+     * @param buffer The buffer containing the line
+     * @param start  The position of the first byte of the line
+     * @param end    The position after the last byte of the line, without the line break
+     */
+    public void reset(byte[] buffer, int start, int end) {
+        this.buffer = buffer;
+        this.position = start;
+        this.end = end;
+        this.fieldEnd = findFieldEnd(start);
+    }
+
+    /**
+     * @return True if there are still fields to be read in the line
+     */
+    public boolean hasNext() {
+        return buffer != null && position <= end;
+    }
+
+    /**
+     * @return True if the current field is the IMDB null marker (\N)
+     */
+    public boolean isNull() {
+        return fieldEnd - position == 2 && buffer[position] == '\\' && buffer[position + 1] == 'N';
+    }
+
+    /**
+     * Skips the current field.
+     */
+    public void skip() {
+        advance();
+    }
+
+    /**
+     * @return The current field as a String, or null if it is the null marker.
+     */
+    public String nextString() {
+        String value = isNull() ? null : new String(buffer, position, fieldEnd - position, StandardCharsets.UTF_8);
+        advance();
+        return value;
+    }
+
+    /**
+     * Same as {@link #nextString()} but reusing the same String instance for repeated values.
+     * Meant for low cardinality fields, like the type of the title.
+     *
+     * @return The current field as a String, or null if it is the null marker.
+     */
+    public String nextPooledString() {
+        String value = isNull() ? null : pool.get(buffer, position, fieldEnd);
+        advance();
+        return value;
+    }
+
+    /**
+     * Splits the current field by the separator, reusing the same String instances for repeated values.
+     *
+     * @param separator The character separating the values inside the field
+     * @return The values of the field, or null if it is the null marker.
+     */
+    public String[] nextPooledStringArray(char separator) {
+        if (isNull()) {
+            advance();
+            return null;
+        }
+
+        int count = 1;
+        for (int i = position; i < fieldEnd; i++)
+            if (buffer[i] == separator) count++;
+
+        var values = new String[count];
+        int valueStart = position;
+        int index = 0;
+        for (int i = position; i <= fieldEnd; i++) {
+            if (i == fieldEnd || buffer[i] == separator) {
+                values[index++] = pool.get(buffer, valueStart, i);
+                valueStart = i + 1;
+            }
+        }
+
+        advance();
+        return values;
+    }
+
+    /**
+     * Parses the current field as a non negative integer.
+     *
+     * @param nullValue The value returned if the field is the null marker.
+     * @return The value of the field
+     * @throws NumberFormatException If the field is not a valid number
+     */
+    public int nextInt(int nullValue) {
+        if (isNull()) {
+            advance();
+            return nullValue;
+        }
+        int value = parseDigits(position, fieldEnd);
+        advance();
+        return value;
+    }
+
+    /**
+     * Parses the current field as a non negative decimal number, like the average ratings (7.5).
+     *
+     * @param nullValue The value returned if the field is the null marker.
+     * @return The value of the field
+     * @throws NumberFormatException If the field is not a valid number
+     */
+    public float nextFloat(float nullValue) {
+        if (isNull()) {
+            advance();
+            return nullValue;
+        }
+
+        int dot = position;
+        while (dot < fieldEnd && buffer[dot] != '.') dot++;
+
+        float value;
+        int decimals = fieldEnd - dot - 1;
+        if (dot == fieldEnd) {
+            value = parseDigits(position, fieldEnd);
+        } else if (decimals > 0 && fieldEnd - position <= 8) {
+            // Both integers are exact as floats, so the division is correctly rounded like Float.parseFloat
+            int mantissa = parseDigits(position, dot) * POWERS_OF_TEN[decimals] + parseDigits(dot + 1, fieldEnd);
+            value = mantissa / (float) POWERS_OF_TEN[decimals];
+        } else {
+            value = Float.parseFloat(new String(buffer, position, fieldEnd - position, StandardCharsets.US_ASCII));
+        }
+
+        advance();
+        return value;
+    }
+
+    /**
+     * Parses the current field as a year, returning it as the first day of that year (yyyy-01-01),
+     * the date format used by the index.
+     *
+     * @return The date, or null if the field is the null marker.
+     * @throws NumberFormatException If the field is not a valid year
+     */
+    public String nextYearDate() {
+        int year = nextInt(-1);
+        if (year < 0)
+            return null;
+        if (year >= MAX_YEAR)
+            return year + "-01-01";
+
+        var date = yearDates[year];
+        if (date == null) {
+            date = String.format("%04d-01-01", year);
+            yearDates[year] = date;
+        }
+        return date;
+    }
+
+    /**
+     * Parses the numeric part of an IMDB identifier (tt0413300 -> 413300) without creating the String.
+     *
+     * @return The number of the identifier, or -1 if the field is the null marker.
+     * @throws NumberFormatException If the field is not a valid identifier
+     */
+    public int nextIdNumber() {
+        if (isNull()) {
+            advance();
+            return -1;
+        }
+        int digits = position;
+        while (digits < fieldEnd && (buffer[digits] < '0' || buffer[digits] > '9')) digits++;
+        int value = parseDigits(digits, fieldEnd);
+        advance();
+        return value;
+    }
+
+    private int parseDigits(int from, int to) {
+        if (from == to)
+            throw numberFormatException();
+
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9 || value > (Integer.MAX_VALUE - digit) / 10)
+                throw numberFormatException();
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private NumberFormatException numberFormatException() {
+        return new NumberFormatException("Invalid number: "
+                + new String(buffer, position, fieldEnd - position, StandardCharsets.UTF_8));
+    }
+
+    private void advance() {
+        position = fieldEnd + 1;
+        fieldEnd = findFieldEnd(position);
+    }
+
+    private int findFieldEnd(int from) {
+        int i = from;
+        while (i < end && buffer[i] != TAB) i++;
+        return i;
+    }
+
+    /**
+     * Small cache of Strings indexed by their UTF-8 bytes, so the low cardinality fields don't create
+     * a new String for every line. When two values collide the newest one replaces the oldest one.
+     */
+    private static final class StringPool {
+
+        private static final int SIZE = 256;
+
+        private final byte[][] keys = new byte[SIZE][];
+        private final String[] values = new String[SIZE];
+
+        String get(byte[] buffer, int from, int to) {
+            int hash = 1;
+            for (int i = from; i < to; i++)
+                hash = 31 * hash + buffer[i];
+            int slot = (hash ^ (hash >>> 16)) & (SIZE - 1);
+
+            var key = keys[slot];
+            if (key != null && Arrays.equals(key, 0, key.length, buffer, from, to))
+                return values[slot];
+
+            var value = new String(buffer, from, to - from, StandardCharsets.UTF_8);
+            keys[slot] = Arrays.copyOfRange(buffer, from, to);
+            values[slot] = value;
+            return value;
+        }
+    }
+}
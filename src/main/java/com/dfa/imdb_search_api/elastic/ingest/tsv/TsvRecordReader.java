@@ -0,0 +1,139 @@
+package com.dfa.imdb_search_api.elastic.ingest.tsv;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Reads the lines of a TSV stream into a reusable byte buffer and exposes each one through a {@link TsvRecord}.
+ * <p>
+ * Unlike a {@link java.io.BufferedReader} it doesn't decode the whole line into a String, the fields are decoded
+ * on demand by the record. Lines are split on the raw bytes, which is safe for UTF-8 since the tab and line break
+ * bytes never appear inside a multibyte character.
+ */
+public class TsvRecordReader implements Closeable {
+
+    private static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+    private final InputStream input;
+    private final TsvRecord record = new TsvRecord();
+
+    private byte[] buffer;
+    private int position;
+    private int limit;
+    private long bufferOffset;
+    private long lineNumber;
+    private boolean endOfStream;
+
+    public TsvRecordReader(InputStream input) {
+        this(input, DEFAULT_BUFFER_SIZE);
+    }
+
+    public TsvRecordReader(InputStream input, int bufferSize) {
+        this.input = input;
+        this.buffer = new byte[bufferSize];
+    }
+
+    /**
+     * Moves the record to the next line of the stream.
+     *
+     * @return False if there are no more lines to be read.
+     * @throws IOException If an error occur while reading the stream.
+     */
+    public boolean next() throws IOException {
+        int i = position;
+        while (true) {
+            for (; i < limit; i++) {
+                if (buffer[i] == '\n') {
+                    emit(position, i);
+                    position = i + 1;
+                    return true;
+                }
+            }
+
+            if (endOfStream) {
+                if (position == limit)
+                    return false;
+                // Last line of the file, without line break
+                emit(position, limit);
+                position = limit;
+                return true;
+            }
+
+            // The pending bytes are moved to the start of the buffer, no need to scan them again
+            i -= position;
+            fill();
+        }
+    }
+
+    /**
+     * @return The record pointing to the current line.
+     */
+    public TsvRecord record() {
+        return record;
+    }
+
+    /**
+     * @return The number of lines read so far, being 1 the first line of the stream.
+     */
+    public long lineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * @return The offset in the stream of the first byte after the current line.
+     */
+    public long bytePosition() {
+        return bufferOffset + position;
+    }
+
+    /**
+     * Skips the start of the stream, so the next line read is the one starting at the given offset.
+     * It can only be called before reading any line.
+     *
+     * @param byteOffset The offset of the line in the stream. {@link #bytePosition()}
+     * @param lineNumber The number of lines before that offset, to keep {@link #lineNumber()} consistent.
+     * @throws IOException If the stream is shorter than the offset or an error occur while reading it.
+     */
+    public void seek(long byteOffset, long lineNumber) throws IOException {
+        if (this.lineNumber > 0 || limit > 0)
+            throw new IllegalStateException("The reader can only seek before reading any line");
+        input.skipNBytes(byteOffset);
+        this.bufferOffset = byteOffset;
+        this.lineNumber = lineNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+
+    private void emit(int start, int end) {
+        if (end > start && buffer[end - 1] == '\r') end--;
+        record.reset(buffer, start, end);
+        lineNumber++;
+    }
+
+    /**
+     * Moves the pending bytes to the start of the buffer, growing it if a single line doesn't fit,
+     * and reads more data from the stream.
+     */
+    private void fill() throws IOException {
+        int pending = limit - position;
+        bufferOffset += position;
+        if (pending == buffer.length)
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        else if (position > 0)
+            System.arraycopy(buffer, position, buffer, 0, pending);
+
+        position = 0;
+        limit = pending;
+
+        int read = input.read(buffer, limit, buffer.length - limit);
+        if (read < 0)
+            endOfStream = true;
+        else
+            limit += read;
+    }
+}
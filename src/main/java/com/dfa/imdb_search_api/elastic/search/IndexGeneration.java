@@ -0,0 +1,32 @@
+package com.dfa.imdb_search_api.elastic.search;
+
+import jakarta.inject.Singleton;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token which changes every time the content of the index may have changed, like when an ingest job finishes or
+ * the alias is swapped onto a rebuilt index. Whatever was computed from a previous generation, like the cached
+ * search results, is stale.
+ */
+@Singleton
+public class IndexGeneration {
+
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * @return The current generation.
+     */
+    public long current() {
+        return generation.get();
+    }
+
+    /**
+     * Starts a new generation.
+     *
+     * @return The new generation.
+     */
+    public long bump() {
+        return generation.incrementAndGet();
+    }
+}
@@ -0,0 +1,16 @@
+package com.dfa.imdb_search_api.elastic.search;
+
+/**
+ * Thrown when a param of a search is not valid, like a page beyond the caps or an unknown field, so the search is
+ * answered as a bad request.
+ */
+public class InvalidSearchParamException extends RuntimeException {
+
+    public InvalidSearchParamException(String message) {
+        super(message);
+    }
+
+    public InvalidSearchParamException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,203 @@
+package com.dfa.imdb_search_api.elastic.search;
+
+import com.dfa.imdb_search_api.POJO.Film;
+import com.dfa.imdb_search_api.POJO.QueryResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micronaut.scheduling.TaskExecutors;
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded in process cache of the results of the searches, keyed by the canonical form of their params.
+ * <p>
+ * The traffic is heavily skewed towards a few hundred searches, so the cache admits and evicts the results by their
+ * frequency of use (Caffeine's Window TinyLFU), which keeps the popular searches even when a burst of one-off
+ * searches passes through. The cache is bounded by the estimated size of the results rather than by their number.
+ * <p>
+ * Every result is tagged with the {@link IndexGeneration} it was searched in. Once the generation changes, like
+ * when a load finishes, the results of the previous ones are never served again.
+ * <p>
+ * A result older than the refresh age is still served, while it is searched again in the background
+ * (stale-while-revalidate), so the popular searches stay fresh without any request waiting for them.
+ * <p>
+ * The searches are asynchronous, so neither a miss nor a refresh blocks the thread asking for the result.
+ */
+@Singleton
+public class SearchCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SearchCache.class);
+
+    private final SearchCacheConfiguration configuration;
+    private final IndexGeneration generation;
+    private final Executor executor;
+    private final Cache<SearchKey, CachedResponse> cache;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder failedRefreshes = new LongAdder();
+    private volatile long cachedGeneration;
+
+    /**
+     * @param configuration The limits of the cache.
+     * @param generation    The generation of the index, which invalidates the results when it changes.
+     * @param executor      The executor where the stale results are refreshed.
+     */
+    @Inject
+    public SearchCache(SearchCacheConfiguration configuration, IndexGeneration generation,
+                       @Named(TaskExecutors.IO) Executor executor) {
+        this.configuration = configuration;
+        this.generation = generation;
+        this.executor = executor;
+        this.cachedGeneration = generation.current();
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(configuration.getMaxWeight())
+                .weigher((SearchKey key, CachedResponse cached) -> cached.weight)
+                .expireAfterWrite(configuration.getExpireAfterWrite())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the cached result of the search, searching it if there is none for the current generation.
+     *
+     * @param key    The key of the search.
+     * @param loader Searches the params of the key.
+     * @return The result of the search, completed exceptionally if it was not cached and the search failed.
+     */
+    public CompletableFuture<QueryResponse> get(SearchKey key, SearchLoader loader) {
+        if (!configuration.isEnabled())
+            return search(loader, key);
+
+        long current = generation.current();
+        if (current != cachedGeneration) {
+            // The results of the previous generations can't be served anymore, so they are freed right away
+            cachedGeneration = current;
+            cache.invalidateAll();
+        }
+
+        var cached = cache.getIfPresent(key);
+        if (cached != null && cached.generation == current) {
+            hits.increment();
+            if (cached.isStale(configuration.getRefreshAfterWrite().toNanos()) && cached.startRefresh())
+                refresh(key, loader, cached);
+            return CompletableFuture.completedFuture(cached.response);
+        }
+
+        misses.increment();
+        return search(loader, key).thenApply(response -> {
+            // The result is discarded if a new generation started while it was searched
+            if (generation.current() == current)
+                cache.put(key, new CachedResponse(response, current));
+            return response;
+        });
+    }
+
+    /**
+     * @return The counters of the cache.
+     */
+    public SearchCacheStats stats() {
+        // The size and weight are updated by the pending maintenance of the cache, which is done right away
+        cache.cleanUp();
+        var stats = cache.stats();
+        long weight = cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L);
+        return new SearchCacheStats(configuration.isEnabled(), generation.current(), cache.estimatedSize(), weight,
+                hits.sum(), misses.sum(), stats.evictionCount(), refreshes.sum(), failedRefreshes.sum());
+    }
+
+    /**
+     * Helper method, searches the key again in the background, replacing the stale result once done.
+     * If the search fails the stale result is kept until it expires, and it can be refreshed again.
+     */
+    private void refresh(SearchKey key, SearchLoader loader, CachedResponse stale) {
+        executor.execute(() -> search(loader, key).whenComplete((response, error) -> {
+            if (error != null) {
+                failedRefreshes.increment();
+                stale.refreshFailed();
+                LOG.warn("Error refreshing the cached search {}", key, error);
+                return;
+            }
+            // The result is discarded if a new generation started in the meantime
+            cache.asMap().replace(key, stale, new CachedResponse(response, stale.generation));
+            refreshes.increment();
+        }));
+    }
+
+    /**
+     * Helper method, calls the loader, turning the errors thrown while building the search into a failed result.
+     */
+    private static CompletableFuture<QueryResponse> search(SearchLoader loader, SearchKey key) {
+        try {
+            return loader.search(key.getParams());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Helper method, estimates the memory retained by a result, mostly its titles.
+     */
+    private static int weigh(QueryResponse response) {
+        int weight = 512;
+        if (response.getSources() != null)
+            for (var source : response.getSources())
+                weight += 64 + source.getLength();
+        else if (response.getItems() != null)
+            for (Film film : response.getItems())
+                weight += 160 + 2 * (length(film.getTitle()) + length(film.getOriginal_title()))
+                        + (film.getGenres() != null ? 8 * film.getGenres().length : 0);
+        if (response.getTermAggregations() != null)
+            for (var aggregation : response.getTermAggregations())
+                weight += 64 * aggregation.getBuckets().length;
+        if (response.getDateHistogramAggregation() != null)
+            weight += 64 * response.getDateHistogramAggregation().getBuckets().length;
+        if (response.hasSuggestion())
+            weight += 1024;
+        return weight;
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+
+    /**
+     * Result of a search along with the generation it belongs to.
+     */
+    private static final class CachedResponse {
+
+        private final QueryResponse response;
+        private final long generation;
+        private final long createdAt = System.nanoTime();
+        private final int weight;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        private CachedResponse(QueryResponse response, long generation) {
+            this.response = response;
+            this.generation = generation;
+            this.weight = weigh(response);
+        }
+
+        private boolean isStale(long refreshAfterNanos) {
+            return System.nanoTime() - createdAt >= refreshAfterNanos;
+        }
+
+        /**
+         * @return True if no one else is refreshing the result.
+         */
+        private boolean startRefresh() {
+            return refreshing.compareAndSet(false, true);
+        }
+
+        private void refreshFailed() {
+            refreshing.set(false);
+        }
+    }
+}
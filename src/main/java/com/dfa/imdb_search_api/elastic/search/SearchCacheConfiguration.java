@@ -0,0 +1,64 @@
+package com.dfa.imdb_search_api.elastic.search;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the cache of search results, bound to the "search.cache" prefix of the application.yml.
+ */
+@ConfigurationProperties("search.cache")
+public class SearchCacheConfiguration {
+
+    /**
+     * False to send every search to ElasticSearch.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Estimated size in bytes of all the cached results.
+     */
+    private long maxWeight = 64L * 1024 * 1024;
+
+    /**
+     * Time after which a result is discarded, even if it keeps being used.
+     */
+    private Duration expireAfterWrite = Duration.ofMinutes(10);
+
+    /**
+     * Age after which a result still served is refreshed in the background.
+     */
+    private Duration refreshAfterWrite = Duration.ofMinutes(1);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    public void setMaxWeight(long maxWeight) {
+        this.maxWeight = maxWeight;
+    }
+
+    public Duration getExpireAfterWrite() {
+        return expireAfterWrite;
+    }
+
+    public void setExpireAfterWrite(Duration expireAfterWrite) {
+        this.expireAfterWrite = expireAfterWrite;
+    }
+
+    public Duration getRefreshAfterWrite() {
+        return refreshAfterWrite;
+    }
+
+    public void setRefreshAfterWrite(Duration refreshAfterWrite) {
+        this.refreshAfterWrite = refreshAfterWrite;
+    }
+}
@@ -0,0 +1,103 @@
+package com.dfa.imdb_search_api.elastic.search;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+import java.util.StringJoiner;
+
+/**
+ * Counters of the {@link SearchCache}, as returned by the stats endpoint.
+ */
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public class SearchCacheStats {
+
+    private final boolean enabled;
+    private final long generation;
+    private final long size;
+    private final long weight;
+    private final long hits;
+    private final long misses;
+    private final double hitRate;
+    private final long evictions;
+    private final long refreshes;
+    private final long failedRefreshes;
+
+    public SearchCacheStats(boolean enabled, long generation, long size, long weight, long hits, long misses,
+                            long evictions, long refreshes, long failedRefreshes) {
+        this.enabled = enabled;
+        this.generation = generation;
+        this.size = size;
+        this.weight = weight;
+        this.hits = hits;
+        this.misses = misses;
+        this.hitRate = hits + misses > 0 ? (double) hits / (hits + misses) : 0;
+        this.evictions = evictions;
+        this.refreshes = refreshes;
+        this.failedRefreshes = failedRefreshes;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * @return The number of cached results.
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * @return The estimated size in bytes of the cached results.
+     */
+    public long getWeight() {
+        return weight;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public double getHitRate() {
+        return hitRate;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return The number of results refreshed in the background while the stale one was served.
+     */
+    public long getRefreshes() {
+        return refreshes;
+    }
+
+    public long getFailedRefreshes() {
+        return failedRefreshes;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", SearchCacheStats.class.getSimpleName() + "[", "]")
+                .add("enabled=" + enabled)
+                .add("generation=" + generation)
+                .add("size=" + size)
+                .add("weight=" + weight)
+                .add("hits=" + hits)
+                .add("misses=" + misses)
+                .add("hitRate=" + hitRate)
+                .add("evictions=" + evictions)
+                .add("refreshes=" + refreshes)
+                .add("failedRefreshes=" + failedRefreshes)
+                .toString();
+    }
+}
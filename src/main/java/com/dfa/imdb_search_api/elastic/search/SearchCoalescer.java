@@ -0,0 +1,110 @@
+package com.dfa.imdb_search_api.elastic.search;
+
+import com.dfa.imdb_search_api.POJO.QueryResponse;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Shares a single search between the concurrent searches of the same key (single flight).
+ * <p>
+ * When a title trends, lots of identical searches arrive at the same time, before any of them is cached. Only the
+ * first one reaches ElasticSearch, the rest wait for its result, so a burst of identical searches costs a single
+ * search to the cluster whether the results are cached or not.
+ * <p>
+ * The search is forgotten as soon as it completes, successfully or not, so the next search of the key starts a new
+ * one. A search started in a previous {@link IndexGeneration} is never shared with the searches of the new one.
+ */
+@Singleton
+public class SearchCoalescer {
+
+    private final IndexGeneration generation;
+    private final Map<SearchKey, Flight> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * @param generation The generation of the index, the searches of different generations are not shared.
+     */
+    @Inject
+    public SearchCoalescer(IndexGeneration generation) {
+        this.generation = generation;
+    }
+
+    /**
+     * Joins the search of the key in flight, or starts it if there is none.
+     *
+     * @param key    The key of the search.
+     * @param loader Searches the params of the key.
+     * @return The result of the search, completed exceptionally if the search failed.
+     */
+    public CompletableFuture<QueryResponse> get(SearchKey key, SearchLoader loader) {
+        var flight = new Flight(generation.current());
+        while (true) {
+            var existing = inFlight.putIfAbsent(key, flight);
+            if (existing == null)
+                break;
+            if (existing.generation == flight.generation) {
+                coalesced.increment();
+                // Each caller gets its own copy, so cancelling it doesn't affect the rest of the callers
+                return existing.result.copy();
+            }
+            if (inFlight.replace(key, existing, flight))
+                break;
+        }
+
+        searches.increment();
+        CompletableFuture<QueryResponse> search;
+        try {
+            search = loader.search(key.getParams());
+        } catch (RuntimeException e) {
+            search = CompletableFuture.failedFuture(e);
+        }
+        search.whenComplete((response, error) -> {
+            inFlight.remove(key, flight);
+            if (error != null)
+                flight.result.completeExceptionally(error);
+            else
+                flight.result.complete(response);
+        });
+        return flight.result.copy();
+    }
+
+    /**
+     * @return The number of searches sent to ElasticSearch.
+     */
+    public long getSearches() {
+        return searches.sum();
+    }
+
+    /**
+     * @return The number of searches which joined another one instead of being sent to ElasticSearch.
+     */
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    /**
+     * @return The number of searches in flight.
+     */
+    public int getInFlight() {
+        return inFlight.size();
+    }
+
+    /**
+     * Search in flight along with the generation it was started in.
+     */
+    private static final class Flight {
+
+        private final long generation;
+        private final CompletableFuture<QueryResponse> result = new CompletableFuture<>();
+
+        private Flight(long generation) {
+            this.generation = generation;
+        }
+    }
+}
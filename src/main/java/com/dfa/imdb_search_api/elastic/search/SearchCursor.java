@@ -0,0 +1,170 @@
+package com.dfa.imdb_search_api.elastic.search;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Objects;
+import java.util.StringJoiner;
+
+/**
+ * Position of a deep pagination: the point in time the pages are searched in, and the sort values of the last title
+ * of the previous page, which the next page is searched after.
+ * <p>
+ * It travels to the client as an opaque token, the URL safe base64 of its JSON, so the pages need no state in the
+ * API. The point in time keeps every page consistent with the first one, even if the index changes meanwhile.
+ * <p>
+ * The token is read and written with the streaming API of Jackson, as it is a fixed object of a string and an array of
+ * sort values, which needs no mapper.
+ */
+public final class SearchCursor {
+
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final String INVALID_CURSOR = "Invalid cursor, it must be the one returned by the previous page";
+
+    private final String pointInTime;
+    private final Object[] after;
+
+    /**
+     * @param pointInTime The id of the point in time the pages are searched in.
+     * @param after       The sort values of the last title of the previous page.
+     */
+    public SearchCursor(String pointInTime, Object[] after) {
+        this.pointInTime = Objects.requireNonNull(pointInTime);
+        this.after = Objects.requireNonNull(after);
+    }
+
+    /**
+     * @param token The token of a cursor, as returned in a response.
+     * @return The cursor held by the token.
+     * @throws InvalidSearchParamException If the token is not a cursor.
+     */
+    public static SearchCursor decode(String token) {
+        try (var parser = JSON.createParser(Base64.getUrlDecoder().decode(token))) {
+            String pointInTime = null;
+            List<Object> after = null;
+            if (parser.nextToken() != JsonToken.START_OBJECT)
+                throw new InvalidSearchParamException(INVALID_CURSOR);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                var name = parser.getCurrentName();
+                var value = parser.nextToken();
+                if (name.equals("pit") && value == JsonToken.VALUE_STRING)
+                    pointInTime = parser.getText();
+                else if (name.equals("after") && value == JsonToken.START_ARRAY)
+                    after = readSortValues(parser);
+                else
+                    parser.skipChildren();
+            }
+
+            if (pointInTime == null || after == null)
+                throw new InvalidSearchParamException(INVALID_CURSOR);
+            return new SearchCursor(pointInTime, after.toArray());
+        } catch (IOException | IllegalArgumentException e) {
+            throw new InvalidSearchParamException(INVALID_CURSOR, e);
+        }
+    }
+
+    /**
+     * @return The token of the cursor, to be returned to the client.
+     */
+    public String encode() {
+        var json = new ByteArrayOutputStream();
+        try (var generator = JSON.createGenerator(json)) {
+            generator.writeStartObject();
+            generator.writeStringField("pit", pointInTime);
+            generator.writeArrayFieldStart("after");
+            for (var value : after)
+                writeSortValue(generator, value);
+            generator.writeEndArray();
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.toByteArray());
+    }
+
+    /**
+     * Helper method, reads the sort values of a cursor, the parser being at the start of their array.
+     */
+    private static List<Object> readSortValues(JsonParser parser) throws IOException {
+        List<Object> values = new ArrayList<>();
+        for (var token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+            if (token == JsonToken.VALUE_STRING)
+                values.add(parser.getText());
+            else if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT)
+                values.add(parser.getNumberValue());
+            else if (token == JsonToken.VALUE_TRUE || token == JsonToken.VALUE_FALSE)
+                values.add(parser.getBooleanValue());
+            else if (token == JsonToken.VALUE_NULL)
+                values.add(null);
+            else
+                throw new InvalidSearchParamException(INVALID_CURSOR);
+        }
+        return values;
+    }
+
+    /**
+     * Helper method, writes a sort value of a hit, as returned by ElasticSearch.
+     */
+    private static void writeSortValue(JsonGenerator generator, Object value) throws IOException {
+        if (value == null)
+            generator.writeNull();
+        else if (value instanceof String string)
+            generator.writeString(string);
+        else if (value instanceof Boolean bool)
+            generator.writeBoolean(bool);
+        else if (value instanceof Float number)
+            generator.writeNumber(number);
+        else if (value instanceof Double number)
+            generator.writeNumber(number);
+        else if (value instanceof BigDecimal number)
+            generator.writeNumber(number);
+        else if (value instanceof BigInteger number)
+            generator.writeNumber(number);
+        else if (value instanceof Number number)
+            generator.writeNumber(number.longValue());
+        else
+            throw new IllegalArgumentException("Unsupported sort value " + value.getClass().getName());
+    }
+
+    public String getPointInTime() {
+        return pointInTime;
+    }
+
+    public Object[] getAfter() {
+        return after;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        SearchCursor that = (SearchCursor) o;
+        return pointInTime.equals(that.pointInTime) && Arrays.equals(after, that.after);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Objects.hash(pointInTime);
+        result = 31 * result + Arrays.hashCode(after);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", SearchCursor.class.getSimpleName() + "[", "]")
+                .add("pointInTime='" + pointInTime + "'")
+                .add("after=" + Arrays.toString(after))
+                .toString();
+    }
+}
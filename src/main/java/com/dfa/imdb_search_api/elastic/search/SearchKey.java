@@ -0,0 +1,115 @@
+package com.dfa.imdb_search_api.elastic.search;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.StringJoiner;
+import java.util.regex.Pattern;
+
+/**
+ * Canonical form of the params of a search, so that searches which only differ in irrelevant details share the
+ * same key: the whitespace and the case of the query, and the order and repetitions of the genres, dates, filters,
+ * included sections and fields. The page is part of the key too.
+ * <p>
+ * The genres, the type and the filters keep their case, as they are matched as exact terms. The query is compared
+ * ignoring its case, as it is analyzed, but it keeps it in the params to be searched so the suggestions see it as
+ * it was written.
+ */
+public final class SearchKey {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final String query;
+    private final String genres;
+    private final String type;
+    private final String date;
+    private final String filters;
+    private final String include;
+    private final String fields;
+    private final String page;
+    private final Map<String, String> params;
+
+    private SearchKey(String query, String genres, String type, String date, String filters, String include,
+                      String fields, String size, String from, String cursor) {
+        this.query = query.toLowerCase(Locale.ROOT);
+        this.genres = genres;
+        this.type = type;
+        this.date = date;
+        this.filters = filters;
+        this.include = include;
+        this.fields = fields;
+        this.page = size + ":" + from + ":" + cursor;
+        this.params = Map.of("query", query, "genres", genres, "type", type, "date", date, "filters", filters,
+                "include", include, "fields", fields, "size", size, "from", from, "cursor", cursor);
+    }
+
+    /**
+     * @param params The params of the search, as received by the controller.
+     * @return The canonical key of the search.
+     */
+    public static SearchKey of(Map<String, String> params) {
+        return new SearchKey(
+                WHITESPACE.matcher(params.getOrDefault("query", "").strip()).replaceAll(" "),
+                sortedList(params.get("genres")),
+                params.getOrDefault("type", "").strip(),
+                sortedList(params.get("date")),
+                sortedList(params.get("filters")),
+                sortedList(params.get("include")),
+                sortedList(params.get("fields")),
+                params.getOrDefault("size", "").strip(),
+                params.getOrDefault("from", "").strip(),
+                params.getOrDefault("cursor", "").strip());
+    }
+
+    /**
+     * @return The params of the search in their canonical form, which are the ones searched, so every search with
+     * the same key gets the same results.
+     */
+    public Map<String, String> getParams() {
+        return params;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        SearchKey key = (SearchKey) o;
+        return query.equals(key.query) && genres.equals(key.genres) && type.equals(key.type)
+                && date.equals(key.date) && filters.equals(key.filters) && include.equals(key.include)
+                && fields.equals(key.fields) && page.equals(key.page);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(query, genres, type, date, filters, include, fields, page);
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", SearchKey.class.getSimpleName() + "[", "]")
+                .add("query='" + query + "'")
+                .add("genres='" + genres + "'")
+                .add("type='" + type + "'")
+                .add("date='" + date + "'")
+                .add("filters='" + filters + "'")
+                .add("include='" + include + "'")
+                .add("fields='" + fields + "'")
+                .add("page='" + page + "'")
+                .toString();
+    }
+
+    /**
+     * Helper method, sorts the values of a comma separated list, leaving out the blank and repeated ones.
+     */
+    private static String sortedList(String list) {
+        if (list == null || list.isBlank())
+            return "";
+        return String.join(",", Arrays.stream(list.split(","))
+                .map(String::strip)
+                .filter(value -> !value.isEmpty())
+                .distinct()
+                .sorted()
+                .toArray(String[]::new));
+    }
+}
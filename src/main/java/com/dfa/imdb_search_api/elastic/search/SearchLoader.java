@@ -0,0 +1,20 @@
+package com.dfa.imdb_search_api.elastic.search;
+
+import com.dfa.imdb_search_api.POJO.QueryResponse;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Searches the params of a key in ElasticSearch, when its result is not cached, must be refreshed or is not being
+ * searched already.
+ */
+@FunctionalInterface
+public interface SearchLoader {
+
+    /**
+     * @param params The params of the search, in their canonical form.
+     * @return The result of the search, completed exceptionally if it fails.
+     */
+    CompletableFuture<QueryResponse> search(Map<String, String> params);
+}
@@ -0,0 +1,131 @@
+package com.dfa.imdb_search_api.elastic.search;
+
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * The page of titles asked by a search, through the "size", "from" and "cursor" params.
+ * <p>
+ * The shallow pages are asked by their offset, which ElasticSearch has to skip collecting every title before it, so
+ * the offset and the size are capped to {@link #MAX_WINDOW} and {@link #MAX_SIZE}. The deep pages are asked with a
+ * cursor instead, "cursor=*" for the first one and then the cursor returned by the previous page, so every page
+ * costs the same as the first one, see {@link SearchCursor}.
+ */
+public final class SearchPage {
+
+    /**
+     * The size of a page when none is asked.
+     */
+    public static final int DEFAULT_SIZE = 10;
+
+    /**
+     * Maximum number of titles in a page.
+     */
+    public static final int MAX_SIZE = 100;
+
+    /**
+     * Maximum offset of the end of a shallow page, the deeper pages must be asked with a cursor.
+     */
+    public static final int MAX_WINDOW = 1000;
+
+    /**
+     * The cursor which starts a deep pagination.
+     */
+    public static final String FIRST_CURSOR = "*";
+
+    private static final SearchPage FIRST_PAGE = new SearchPage(DEFAULT_SIZE, 0, false, null);
+
+    private final int size;
+    private final int from;
+    private final boolean cursor;
+    private final SearchCursor after;
+
+    private SearchPage(int size, int from, boolean cursor, SearchCursor after) {
+        this.size = size;
+        this.from = from;
+        this.cursor = cursor;
+        this.after = after;
+    }
+
+    /**
+     * @param params The params of the search, as received by the controller or in their canonical form.
+     * @return The page asked by the params.
+     * @throws InvalidSearchParamException If the size or the offset are not valid or go over their caps, or if the
+     *                                  cursor is not valid.
+     */
+    public static SearchPage of(Map<String, String> params) {
+        var size = number(params.get("size"), DEFAULT_SIZE, "size");
+        var from = number(params.get("from"), 0, "from");
+        var cursor = params.getOrDefault("cursor", "").strip();
+        if (size == DEFAULT_SIZE && from == 0 && cursor.isEmpty())
+            return FIRST_PAGE;
+
+        if (size > MAX_SIZE)
+            throw new InvalidSearchParamException("The size can't be greater than " + MAX_SIZE);
+        if (cursor.isEmpty()) {
+            if ((long) from + size > MAX_WINDOW)
+                throw new InvalidSearchParamException("The pages beyond the first " + MAX_WINDOW
+                        + " titles must be asked with a cursor");
+            return new SearchPage(size, from, false, null);
+        }
+
+        if (from != 0)
+            throw new InvalidSearchParamException("A cursor can't be combined with an offset");
+        return new SearchPage(size, 0, true, cursor.equals(FIRST_CURSOR) ? null : SearchCursor.decode(cursor));
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getFrom() {
+        return from;
+    }
+
+    /**
+     * @return True if the page is one of a deep pagination.
+     */
+    public boolean isCursor() {
+        return cursor;
+    }
+
+    /**
+     * @return True if the page starts a deep pagination, so its point in time must be opened.
+     */
+    public boolean isFirstCursor() {
+        return cursor && after == null;
+    }
+
+    /**
+     * @return The cursor the page is searched after, or null if the page is not a deep one or it is the first one.
+     */
+    public SearchCursor getAfter() {
+        return after;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", SearchPage.class.getSimpleName() + "[", "]")
+                .add("size=" + size)
+                .add("from=" + from)
+                .add("cursor=" + cursor)
+                .add("after=" + after)
+                .toString();
+    }
+
+    /**
+     * Helper method, reads a param which must be a number not lower than 0.
+     */
+    private static int number(String value, int defaultValue, String name) {
+        if (value == null || value.isBlank())
+            return defaultValue;
+        try {
+            int number = Integer.parseInt(value.strip());
+            if (number >= 0)
+                return number;
+        } catch (NumberFormatException ignored) {
+            // Refused below, like the negative numbers
+        }
+        throw new InvalidSearchParamException("The " + name + " must be a number not lower than 0");
+    }
+}
@@ -0,0 +1,130 @@
+package com.dfa.imdb_search_api.elastic.search;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+
+/**
+ * The parts of the response of a search asked by the client, through the "include" and "fields" params: the
+ * sections of the response, and the fields of the titles.
+ * <p>
+ * The parts left out are not asked to ElasticSearch at all. Without the items no hit is fetched, without the
+ * aggregations the facets are not computed, and without the suggestions the suggester doesn't run. The fields of
+ * the titles are fetched through source filtering, so the rest of each source doesn't travel from the cluster.
+ * <p>
+ * Empty params ask for the whole response, as before they existed.
+ */
+public final class SearchProjection {
+
+    public static final String ITEMS = "items";
+    public static final String AGGREGATIONS = "aggregations";
+    public static final String SUGGESTIONS = "suggestions";
+
+    /**
+     * The sections which can be included in the response.
+     */
+    public static final List<String> SECTIONS = List.of(ITEMS, AGGREGATIONS, SUGGESTIONS);
+
+    /**
+     * The fields of the titles which can be asked, as they are named in the index and in the response.
+     */
+    public static final List<String> FIELDS = List.of("id", "title", "original_title", "genres", "type", "start_year",
+            "end_year", "average_rating", "num_votes");
+
+    private static final SearchProjection ALL = new SearchProjection(true, true, true, null);
+
+    private final boolean items;
+    private final boolean aggregations;
+    private final boolean suggestions;
+    private final Set<String> fields;
+
+    private SearchProjection(boolean items, boolean aggregations, boolean suggestions, Set<String> fields) {
+        this.items = items;
+        this.aggregations = aggregations;
+        this.suggestions = suggestions;
+        this.fields = fields;
+    }
+
+    /**
+     * @param params The params of the search, as received by the controller or in their canonical form.
+     * @return The parts of the response asked by the params.
+     * @throws InvalidSearchParamException If a section or a field is not known.
+     */
+    public static SearchProjection of(Map<String, String> params) {
+        var include = values(params.get("include"), SECTIONS, "section");
+        var fields = values(params.get("fields"), FIELDS, "field");
+        if (include.isEmpty() && fields.isEmpty())
+            return ALL;
+
+        if (include.isEmpty())
+            include = Set.copyOf(SECTIONS);
+        return new SearchProjection(include.contains(ITEMS), include.contains(AGGREGATIONS),
+                include.contains(SUGGESTIONS), fields.isEmpty() || fields.size() == FIELDS.size() ? null : fields);
+    }
+
+    /**
+     * @return True if the titles are returned.
+     */
+    public boolean isItems() {
+        return items;
+    }
+
+    /**
+     * @return True if the facets are returned.
+     */
+    public boolean isAggregations() {
+        return aggregations;
+    }
+
+    /**
+     * @return True if the suggestions are returned, when there are any.
+     */
+    public boolean isSuggestions() {
+        return suggestions;
+    }
+
+    /**
+     * @return The fields of the titles returned, or null if all of them are.
+     */
+    public Set<String> getFields() {
+        return fields;
+    }
+
+    /**
+     * @return The fields of the titles to be fetched from their sources, or null if the whole sources are.
+     */
+    public String[] getSourceIncludes() {
+        return fields == null ? null : fields.toArray(String[]::new);
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", SearchProjection.class.getSimpleName() + "[", "]")
+                .add("items=" + items)
+                .add("aggregations=" + aggregations)
+                .add("suggestions=" + suggestions)
+                .add("fields=" + fields)
+                .toString();
+    }
+
+    /**
+     * Helper method, reads a comma separated list of values, checking every one of them is known.
+     */
+    private static Set<String> values(String list, List<String> known, String kind) {
+        if (list == null || list.isBlank())
+            return Set.of();
+        Set<String> values = new LinkedHashSet<>();
+        for (var value : list.split(",")) {
+            value = value.strip();
+            if (value.isEmpty())
+                continue;
+            if (!known.contains(value))
+                throw new InvalidSearchParamException("Unknown " + kind + " '" + value + "', it must be one of "
+                        + known);
+            values.add(value);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,145 @@
+package com.dfa.imdb_search_api.elastic.search;
+
+import jakarta.inject.Singleton;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+/**
+ * Mustache search template holding the ranking query, the facets and the suggester of the searches by params, so
+ * it is stored once in ElasticSearch and every search only sends the id of the template along with its params.
+ * <p>
+ * The params are the query and the clauses of the filters, already split into the ones of the query, the post
+ * filter and each facet. The clauses are rendered by the template with {@code toJson}. The parts of the response not
+ * included by the search are left out of it, see {@link SearchProjection}.
+ * <p>
+ * Only the shallow pages are searched through the template, the deep ones need a point in time, see
+ * {@link SearchPage}.
+ * <p>
+ * The id of the template carries a checksum of its source, so a changed template is stored under a new id instead
+ * of being mixed with the previous one by the instances still running it.
+ */
+@Singleton
+public class SearchTemplate {
+
+    private static final String RESOURCE = "searchTemplate.mustache";
+    private static final String DATE_PATTERN = "([0-9]{4}-[0-9]{4},*)+";
+
+    private final String source;
+    private final String id;
+
+    public SearchTemplate() {
+        try (var template = Objects.requireNonNull(getClass().getClassLoader().getResourceAsStream(RESOURCE),
+                "search template not found")) {
+            this.source = new String(template.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        var checksum = new CRC32();
+        checksum.update(source.getBytes(StandardCharsets.UTF_8));
+        this.id = "imdb-search-" + Long.toHexString(checksum.getValue());
+    }
+
+    /**
+     * @return The id the template is stored under.
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return The mustache source of the template.
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Builds the params of the template for a search.
+     *
+     * @param params          The params of the search, in their canonical form.
+     * @param needSuggestions If the phrase suggester must be run along with the search.
+     * @return The params of the template.
+     * @throws InvalidSearchParamException If an included section or a field is not known, or the page is not valid.
+     */
+    public Map<String, Object> params(Map<String, String> params, boolean needSuggestions) {
+        var query = params.getOrDefault("query", "");
+        var projection = SearchProjection.of(params);
+        var page = SearchPage.of(params);
+        List<Object> filters = new ArrayList<>();
+        List<Object> postFilters = new ArrayList<>();
+        List<Object> decadesFilters = new ArrayList<>();
+        List<Object> typesFilters = new ArrayList<>();
+        List<Object> genresFilters = new ArrayList<>();
+
+        if (!params.getOrDefault("genres", "").isBlank())
+            for (var genre : params.get("genres").split(","))
+                filters.add(Map.of("term", Map.of("genres", genre)));
+
+        if (!params.getOrDefault("type", "").isBlank())
+            filters.add(Map.of("match", Map.of("type", params.get("type"))));
+
+        var date = params.getOrDefault("date", "");
+        if (!date.isBlank() && date.matches(DATE_PATTERN)) {
+            List<Object> ranges = new ArrayList<>();
+            for (var range : date.split(","))
+                ranges.add(range(range));
+            filters.add(Map.of("bool", Map.of("should", ranges)));
+        }
+
+        // Each facet is filtered by the filters of the rest of the fields, like the post filter
+        for (var filterStr : params.getOrDefault("filters", "").split(",")) {
+            var filter = filterStr.split(":");
+            switch (filter[0]) {
+                case "genres", "type" -> {
+                    var clause = Map.of("term", Map.of(filter[0], filter[1]));
+                    postFilters.add(clause);
+                    decadesFilters.add(clause);
+                    if (!filter[0].equals("type"))
+                        typesFilters.add(clause);
+                    if (!filter[0].equals("genres"))
+                        genresFilters.add(clause);
+                }
+                case "date" -> {
+                    var clause = range(filter[1]);
+                    postFilters.add(clause);
+                    typesFilters.add(clause);
+                    genresFilters.add(clause);
+                }
+            }
+        }
+
+        Map<String, Object> templateParams = new HashMap<>();
+        templateParams.put("query", query);
+        templateParams.put("has_query", !query.isEmpty());
+        templateParams.put("filters", filters);
+        templateParams.put("post_filters", postFilters);
+        templateParams.put("decades_filters", decadesFilters);
+        templateParams.put("types_filters", typesFilters);
+        templateParams.put("genres_filters", genresFilters);
+        templateParams.put("suggest", needSuggestions);
+        templateParams.put("items", projection.isItems());
+        templateParams.put("size", projection.isItems() ? page.getSize() : 0);
+        templateParams.put("from", projection.isItems() ? page.getFrom() : 0);
+        templateParams.put("has_fields", projection.isItems() && projection.getFields() != null);
+        if (projection.getFields() != null)
+            templateParams.put("fields", List.copyOf(projection.getFields()));
+        templateParams.put("aggs", projection.isAggregations());
+        return templateParams;
+    }
+
+    /**
+     * Helper method, builds the range clause of a range of years like "1990-1999".
+     */
+    private static Map<String, Object> range(String years) {
+        var bounds = years.split("-");
+        return Map.of("range", Map.of("start_year", Map.of("gte", bounds[0], "lte", bounds[1], "format", "yyyy")));
+    }
+}
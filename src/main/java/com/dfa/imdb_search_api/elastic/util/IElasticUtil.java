@@ -4,9 +4,16 @@ import com.dfa.imdb_search_api.POJO.Film;
 import com.dfa.imdb_search_api.POJO.QueryResponse;
 import com.dfa.imdb_search_api.elastic.ElasticClient;
 import com.dfa.imdb_search_api.elastic.commands.Command;
+import com.dfa.imdb_search_api.elastic.ingest.job.IngestMetrics;
+import com.dfa.imdb_search_api.elastic.ingest.source.IDataSource;
+import com.dfa.imdb_search_api.elastic.search.InvalidSearchParamException;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 public interface IElasticUtil {
 
@@ -20,13 +27,93 @@ public interface IElasticUtil {
     String getClusterName() throws IOException;
 
     /**
-     * @param fileName  The name of the file containing the data. It has to be located at the resources folder
-     * @param chunkSize The size you want to divide the read data from the file.
-     * @param command   The command containing the logic for the creation of bulks for the specified type of media.
+     * @param source    The source containing the data, like a file of the resources folder or a dump in the filesystem.
+     * @param commands  Creates the command containing the logic for the creation of bulks for the specified type of
+     *                  media. A command is created for each range of the source when it is parsed in parallel.
+     * @param metrics   The metrics updated while loading, like the rows read and the latency of the bulks.
      * @return "Success loading data" if everything went well.
      * @throws IOException If an error occur during the reading or indexing process.
+     * @see IDataSource
      */
-    String loadIMDBMedia(String fileName, int chunkSize, Command command) throws IOException;
+    String loadIMDBMedia(IDataSource source, Supplier<Command> commands, IngestMetrics metrics)
+            throws IOException;
+
+    /**
+     * Indexes the films and ratings in a single pass, merging each film with its rating before sending it.
+     * A resumable load checkpoints its progress after every acknowledged bulk, so it can be resumed if interrupted.
+     *
+     * @param films     The source containing the films data.
+     * @param ratings   The source containing the ratings data.
+     * @param resume    True to continue from the last checkpoint of the same films source, if any, and to
+     *                  checkpoint the progress. False to discard it and start from the beginning.
+     * @param metrics   The metrics updated while loading, like the rows read and the latency of the bulks.
+     * @return "Success loading data" if everything went well.
+     * @throws IOException If an error occur during the reading or indexing process.
+     */
+    String loadJoinedIMDBMedia(IDataSource films, IDataSource ratings, boolean resume,
+                               IngestMetrics metrics) throws IOException;
+
+    /**
+     * Indexes only the titles that changed since the previous load, deleting the ones no longer present.
+     * If there is no previous load, every title is indexed.
+     *
+     * @param films     The source containing the films data.
+     * @param ratings   The source containing the ratings data.
+     * @param metrics   The metrics updated while loading, like the rows read and the latency of the bulks.
+     * @return "Success loading data" if everything went well.
+     * @throws IOException If an error occur during the reading or indexing process.
+     */
+    String loadDeltaIMDBMedia(IDataSource films, IDataSource ratings, IngestMetrics metrics)
+            throws IOException;
+
+    /**
+     * Rebuilds the whole index into a new versioned index, without affecting the searches, and once loaded
+     * swaps the alias used by the searches onto it.
+     *
+     * @param films     The source containing the films data.
+     * @param ratings   The source containing the ratings data.
+     * @param metrics   The metrics updated while loading, like the rows read and the latency of the bulks.
+     * @return A success message with the name of the new index if everything went well.
+     * @throws IOException If an error occur during the reading or indexing process.
+     */
+    String rebuildIMDBMedia(IDataSource films, IDataSource ratings, IngestMetrics metrics)
+            throws IOException;
+
+    /**
+     * Parses the films and ratings and exports them, merged, into a compact columnar snapshot, which can be
+     * indexed again without parsing the datasets. Nothing is sent to ElasticSearch.
+     *
+     * @param films     The source containing the films data.
+     * @param ratings   The source containing the ratings data.
+     * @param snapshot  The file where the snapshot is written, replacing the previous one once complete.
+     * @param metrics   The metrics updated while exporting, like the rows read.
+     * @return A success message with the number of titles exported if everything went well.
+     * @throws IOException If an error occur during the reading or the writing of the snapshot.
+     */
+    String exportSnapshot(IDataSource films, IDataSource ratings, Path snapshot, IngestMetrics metrics)
+            throws IOException;
+
+    /**
+     * Same as {@link #loadJoinedIMDBMedia(IDataSource, IDataSource, boolean, IngestMetrics)}, but reading the titles
+     * from a snapshot exported by {@link #exportSnapshot(IDataSource, IDataSource, Path, IngestMetrics)}.
+     *
+     * @param snapshot  The snapshot file.
+     * @param metrics   The metrics updated while loading, like the rows read and the latency of the bulks.
+     * @return "Success loading data" if everything went well.
+     * @throws IOException If an error occur during the reading or indexing process.
+     */
+    String loadSnapshot(Path snapshot, IngestMetrics metrics) throws IOException;
+
+    /**
+     * Same as {@link #rebuildIMDBMedia(IDataSource, IDataSource, IngestMetrics)}, but reading the titles from a
+     * snapshot exported by {@link #exportSnapshot(IDataSource, IDataSource, Path, IngestMetrics)}.
+     *
+     * @param snapshot  The snapshot file.
+     * @param metrics   The metrics updated while loading, like the rows read and the latency of the bulks.
+     * @return A success message with the name of the new index if everything went well.
+     * @throws IOException If an error occur during the reading or indexing process.
+     */
+    String rebuildFromSnapshot(Path snapshot, IngestMetrics metrics) throws IOException;
 
     /**
      * Search films based on the query and transforms the result of the query into a QueryResponse object.
@@ -47,13 +134,50 @@ public interface IElasticUtil {
      */
     QueryResponse searchByParams(Map<String, String> params) throws IOException;
 
+    /**
+     * Search films by their title, without blocking the calling thread
+     *
+     * @param params The title, genre and type of the film we are looking for
+     * @return A QueryResponse containing the films and the number of results, completed exceptionally with an
+     * {@link IOException} in case there is an error accessing elastic search, or with an
+     * {@link InvalidSearchParamException} if the params are not valid.
+     */
+    CompletableFuture<QueryResponse> searchByParamsAsync(Map<String, String> params);
+
     /**
      * Search titles by their id
      *
      * @param id The id of the title you're looking for
-     * @return A {@link Film} containing just that title
+     * @return A {@link Film} containing just that title, or null if there is no title with that id
      * @throws IOException In case there is an error accessing elastic search.
      */
     Film searchByTitleID(String id) throws IOException;
 
+    /**
+     * Search titles by their id, without blocking the calling thread
+     *
+     * @param id The id of the title you're looking for
+     * @return A {@link Film} containing just that title, or null if there is no title with that id, completed
+     * exceptionally with an {@link IOException} in case there is an error accessing elastic search.
+     */
+    CompletableFuture<Film> searchByTitleIDAsync(String id);
+
+    /**
+     * Search several titles at once by their ids
+     *
+     * @param ids The ids of the titles you're looking for
+     * @return The titles found, in the order of their ids. The ids without a title are left out
+     * @throws IOException In case there is an error accessing elastic search.
+     */
+    Film[] searchByTitleIDs(Collection<String> ids) throws IOException;
+
+    /**
+     * Search several titles at once by their ids, without blocking the calling thread
+     *
+     * @param ids The ids of the titles you're looking for
+     * @return The titles found, in the order of their ids, completed exceptionally with an {@link IOException} in
+     * case there is an error accessing elastic search. The ids without a title are left out
+     */
+    CompletableFuture<Film[]> searchByTitleIDsAsync(Collection<String> ids);
+
 }
@@ -1,53 +1,100 @@
 package com.dfa.imdb_search_api.elastic.util.impl;
 
 import com.dfa.imdb_search_api.POJO.Film;
+import com.dfa.imdb_search_api.POJO.FilmSource;
 import com.dfa.imdb_search_api.POJO.QueryResponse;
 import com.dfa.imdb_search_api.POJO.aggregations.Aggregation;
 import com.dfa.imdb_search_api.POJO.aggregations.bucket.impl.DateHistogramBucket;
 import com.dfa.imdb_search_api.POJO.aggregations.bucket.impl.TermBucket;
 import com.dfa.imdb_search_api.elastic.ElasticClient;
 import com.dfa.imdb_search_api.elastic.commands.Command;
+import com.dfa.imdb_search_api.elastic.commands.impl.JoinedFilmIndexCommand;
+import com.dfa.imdb_search_api.elastic.ingest.BulkBuffer;
+import com.dfa.imdb_search_api.elastic.ingest.BulkPipeline;
+import com.dfa.imdb_search_api.elastic.ingest.IngestConfiguration;
+import com.dfa.imdb_search_api.elastic.ingest.checkpoint.Checkpoint;
+import com.dfa.imdb_search_api.elastic.ingest.checkpoint.CheckpointStore;
+import com.dfa.imdb_search_api.elastic.ingest.delta.DeltaTracker;
+import com.dfa.imdb_search_api.elastic.ingest.delta.RangeDeltaTrackers;
+import com.dfa.imdb_search_api.elastic.ingest.job.IngestMetrics;
+import com.dfa.imdb_search_api.elastic.ingest.join.RatingTable;
+import com.dfa.imdb_search_api.elastic.ingest.rebuild.ShadowIndex;
+import com.dfa.imdb_search_api.elastic.ingest.snapshot.SnapshotReader;
+import com.dfa.imdb_search_api.elastic.ingest.snapshot.SnapshotWriter;
+import com.dfa.imdb_search_api.elastic.ingest.source.IDataSource;
+import com.dfa.imdb_search_api.elastic.ingest.tsv.ParallelTsvReader;
+import com.dfa.imdb_search_api.elastic.ingest.tsv.TsvRecordReader;
+import com.dfa.imdb_search_api.elastic.search.IndexGeneration;
+import com.dfa.imdb_search_api.elastic.search.InvalidSearchParamException;
+import com.dfa.imdb_search_api.elastic.search.SearchCache;
+import com.dfa.imdb_search_api.elastic.search.SearchCoalescer;
+import com.dfa.imdb_search_api.elastic.search.SearchCursor;
+import com.dfa.imdb_search_api.elastic.search.SearchKey;
+import com.dfa.imdb_search_api.elastic.search.SearchPage;
+import com.dfa.imdb_search_api.elastic.search.SearchProjection;
+import com.dfa.imdb_search_api.elastic.search.SearchTemplate;
 import com.dfa.imdb_search_api.elastic.util.IElasticUtil;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.google.common.base.Throwables;
-import com.google.common.collect.Iterators;
-import com.google.common.collect.UnmodifiableIterator;
+import jakarta.annotation.PostConstruct;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
-import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.admin.cluster.storedscripts.PutStoredScriptRequest;
+import org.elasticsearch.action.get.GetRequest;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.get.MultiGetRequest;
+import org.elasticsearch.action.get.MultiGetResponse;
+import org.elasticsearch.action.search.ClosePointInTimeRequest;
+import org.elasticsearch.action.search.OpenPointInTimeRequest;
 import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.client.RequestOptions;
 import org.elasticsearch.client.core.MainResponse;
 import org.elasticsearch.client.indices.CreateIndexRequest;
 import org.elasticsearch.client.indices.GetIndexRequest;
-import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.lucene.search.function.CombineFunction;
 import org.elasticsearch.common.lucene.search.function.FieldValueFactorFunction;
+import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.index.query.*;
 import org.elasticsearch.index.query.functionscore.FunctionScoreQueryBuilder;
 import org.elasticsearch.index.query.functionscore.ScoreFunctionBuilders;
+import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.script.ScriptType;
+import org.elasticsearch.script.mustache.SearchTemplateRequest;
 import org.elasticsearch.search.SearchHits;
 import org.elasticsearch.search.aggregations.AggregationBuilders;
 import org.elasticsearch.search.aggregations.bucket.filter.ParsedFilter;
 import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramInterval;
 import org.elasticsearch.search.aggregations.bucket.histogram.Histogram;
 import org.elasticsearch.search.aggregations.bucket.terms.Terms;
+import org.elasticsearch.search.builder.PointInTimeBuilder;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.sort.SortBuilders;
 import org.elasticsearch.search.suggest.SuggestBuilder;
 import org.elasticsearch.search.suggest.SuggestBuilders;
 import org.elasticsearch.search.suggest.phrase.PhraseSuggestion;
 import org.elasticsearch.search.suggest.term.TermSuggestionBuilder;
+import org.elasticsearch.xcontent.XContentFactory;
+import org.elasticsearch.xcontent.XContentType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 /**
  * Class containing helper methods to interact with the Elastic Client.
@@ -56,7 +103,41 @@ import java.util.*;
 @Singleton
 public class ElasticClientUtil implements IElasticUtil {
 
+    private static final Logger LOG = LoggerFactory.getLogger(ElasticClientUtil.class);
+
     public static final String TITLE_TERM_SUGGESTION_NAME = "title_term_suggestion";
+    public static final String INDEX_NAME = "imdb";
+
+    /**
+     * Below this number of hits the query is probably misspelled, so the response carries the suggested titles.
+     */
+    private static final int SUGGESTIONS_THRESHOLD = 30;
+
+    /**
+     * Smallest range worth being parsed on its own thread.
+     */
+    private static final long MIN_RANGE_SIZE = 16L * 1024 * 1024;
+
+    /**
+     * Time after which storing the search template is tried again, when ElasticSearch refused it.
+     */
+    private static final long TEMPLATE_RETRY_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    /**
+     * Maximum time a load waits, once stopped, for the bulks it still has in flight.
+     */
+    private static final long PIPELINE_STOP_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    /**
+     * Time the point in time of a deep pagination is kept between its pages.
+     */
+    private static final TimeValue CURSOR_KEEP_ALIVE = TimeValue.timeValueMinutes(1);
+
+    /**
+     * The term aggregations of the searches which don't include them. Being empty, it can be shared.
+     */
+    @SuppressWarnings("unchecked")
+    private static final Aggregation<TermBucket>[] NO_TERM_AGGREGATIONS = new Aggregation[0];
 
     @Inject
     ElasticClient client;
@@ -64,6 +145,38 @@ public class ElasticClientUtil implements IElasticUtil {
     @Inject
     ObjectMapper objectMapper;
 
+    @Inject
+    IngestConfiguration ingestConfiguration;
+
+    @Inject
+    SearchCache searchCache;
+
+    @Inject
+    SearchCoalescer searchCoalescer;
+
+    @Inject
+    IndexGeneration indexGeneration;
+
+    @Inject
+    SearchTemplate searchTemplate;
+
+    private final AtomicReference<CompletableFuture<Boolean>> storedSearchTemplate = new AtomicReference<>();
+
+    /**
+     * Reader of the titles, built once from the shared {@link ObjectMapper}, which is never reconfigured.
+     */
+    private ObjectReader filmReader;
+
+    private volatile long searchTemplateRetryAt;
+
+    /**
+     * Method to be called once the dependencies are injected.
+     * It builds the readers from the shared {@link ObjectMapper}, so they are not built again on every request.
+     */
+    @PostConstruct
+    void buildReaders() {
+        filmReader = objectMapper.readerFor(Film.class);
+    }
 
     /**
      * Use the client info method {@link org.elasticsearch.client.RestHighLevelClient#info(RequestOptions)}
@@ -77,43 +190,453 @@ public class ElasticClientUtil implements IElasticUtil {
     }
 
     /**
-     * This implementation reads the file {@link #readFile(InputStream)} and then, it divides the entry into chunks
-     * of several lines with the help of the Guava's Iterators library help. {@link Iterators#partition(Iterator, int)}
+     * This implementation reads the source {@link #readFile(InputStream)} line by line and, for each line, uses the
+     * {@link Command} received to read the fields of the line straight from the read buffer and encode the
+     * document straight into a {@link BulkBuffer}, without intermediate Strings.
      * <p>
-     * Following that, read each chunk and proceeds to create a object which is then deserialized into
-     * a Json and added to a {@link BulkRequest}. Next step is take the elastic search client and upload this bulk.
-     * For doing that, the method receive {@link Command} containing all the logic necessary in that case.
+     * Once the bulk reaches the configured size in bytes it is handed to a {@link BulkPipeline}, which sends it
+     * asynchronously while the parsing of the next bulk goes on. The pipeline keeps several bulks in flight, as many
+     * as the cluster can take, and blocks the parsing when that limit or the byte budget is exhausted.
+     * {@link IngestConfiguration}
      * <p>
-     * This is repeat for every chunk.
+     * If the source is an uncompressed file, it is parsed in parallel ranges instead, with a command per range.
      *
      * @throws IOException If the method can't deserialize the film object into JSON
      *                     or an error occur while loading the bulk data through the client.
      */
     @Override
-    public String loadIMDBMedia(String fileName, int chunkSize, Command command) throws IOException {
-        if (!client.getClient().indices().exists(new GetIndexRequest("imdb"), RequestOptions.DEFAULT))
-            createIndex();
+    public String loadIMDBMedia(IDataSource source, Supplier<Command> commands, IngestMetrics metrics)
+            throws IOException {
+        ensureIndex();
+        if (canParseInParallel(source))
+            return loadParallel(source, range -> commands.get(), metrics);
+        return load(source, commands.get(), null, null, metrics);
+    }
+
+    /**
+     * This implementation first loads all the ratings into a {@link RatingTable}, keyed by the numeric part of
+     * the title id. Then it streams the films through {@link #loadIMDBMedia(IDataSource, Supplier, IngestMetrics)} with a
+     * {@link JoinedFilmIndexCommand}, which completes each film with its rating and indexes the whole document
+     * at once.
+     * <p>
+     * Every title is sent, and the fingerprints of all of them are stored for the next delta load.
+     * <p>
+     * A resumable load stores the position of the films source in a {@link CheckpointStore} every time a bulk, and
+     * all the previous ones, are acknowledged. When resuming, the reading starts right after the stored position, as
+     * long as the checkpoint belongs to the same source. A resumed load doesn't see every title, so it keeps the
+     * fingerprints of the previous load instead of replacing them.
+     * <p>
+     * The position of the ranges parsed in parallel can't be checkpointed, so a resumable load reads the films
+     * sequentially, even from an uncompressed file. The rest of the loads parse an uncompressed films file in
+     * parallel ranges, see {@link #loadParallel(IDataSource, RangeCommandFactory, IngestMetrics)}.
+     *
+     * @throws IOException If an error occur while reading the sources or loading the bulk data through the client.
+     */
+    @Override
+    public String loadJoinedIMDBMedia(IDataSource films, IDataSource ratings, boolean resume,
+                                      IngestMetrics metrics) throws IOException {
+        var checkpoints = new CheckpointStore(Path.of(ingestConfiguration.getCheckpointPath()));
+        var resumeFrom = resume ? checkpoints.find(films) : null;
+        if (resumeFrom == null)
+            checkpoints.clear();
+
+        // Only the resumable loads save their progress, which rules out parsing the films in parallel
+        var result = loadJoined(films, ratings, false, resume ? checkpoints : null, resumeFrom, metrics);
+        checkpoints.clear();
+        return result;
+    }
+
+    /**
+     * Same as {@link #loadJoinedIMDBMedia(IDataSource, IDataSource, boolean, IngestMetrics)}, but comparing the fingerprint of
+     * each title with the one stored by the previous load, through a {@link DeltaTracker}. Only the new and changed
+     * titles are sent, and the ones no longer present are deleted.
+     * <p>
+     * The delta needs to see every title to find the deleted ones, so it is not checkpointed.
+     *
+     * @throws IOException If an error occur while reading the sources or loading the bulk data through the client.
+     */
+    @Override
+    public String loadDeltaIMDBMedia(IDataSource films, IDataSource ratings, IngestMetrics metrics)
+            throws IOException {
+        return loadJoined(films, ratings, true, null, null, metrics);
+    }
+
+    /**
+     * Helper method, loads the ratings in memory and indexes the films merged with them.
+     * The fingerprints file is only replaced if the whole load succeeds, and it was not resumed.
+     *
+     * @param delta       True to send only the titles that changed since the previous load.
+     * @param checkpoints The store where the progress is saved, or null.
+     * @param resumeFrom  The checkpoint to resume the load from, or null to start from the beginning.
+     */
+    private String loadJoined(IDataSource films, IDataSource ratings, boolean delta,
+                              CheckpointStore checkpoints, Checkpoint resumeFrom, IngestMetrics metrics)
+            throws IOException {
+        ensureIndex();
+        var ratingTable = loadRatings(ratings, metrics);
+
+        var fingerprints = Path.of(ingestConfiguration.getFingerprintPath());
+        // The ranges parsed in parallel can't be merged in order with the previous fingerprints, nor described by a
+        // single checkpoint, so the delta and the checkpointed loads read the films sequentially
+        if (!delta && checkpoints == null && canParseInParallel(films)) {
+            try (var trackers = new RangeDeltaTrackers(fingerprints)) {
+                var result = loadParallel(films, range ->
+                        new JoinedFilmIndexCommand(INDEX_NAME, ratingTable, trackers.forRange(range)), metrics);
+                trackers.commit();
+                return result;
+            }
+        }
+
+        try (var deltaTracker = new DeltaTracker(delta ? fingerprints : null, fingerprints)) {
+            var result = load(films, new JoinedFilmIndexCommand(INDEX_NAME, ratingTable, deltaTracker),
+                    checkpoints, resumeFrom, metrics);
+            if (resumeFrom == null)
+                deltaTracker.commit();
+            return result;
+        }
+    }
+
+    /**
+     * This implementation loads the titles, joined with their ratings, into a {@link ShadowIndex} while the searches
+     * keep using the current one. Once the load finishes, the new index is optimized for reads and the alias used by
+     * the searches is moved onto it atomically, and the previous index is deleted.
+     * <p>
+     * If anything fails before the swap, the new index is deleted and the current one is left untouched.
+     * As every title is sent, the fingerprints are refreshed for the next delta load. An uncompressed films file is
+     * parsed in parallel ranges.
+     *
+     * @throws IOException If an error occur while reading the sources or managing the indices through the client.
+     */
+    @Override
+    public String rebuildIMDBMedia(IDataSource films, IDataSource ratings, IngestMetrics metrics)
+            throws IOException {
+        var ratingTable = loadRatings(ratings, metrics);
+        return rebuild((index, trackers) -> {
+            if (canParseInParallel(films))
+                loadParallel(films, range ->
+                        new JoinedFilmIndexCommand(index, ratingTable, trackers.forRange(range)), metrics);
+            else
+                load(films, new JoinedFilmIndexCommand(index, ratingTable, trackers.forRange(0)), null, null, metrics);
+        }, metrics);
+    }
+
+    /**
+     * This implementation reads the films with a {@link JoinedFilmIndexCommand}, which merges them with their rating,
+     * and writes them to a {@link SnapshotWriter}. The previous snapshot is only replaced if the whole export
+     * succeeds.
+     *
+     * @throws IOException If an error occur while reading the sources or writing the snapshot.
+     */
+    @Override
+    public String exportSnapshot(IDataSource films, IDataSource ratings, Path snapshot, IngestMetrics metrics)
+            throws IOException {
+        var ratingTable = loadRatings(ratings, metrics);
+        var command = new JoinedFilmIndexCommand(INDEX_NAME, ratingTable, null);
+        metrics.setPhase("exporting " + films.getName());
+        metrics.startReading(films.size());
+
+        try (var writer = new SnapshotWriter(snapshot);
+             var reader = readFile(films.open(metrics.bytesReadCounter()))) {
+            // Skip the header of the file
+            reader.next();
+            while (reader.next()) {
+                if (Thread.currentThread().isInterrupted())
+                    throw new InterruptedIOException("Export of " + films.getName() + " interrupted");
+
+                metrics.rowRead();
+                writer.write(command.readFilm(reader.record()));
+            }
 
-        var reader = readFile(this.getClass().getClassLoader().getResourceAsStream(fileName));
-        var bulk = new BulkRequest();
+            metrics.setPhase("writing snapshot");
+            writer.commit();
+            return "Success exporting " + writer.count() + " titles to " + snapshot;
+        }
+    }
+
+    /**
+     * This implementation indexes every title of the snapshot, see
+     * {@link #loadSnapshot(Path, JoinedFilmIndexCommand, IngestMetrics)}, and refreshes the fingerprints for the next
+     * delta load.
+     *
+     * @throws IOException If an error occur while reading the snapshot or loading the bulk data through the client.
+     */
+    @Override
+    public String loadSnapshot(Path snapshot, IngestMetrics metrics) throws IOException {
+        ensureIndex();
+        try (var deltaTracker = new DeltaTracker(null, Path.of(ingestConfiguration.getFingerprintPath()))) {
+            var result = loadSnapshot(snapshot, new JoinedFilmIndexCommand(INDEX_NAME, null, deltaTracker), metrics);
+            deltaTracker.commit();
+            return result;
+        }
+    }
 
-        // Split the data stream in chunks in a lazy way.
-        UnmodifiableIterator<List<String>> linesList =
-                Iterators.partition(reader.lines().skip(1).iterator(), chunkSize);
+    /**
+     * This implementation loads the titles of the snapshot into a {@link ShadowIndex}, exactly like
+     * {@link #rebuildIMDBMedia(IDataSource, IDataSource, IngestMetrics)} does with the datasets.
+     *
+     * @throws IOException If an error occur while reading the snapshot or managing the indices through the client.
+     */
+    @Override
+    public String rebuildFromSnapshot(Path snapshot, IngestMetrics metrics) throws IOException {
+        return rebuild((index, trackers) ->
+                loadSnapshot(snapshot, new JoinedFilmIndexCommand(index, null, trackers.forRange(0)), metrics),
+                metrics);
+    }
 
-        while (linesList.hasNext()) {
-            List<String> list = linesList.next();
+    /**
+     * Helper method, creates a {@link ShadowIndex}, fills it with the loader and swaps the alias onto it.
+     * If anything fails before the swap, the new index is deleted and the current one is left untouched.
+     *
+     * @param loader Loads the titles into the new index, recording their fingerprints.
+     * @return A success message with the name of the new index.
+     */
+    private String rebuild(ShadowIndexLoader loader, IngestMetrics metrics) throws IOException {
+        var shadowIndex = ShadowIndex.create(client.getClient(), INDEX_NAME, readIndexSource());
+
+        var fingerprints = Path.of(ingestConfiguration.getFingerprintPath());
+        boolean swapped = false;
+        try (var trackers = new RangeDeltaTrackers(fingerprints)) {
+            loader.load(shadowIndex.getName(), trackers);
+            metrics.setPhase("optimizing");
+            shadowIndex.optimizeForReads();
+            metrics.setPhase("swapping alias");
+            var previous = shadowIndex.swapAlias();
+            swapped = true;
+            indexGeneration.bump();
+            trackers.commit();
+            shadowIndex.deletePrevious(previous);
+        } catch (IOException | RuntimeException e) {
+            // Once swapped the new index is the one being searched, it must be kept
+            if (!swapped)
+                deleteQuietly(shadowIndex, e);
+            throw e;
+        }
 
-            for (String line : list) command.execute(line, bulk, objectMapper);
+        return "Success rebuilding " + shadowIndex.getName();
+    }
 
-            client.getClient().bulk(bulk, RequestOptions.DEFAULT);
-            bulk = new BulkRequest();
+    /**
+     * Loads the titles into the index being rebuilt.
+     */
+    @FunctionalInterface
+    private interface ShadowIndexLoader {
+        void load(String index, RangeDeltaTrackers trackers) throws IOException;
+    }
+
+    /**
+     * Helper method, discards the index of a failed rebuild, keeping the original exception.
+     */
+    private void deleteQuietly(ShadowIndex shadowIndex, Exception cause) {
+        try {
+            shadowIndex.delete();
+        } catch (IOException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    /**
+     * Helper method, reads the ratings source into a {@link RatingTable}.
+     *
+     * @throws IOException If an error occur while reading the source.
+     */
+    private RatingTable loadRatings(IDataSource ratings, IngestMetrics metrics) throws IOException {
+        metrics.setPhase("loading ratings");
+        try (var reader = readFile(ratings.open())) {
+            return RatingTable.load(reader);
+        }
+    }
+
+    /**
+     * Helper method, reads the source {@link #readFile(InputStream)} line by line and, for each line, uses the
+     * {@link Command} received to add the operations of the line to a {@link BulkBuffer}, which is handed to a
+     * {@link BulkPipeline} once it reaches the size in bytes of the bulks.
+     * <p>
+     * Each bulk is sent along with the position of the source after its last line, which the pipeline saves in the
+     * checkpoint store once the bulk is acknowledged.
+     * <p>
+     * The rows and bytes read are counted in the metrics. An interruption of the thread, which is how the ingest
+     * jobs are cancelled, stops the load at the next line. Whatever the outcome, the load doesn't return until the
+     * bulks in flight are answered, see {@link #stopPipeline(BulkPipeline)}.
+     *
+     * @param checkpoints The store where the progress is saved, or null.
+     * @param resumeFrom  The checkpoint to resume the load from, or null to start from the beginning.
+     * @param metrics     The metrics of the load.
+     */
+    private String load(IDataSource source, Command command, CheckpointStore checkpoints,
+                        Checkpoint resumeFrom, IngestMetrics metrics) throws IOException {
+        var pipeline = new BulkPipeline(client.getClient(), ingestConfiguration, checkpoints, metrics);
+        long sourceSize = source.size();
+        metrics.setPhase("indexing " + source.getName());
+        metrics.startReading(sourceSize);
+
+        try (var reader = readFile(source.open(metrics.bytesReadCounter()))) {
+            var bulk = pipeline.newBulk();
+            if (resumeFrom != null)
+                reader.seek(resumeFrom.getByteOffset(), resumeFrom.getLineNumber());
+            else
+                // Skip the header of the file
+                reader.next();
+
+            while (reader.next()) {
+                if (Thread.currentThread().isInterrupted())
+                    throw new InterruptedIOException("Load of " + source.getName() + " interrupted");
+
+                metrics.rowRead();
+                command.execute(reader.record(), bulk);
+
+                if (pipeline.isFull(bulk)) {
+                    pipeline.submit(bulk, getCheckpoint(source, sourceSize, reader, bulk));
+                    bulk = pipeline.newBulk();
+                }
+            }
+
+            command.finish(bulk);
+            pipeline.submit(bulk, getCheckpoint(source, sourceSize, reader, bulk));
+            pipeline.awaitCompletion();
+        } finally {
+            stopPipeline(pipeline);
+        }
+
+        return "Success loading data";
+    }
+
+    /**
+     * Helper method, same as {@link #load(IDataSource, Command, CheckpointStore, Checkpoint, IngestMetrics)}, but
+     * reading the titles from a snapshot through a {@link SnapshotReader}, which decodes them without parsing any
+     * text. The titles come already merged with their ratings, so they are handed straight to the command.
+     *
+     * @param command The command indexing the titles, without rating table.
+     * @param metrics The metrics of the load.
+     */
+    private String loadSnapshot(Path snapshot, JoinedFilmIndexCommand command, IngestMetrics metrics)
+            throws IOException {
+        var pipeline = new BulkPipeline(client.getClient(), ingestConfiguration, null, metrics);
+        try (var reader = SnapshotReader.open(snapshot, metrics.bytesReadCounter())) {
+            metrics.setPhase("indexing snapshot " + snapshot);
+            metrics.startReading(reader.size());
+
+            var bulk = pipeline.newBulk();
+            Film film;
+            while ((film = reader.next()) != null) {
+                if (Thread.currentThread().isInterrupted())
+                    throw new InterruptedIOException("Load of " + snapshot + " interrupted");
+
+                metrics.rowRead();
+                command.index(film, reader.idNumber(), bulk);
+
+                if (pipeline.isFull(bulk)) {
+                    pipeline.submit(bulk);
+                    bulk = pipeline.newBulk();
+                }
+            }
+
+            command.finish(bulk);
+            pipeline.submit(bulk);
+            pipeline.awaitCompletion();
+        } finally {
+            stopPipeline(pipeline);
+        }
+
+        return "Success loading data";
+    }
+
+    /**
+     * Helper method, same as {@link #load(IDataSource, Command, CheckpointStore, Checkpoint, IngestMetrics)}, but
+     * splitting the source into ranges which are parsed in parallel by a {@link ParallelTsvReader}. Each range gets
+     * its own {@link Command} and fills its own bulks, and all of them share the same {@link BulkPipeline}.
+     * <p>
+     * The position of a load read in parallel can't be described by a single offset, so it is not checkpointed.
+     *
+     * @param commands Creates the command of each range.
+     * @param metrics  The metrics of the load.
+     */
+    private String loadParallel(IDataSource source, RangeCommandFactory commands, IngestMetrics metrics)
+            throws IOException {
+        var pipeline = new BulkPipeline(client.getClient(), ingestConfiguration, null, metrics);
+        var reader = new ParallelTsvReader(source.uncompressedFile(), getParseThreads(), MIN_RANGE_SIZE,
+                ingestConfiguration.getReadBufferSize());
+        metrics.setPhase("indexing " + source.getName() + " in parallel");
+        metrics.startReading(source.size());
+
+        try {
+            reader.read((range, rangeReader) -> {
+                var command = commands.create(range);
+                var bulk = pipeline.newBulk();
+                while (rangeReader.next()) {
+                    metrics.rowRead();
+                    command.execute(rangeReader.record(), bulk);
+
+                    if (pipeline.isFull(bulk)) {
+                        pipeline.submit(bulk);
+                        bulk = pipeline.newBulk();
+                    }
+                }
+
+                command.finish(bulk);
+                pipeline.submit(bulk);
+            }, metrics.bytesReadCounter());
+            pipeline.awaitCompletion();
+        } finally {
+            stopPipeline(pipeline);
         }
 
-        reader.close();
         return "Success loading data";
     }
 
+    /**
+     * Helper method, stops the pipeline of a load which is returning, whatever its outcome. A failed or cancelled
+     * load drops its pending retries and checkpoints, and waits a bounded time for the bulks it still has in flight,
+     * so none of its writes lands while the next load of the index is already running.
+     */
+    private void stopPipeline(BulkPipeline pipeline) {
+        pipeline.abort();
+        if (!pipeline.awaitTermination(PIPELINE_STOP_NANOS, TimeUnit.NANOSECONDS))
+            LOG.warn("Some bulks were still in flight {} seconds after their load stopped",
+                    TimeUnit.NANOSECONDS.toSeconds(PIPELINE_STOP_NANOS));
+    }
+
+    /**
+     * Helper method, checks if the source is an uncompressed file and there is more than one thread to parse it.
+     */
+    private boolean canParseInParallel(IDataSource source) {
+        return source.uncompressedFile() != null && getParseThreads() > 1;
+    }
+
+    private int getParseThreads() {
+        int threads = ingestConfiguration.getParseThreads();
+        return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Creates the command of a range of the source, as the commands can keep state which is specific to a range.
+     */
+    @FunctionalInterface
+    private interface RangeCommandFactory {
+        Command create(int range) throws IOException;
+    }
+
+    /**
+     * Helper method, builds the checkpoint of the source right after the last line added to the bulk.
+     *
+     * @return The checkpoint, or null if the bulk is empty.
+     */
+    private Checkpoint getCheckpoint(IDataSource source, long sourceSize, TsvRecordReader reader, BulkBuffer bulk) {
+        if (bulk.numberOfActions() == 0)
+            return null;
+        return new Checkpoint(source.getName(), sourceSize, reader.lineNumber(), reader.bytePosition(),
+                bulk.lastId());
+    }
+
+    /**
+     * Helper method, creates the index if there is no index or alias with its name yet.
+     *
+     * @throws IOException If an error occur while checking or creating the index.
+     */
+    private void ensureIndex() throws IOException {
+        if (!client.getClient().indices().exists(new GetIndexRequest(INDEX_NAME), RequestOptions.DEFAULT))
+            createIndex();
+    }
+
     /**
      * Helper method, creates the index in elasticsearch using the IMDB Index json config file.
      * {<a href="file:../../../resources/mappingIMDBIndex.json"}
@@ -121,24 +644,32 @@ public class ElasticClientUtil implements IElasticUtil {
      * @throws IOException If an error occur while reading the config file.
      */
     private void createIndex() throws IOException {
-        CreateIndexRequest create = new CreateIndexRequest("imdb");
-
-        var json = Objects.requireNonNull(this.getClass().getClassLoader()
-                .getResourceAsStream("mappingIMDBIndex.json"), "mapping JSON not found");
+        CreateIndexRequest create = new CreateIndexRequest(INDEX_NAME);
 
-        Map<String, Object> map = objectMapper.readValue(json, Map.class);
-        json.close();
-
-        create.source(map);
+        create.source(readIndexSource());
 
         client.getClient().indices().create(create, RequestOptions.DEFAULT);
     }
 
+    /**
+     * Helper method, reads the mappings and settings of the index from the IMDB Index json config file.
+     *
+     * @return The content of the file as a Map.
+     * @throws IOException If an error occur while reading the config file.
+     */
+    private Map<String, Object> readIndexSource() throws IOException {
+        try (var json = Objects.requireNonNull(this.getClass().getClassLoader()
+                .getResourceAsStream("mappingIMDBIndex.json"), "mapping JSON not found")) {
+            return objectMapper.readValue(json, Map.class);
+        }
+    }
+
     /**
      * This implementation use the {@link ElasticClient} API to look for the media.
      * It creates a {@link SearchRequest}, and using a {@link MultiMatchQueryBuilder}, creates the query.
      * <p>
-     * Once the response is obtained, is processed by a private helper method {@link #getQueryResponse(SearchRequest)} )}
+     * Once the response is obtained, is processed by a private helper method
+     * {@link #getQueryResponse(SearchResponse, SearchProjection, String)}
      * which transform the hits into {@link Film} objects.
      *
      * @throws IOException If the method can't serialize the hit into a Film JSON or an error occur while searching
@@ -226,54 +757,310 @@ public class ElasticClientUtil implements IElasticUtil {
      * This implementation use the {@link ElasticClient} API to look for the media.
      * It creates a {@link SearchRequest}, and using a {@link MatchQueryBuilder}, creates the query.
      * <p>
-     * Once the response is obtained, is processed by a private helper method {@link #getQueryResponse(SearchRequest)} )}
+     * Once the response is obtained, is processed by a private helper method
+     * {@link #getQueryResponse(SearchResponse, SearchProjection, String)}
      * which transform the hits into {@link Film} objects.
+     * <p>
+     * The phrase suggester runs within the same request, so the titles suggested for a misspelled query don't cost a
+     * second search. They are only returned if there are less than {@link #SUGGESTIONS_THRESHOLD} hits.
+     * <p>
+     * The results are kept in a {@link SearchCache}, keyed by the canonical form of the params, until the index
+     * changes. The identical searches which miss the cache at the same time share a single search, see
+     * {@link SearchCoalescer}.
+     * <p>
+     * The "include" and "fields" params select the sections of the response and the fields of the titles, and the
+     * rest of them are not asked to ElasticSearch, see {@link SearchProjection}.
+     * <p>
+     * The "size" and "from" params ask for a shallow page, and the "cursor" param for a deep one, see
+     * {@link SearchPage}. The deep pages are not cached, as each one is asked once.
      *
      * @param params An String array containing the params of the search
-     * @throws IOException If the method can't serialize the hit into a Film JSON or an error occur while searching
-     *                     the query through the client.
+     * @throws IOException                 If the method can't serialize the hit into a Film JSON or an error occur
+     *                                     while searching the query through the client.
+     * @throws InvalidSearchParamException If an included section or a field is not known, or the page is not valid.
      */
     @Override
     public QueryResponse searchByParams(Map<String, String> params) throws IOException {
-        var request = new SearchRequest("imdb");
+        return await(searchByParamsAsync(params));
+    }
+
+    /**
+     * This implementation does the same search as {@link #searchByParams(Map)}, through the asynchronous API of the
+     * {@link ElasticClient}, so no thread waits for ElasticSearch.
+     */
+    @Override
+    public CompletableFuture<QueryResponse> searchByParamsAsync(Map<String, String> params) {
+        var key = SearchKey.of(params);
+        SearchPage page;
+        try {
+            // The unknown sections and fields, and the invalid pages, are refused before anything is searched or cached
+            SearchProjection.of(key.getParams());
+            page = SearchPage.of(key.getParams());
+        } catch (InvalidSearchParamException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (page.isCursor())
+            return searchByCursor(key.getParams(), page);
+        return searchCache.get(key, canonical -> searchCoalescer.get(key, this::searchByParamsWithoutCache));
+    }
+
+    /**
+     * Helper method, sends the search to ElasticSearch, skipping the cache.
+     * <p>
+     * The search is sent through the stored {@link SearchTemplate}, so only its params travel with the request. If
+     * the template can't be stored, or it is missing from the cluster, the whole query is sent instead.
+     *
+     * @param params The params of the search, in their canonical form.
+     * @return The result of the search, completed exceptionally if an error occur while searching the query through
+     * the client.
+     */
+    private CompletableFuture<QueryResponse> searchByParamsWithoutCache(Map<String, String> params) {
+        return storeSearchTemplate().thenCompose(stored -> {
+            if (!stored)
+                return searchByParamsQuery(params);
+
+            var request = new SearchTemplateRequest(new SearchRequest(INDEX_NAME));
+            request.setScriptType(ScriptType.STORED);
+            request.setScript(searchTemplate.getId());
+            request.setScriptParams(searchTemplate.params(params, needSuggestions(params)));
+
+            var search = new CompletableFuture<SearchResponse>();
+            client.getClient().searchTemplateAsync(request, RequestOptions.DEFAULT, ActionListener.wrap(
+                    response -> search.complete(response.getResponse()), search::completeExceptionally));
+            return getQueryResponse(search, SearchProjection.of(params)).exceptionallyCompose(error -> {
+                var cause = error instanceof CompletionException ? error.getCause() : error;
+                if (cause instanceof ElasticsearchStatusException statusException
+                        && statusException.status() == RestStatus.NOT_FOUND) {
+                    // The template is gone, like when the cluster is restored, so it is stored again by the next search
+                    storedSearchTemplate.set(null);
+                    return searchByParamsQuery(params);
+                }
+                return CompletableFuture.failedFuture(cause);
+            });
+        });
+    }
+
+    /**
+     * Helper method, stores the {@link SearchTemplate} in ElasticSearch the first time it is needed.
+     *
+     * @return True once the template is stored, or false if ElasticSearch refused it, in which case it is tried
+     * again after {@link #TEMPLATE_RETRY_NANOS}.
+     */
+    private CompletableFuture<Boolean> storeSearchTemplate() {
+        var stored = storedSearchTemplate.get();
+        if (stored != null && (!stored.isDone() || stored.join() || System.nanoTime() < searchTemplateRetryAt))
+            return stored;
+
+        var attempt = new CompletableFuture<Boolean>();
+        if (!storedSearchTemplate.compareAndSet(stored, attempt))
+            return storedSearchTemplate.get();
+
+        try (var script = XContentFactory.jsonBuilder()) {
+            script.startObject().startObject("script")
+                    .field("lang", "mustache")
+                    .field("source", searchTemplate.getSource())
+                    .endObject().endObject();
+            var request = new PutStoredScriptRequest().id(searchTemplate.getId())
+                    .content(BytesReference.bytes(script), XContentType.JSON);
+            client.getClient().putScriptAsync(request, RequestOptions.DEFAULT, ActionListener.wrap(
+                    response -> attempt.complete(true),
+                    e -> templateRefused(attempt, e)));
+        } catch (IOException | RuntimeException e) {
+            templateRefused(attempt, e);
+        }
+        return attempt;
+    }
+
+    /**
+     * Helper method, marks the attempt to store the search template as failed, so the searches send the whole
+     * query until the next attempt.
+     */
+    private void templateRefused(CompletableFuture<Boolean> attempt, Exception e) {
+        LOG.warn("Error storing the search template {}, the searches will send the whole query",
+                searchTemplate.getId(), e);
+        searchTemplateRetryAt = System.nanoTime() + TEMPLATE_RETRY_NANOS;
+        attempt.complete(false);
+    }
+
+    /**
+     * Helper method, builds the whole query of the search by params and sends it to ElasticSearch.
+     *
+     * @param params The params of the search, in their canonical form.
+     * @return The result of the search, completed exceptionally if an error occur while searching the query through
+     * the client.
+     */
+    private CompletableFuture<QueryResponse> searchByParamsQuery(Map<String, String> params) {
+        var request = new SearchRequest(INDEX_NAME);
 
         BoolQueryBuilder queryBuilder = new BoolQueryBuilder();
         buildBoolQuery(params, queryBuilder);
 
-        var searchResponse = getQueryResponse(request.source(
-                getSearchSourceBuilder(queryBuilder, params)));
+        request.source(getSearchSourceBuilder(queryBuilder, params, true, needSuggestions(params)));
+        return getQueryResponse(request, SearchProjection.of(params));
+    }
+
+    /**
+     * Helper method, searches a page of a deep pagination.
+     * <p>
+     * The pages are searched in a point in time, opened by the first page, so they don't change while the client goes
+     * through them. They are sorted by their score, with the shard and document of each title as the tiebreaker,
+     * and each page is searched after the last title of the previous one, so no page has to collect the titles
+     * before it. The facets and the suggestions are the same for every page, so only the first page asks for them.
+     *
+     * @param params The params of the search, in their canonical form.
+     * @param page   The page of the search.
+     * @return The result of the search, with the cursor of the next page if there is one, completed exceptionally
+     * if an error occur while searching the query through the client, or with an {@link InvalidSearchParamException}
+     * if the point in time of the cursor has expired.
+     */
+    private CompletableFuture<QueryResponse> searchByCursor(Map<String, String> params, SearchPage page) {
+        var projection = SearchProjection.of(params);
+        boolean first = page.isFirstCursor();
+        var pointInTime = first ? openPointInTime()
+                : CompletableFuture.completedFuture(page.getAfter().getPointInTime());
+
+        return pointInTime.thenCompose(id -> {
+            BoolQueryBuilder queryBuilder = new BoolQueryBuilder();
+            buildBoolQuery(params, queryBuilder);
+            var sourceBuilder = getSearchSourceBuilder(queryBuilder, params, first, first && needSuggestions(params))
+                    .pointInTimeBuilder(new PointInTimeBuilder(id).setKeepAlive(CURSOR_KEEP_ALIVE))
+                    .sort(SortBuilders.scoreSort())
+                    .sort(SortBuilders.pitTiebreaker());
+            if (!first)
+                sourceBuilder.searchAfter(page.getAfter().getAfter());
+
+            // The request has no index, as it is the one of the point in time
+            return searchAsync(new SearchRequest().source(sourceBuilder))
+                    .thenApply(response -> getQueryResponse(response, projection, getNextCursor(response, page)))
+                    .exceptionallyCompose(error -> {
+                        var cause = error instanceof CompletionException ? error.getCause() : error;
+                        if (first)
+                            closePointInTime(id);
+                        else if (cause instanceof ElasticsearchStatusException statusException
+                                && statusException.status() == RestStatus.NOT_FOUND)
+                            cause = new InvalidSearchParamException("The cursor has expired, the pages must be asked "
+                                    + "again from the first one", cause);
+                        return CompletableFuture.failedFuture(cause);
+                    });
+        });
+    }
+
+    /**
+     * Helper method, opens the point in time of a deep pagination.
+     *
+     * @return The id of the point in time, completed exceptionally if it can't be opened.
+     */
+    private CompletableFuture<String> openPointInTime() {
+        var opened = new CompletableFuture<String>();
+        client.getClient().openPointInTimeAsync(new OpenPointInTimeRequest(INDEX_NAME).keepAlive(CURSOR_KEEP_ALIVE),
+                RequestOptions.DEFAULT, ActionListener.wrap(
+                        response -> opened.complete(response.getPointInTimeId()), opened::completeExceptionally));
+        return opened;
+    }
 
-        //If no results, ask for suggestions
-        if (searchResponse.getTotal() < 30)
-            searchResponse = getQueryResponse(request.source(
-                    getSearchSourceBuilder(queryBuilder, params, true, true)));
+    /**
+     * Helper method, closes the point in time of a deep pagination once its last page is searched, instead of
+     * waiting for it to expire. A point in time which can't be closed expires anyway.
+     */
+    private void closePointInTime(String id) {
+        client.getClient().closePointInTimeAsync(new ClosePointInTimeRequest(id), RequestOptions.DEFAULT,
+                ActionListener.wrap(response -> {
+                }, e -> LOG.debug("Error closing the point in time {}", id, e)));
+    }
 
-        return searchResponse;
+    /**
+     * Helper method, builds the cursor of the page after the one searched.
+     *
+     * @return The token of the cursor, or null if the page searched is the last one.
+     */
+    private String getNextCursor(SearchResponse response, SearchPage page) {
+        var hits = response.getHits().getHits();
+        if (hits.length == 0 || hits.length < page.getSize()) {
+            closePointInTime(response.pointInTimeId());
+            return null;
+        }
+        // The id of the point in time may change between pages, the last one is always used
+        return new SearchCursor(response.pointInTimeId(), hits[hits.length - 1].getSortValues()).encode();
     }
 
     /**
-     * This implementation use the {@link ElasticClient} API to look for the title
+     * Helper method, the suggestions are asked along with the search, so a query with few results doesn't need a
+     * second one. There is nothing to suggest without a query, nor if the suggestions are not included.
+     */
+    private static boolean needSuggestions(Map<String, String> params) {
+        return !params.getOrDefault("query", "").isBlank() && SearchProjection.of(params).isSuggestions();
+    }
+
+    /**
+     * This implementation use the {@link ElasticClient} API to get the title
      * specified by the id passed by params.
-     * It creates a {@link SearchRequest}, and using a {@link QueryBuilders#matchPhraseQuery(String, Object),
-     * passing as params the name of the field and the id received by params.
+     * It creates a {@link GetRequest} for the document with that id, as the titles are indexed with their id as the
+     * id of the document. The get is realtime, so it doesn't need any search nor a refresh of the index.
      * <p>
-     * Once the response is obtained, is processed by a private helper method {@link #parseHitToFilms(SearchHits)}
-     * which transform the hits, just one in this case, into {@link Film} object, which is then returned.
+     * Once the response is obtained, its source is transformed into a {@link Film} object, which is then returned.
      *
-     * @throws IOException If the method can't serialize the hit into a Film JSON or an error occur while searching
-     *                     the query through the client.
+     * @throws IOException If the method can't serialize the source into a Film JSON or an error occur while getting
+     *                     the title through the client.
      */
     @Override
     public Film searchByTitleID(String id) throws IOException {
-        var request = new SearchRequest("imdb");
+        return await(searchByTitleIDAsync(id));
+    }
 
-        var query = QueryBuilders.matchPhraseQuery("id", id);
+    /**
+     * This implementation does the same search as {@link #searchByTitleID(String)}, through the asynchronous API of
+     * the {@link ElasticClient}, so no thread waits for ElasticSearch.
+     */
+    @Override
+    public CompletableFuture<Film> searchByTitleIDAsync(String id) {
+        var future = new CompletableFuture<GetResponse>();
+        client.getClient().getAsync(new GetRequest(INDEX_NAME, id), RequestOptions.DEFAULT,
+                ActionListener.wrap(future::complete, future::completeExceptionally));
 
-        request.source(getSearchSourceBuilder(query, false));
+        return future.thenApply(response -> response.isExists() ? parseFilm(response.getSourceAsString()) : null);
+    }
 
-        var response = client.getClient().search(request, RequestOptions.DEFAULT);
+    /**
+     * This implementation use the {@link ElasticClient} API to get all the titles at once through a
+     * {@link MultiGetRequest}, in the order of the ids, leaving out the ones that don't exist.
+     *
+     * @throws IOException If the method can't serialize a source into a Film JSON or an error occur while getting
+     *                     any of the titles through the client.
+     */
+    @Override
+    public Film[] searchByTitleIDs(Collection<String> ids) throws IOException {
+        return await(searchByTitleIDsAsync(ids));
+    }
 
-        return parseHitToFilms(response.getHits())[0];
+    /**
+     * This implementation does the same multi get as {@link #searchByTitleIDs(Collection)}, through the asynchronous
+     * API of the {@link ElasticClient}, so no thread waits for ElasticSearch.
+     */
+    @Override
+    public CompletableFuture<Film[]> searchByTitleIDsAsync(Collection<String> ids) {
+        if (ids.isEmpty())
+            return CompletableFuture.completedFuture(new Film[0]);
+
+        var request = new MultiGetRequest();
+        for (var id : ids)
+            request.add(INDEX_NAME, id);
+
+        var future = new CompletableFuture<MultiGetResponse>();
+        client.getClient().mgetAsync(request, RequestOptions.DEFAULT,
+                ActionListener.wrap(future::complete, future::completeExceptionally));
+
+        return future.thenApply(response -> {
+            List<Film> films = new ArrayList<>();
+            for (var item : response.getResponses()) {
+                // A failed item is an error of the cluster, unlike a missing title
+                if (item.isFailed())
+                    throw new CompletionException(new IOException(
+                            "Error getting the title " + item.getId(), item.getFailure().getFailure()));
+                if (item.getResponse().isExists())
+                    films.add(parseFilm(item.getResponse().getSourceAsString()));
+            }
+            return films.toArray(Film[]::new);
+        });
     }
 
     /**
@@ -326,6 +1113,9 @@ public class ElasticClientUtil implements IElasticUtil {
     /**
      * Helper method, builds a {@link SearchSourceBuilder} from a {@link QueryBuilder} passed by params and then
      * configure it.
+     * <p>
+     * Only the parts of the response included by the params are asked, see {@link SearchProjection}. Without the
+     * items no hit is fetched, which also lets ElasticSearch serve the search from its shard request cache.
      *
      * @param queryBuilder     The QueryBuilder we want to transform into a SearchSourceBuilder.
      * @param params           The params received by the controller.
@@ -336,10 +1126,22 @@ public class ElasticClientUtil implements IElasticUtil {
             , boolean needAggregations, boolean needSuggestions) {
         var sourceBuilder = new SearchSourceBuilder();
         var filters = params.getOrDefault("filters", "").split(",");
-
-        sourceBuilder.size(10);
-        if (needAggregations)
+        var projection = SearchProjection.of(params);
+
+        var page = SearchPage.of(params);
+
+        if (projection.isItems()) {
+            sourceBuilder.size(page.getSize());
+            if (page.getFrom() > 0)
+                sourceBuilder.from(page.getFrom());
+            if (projection.getFields() != null)
+                sourceBuilder.fetchSource(projection.getSourceIncludes(), null);
+        } else {
+            sourceBuilder.size(0).fetchSource(false);
+        }
+        if (needAggregations && projection.isAggregations())
             addAggregations(sourceBuilder, filters);
+        // The post filter is kept without the items too, as the total counts the hits left by it
         addPostFilters(filters, sourceBuilder);
         if (needSuggestions)
             sourceBuilder.suggest(getSuggestBuilder(params.get("query")));
@@ -362,38 +1164,6 @@ public class ElasticClientUtil implements IElasticUtil {
         return suggestBuilder;
     }
 
-    /**
-     * Implementation of default parameter method using method overloading.
-     *
-     * @param queryBuilder The QueryBuilder we want to transform into a SearchSourceBuilder.
-     * @return The SearchSourceBuilder properly configured.
-     */
-    private SearchSourceBuilder getSearchSourceBuilder(QueryBuilder queryBuilder) {
-        return this.getSearchSourceBuilder(queryBuilder, Collections.emptyMap(), true, false);
-    }
-
-    /**
-     * Implementation of default parameter method using method overloading.
-     *
-     * @param queryBuilder The QueryBuilder we want to transform into a SearchSourceBuilder.
-     * @param params       The params received from the controller.
-     * @return The SearchSourceBuilder properly configured.
-     */
-    private SearchSourceBuilder getSearchSourceBuilder(QueryBuilder queryBuilder, Map<String, String> params) {
-        return this.getSearchSourceBuilder(queryBuilder, params, true, false);
-    }
-
-    /**
-     * Implementation of default parameter method using method overloading.
-     *
-     * @param queryBuilder     The QueryBuilder we want to transform into a SearchSourceBuilder.
-     * @param needAggregations A boolean value defining if there is a need for aggregations or not.
-     * @return The SearchSourceBuilder properly configured.
-     */
-    private SearchSourceBuilder getSearchSourceBuilder(QueryBuilder queryBuilder, boolean needAggregations) {
-        return this.getSearchSourceBuilder(queryBuilder, Collections.emptyMap(), needAggregations, false);
-    }
-
     /**
      * Helper method which adds post filters to the sourceBuilder
      *
@@ -507,17 +1277,80 @@ public class ElasticClientUtil implements IElasticUtil {
      * Helper method, do the search request using the {@link ElasticClient} and transform the response into the
      * normalized response POJO {@link QueryResponse}.
      *
+     * @param request    The pre-built SearchRequest that is gonna be called.
+     * @param projection The parts of the response asked by the search.
+     * @return A QueryResponse POJO with the corresponding data retrieved from the response, completed exceptionally
+     * if there is a problem while performing the search request.
+     */
+    private CompletableFuture<QueryResponse> getQueryResponse(SearchRequest request, SearchProjection projection) {
+        return getQueryResponse(searchAsync(request), projection);
+    }
+
+    /**
+     * Helper method, transform the response of a search in flight into the normalized response POJO
+     * {@link QueryResponse}.
+     *
+     * @param search     The response of the search, once it arrives.
+     * @param projection The parts of the response asked by the search.
+     * @return A QueryResponse POJO with the corresponding data retrieved from the response, completed exceptionally
+     * if there is a problem while performing the search request.
+     */
+    private CompletableFuture<QueryResponse> getQueryResponse(CompletableFuture<SearchResponse> search,
+                                                              SearchProjection projection) {
+        return search.thenApply(response -> getQueryResponse(response, projection, null));
+    }
+
+    /**
+     * Helper method, sends the search request through the asynchronous API of the {@link ElasticClient}.
+     * The future is completed by the I/O threads of the client once the response arrives.
+     *
      * @param request The pre-built SearchRequest that is gonna be called.
-     * @return A QueryResponse POJO with the corresponding data retrieved from the response.
-     * @throws IOException If there is a problem while performing the search request.
+     * @return The response, completed exceptionally if the search fails.
+     */
+    private CompletableFuture<SearchResponse> searchAsync(SearchRequest request) {
+        var future = new CompletableFuture<SearchResponse>();
+        client.getClient().searchAsync(request, RequestOptions.DEFAULT,
+                ActionListener.wrap(future::complete, future::completeExceptionally));
+        return future;
+    }
+
+    /**
+     * Helper method, waits for an asynchronous search, throwing its error as the synchronous API of the client would.
+     *
+     * @throws IOException If the search failed or the wait is interrupted.
      */
-    private QueryResponse getQueryResponse(SearchRequest request) throws IOException {
+    private static <T> T await(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Search interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException)
+                throw ioException;
+            if (e.getCause() instanceof RuntimeException runtimeException)
+                throw runtimeException;
+            throw new IOException("Error while searching", e.getCause());
+        }
+    }
 
-        var response = client.getClient().search(request, RequestOptions.DEFAULT);
+    /**
+     * Helper method, transform the response of a search into the normalized response POJO {@link QueryResponse}.
+     * The suggestions of the response are left out if there are enough hits, see {@link #SUGGESTIONS_THRESHOLD}.
+     * The sections not included by the search are left empty.
+     *
+     * @param response   The response of ElasticSearch.
+     * @param projection The parts of the response asked by the search.
+     * @param cursor     The cursor of the next page of a deep pagination, or null if there is none.
+     * @return A QueryResponse POJO with the corresponding data retrieved from the response.
+     */
+    private QueryResponse getQueryResponse(SearchResponse response, SearchProjection projection, String cursor) {
         long total = response.getHits().getTotalHits().value;
-        Film[] films = parseHitToFilms(response.getHits());
+        FilmSource[] sources = getHitSources(response.getHits(), projection.getFields());
 
-        objectMapper.configure(SerializationFeature.WRITE_SINGLE_ELEM_ARRAYS_UNWRAPPED, true);
+        if (response.getAggregations() == null)
+            return new QueryResponse(total, sources, NO_TERM_AGGREGATIONS, null, getSuggestion(response, total),
+                    cursor);
 
         Terms genres = ((ParsedFilter) response.getAggregations().get("genres_filter")).getAggregations().get("genres");
         Terms types = ((ParsedFilter) response.getAggregations().get("types_filter")).getAggregations().get("types");
@@ -531,14 +1364,19 @@ public class ElasticClientUtil implements IElasticUtil {
         termAggregations[0] = getTermAggregationPojo(genres.getBuckets(), "genres");
         termAggregations[1] = getTermAggregationPojo(types.getBuckets(), "types");
 
-        JsonNode suggestionsNode = new JsonNodeFactory(false).missingNode();
-
-        if (response.getSuggest() != null) {
-            PhraseSuggestion suggestion = response.getSuggest().getSuggestion(TITLE_TERM_SUGGESTION_NAME);
-            suggestionsNode = objectMapper.readTree(Strings.toString(suggestion));
-        }
+        return new QueryResponse(total, sources, termAggregations, dateHistogramAggregation,
+                getSuggestion(response, total), cursor);
+    }
 
-        return new QueryResponse(total, films, termAggregations, dateHistogramAggregation, suggestionsNode);
+    /**
+     * Helper method, the suggestion is kept as it is, and written straight into the response.
+     *
+     * @return The suggestion of the response, or null if there is none or there are enough hits.
+     */
+    private PhraseSuggestion getSuggestion(SearchResponse response, long total) {
+        if (response.getSuggest() == null || total >= SUGGESTIONS_THRESHOLD)
+            return null;
+        return response.getSuggest().getSuggestion(TITLE_TERM_SUGGESTION_NAME);
     }
 
     /**
@@ -588,33 +1426,43 @@ public class ElasticClientUtil implements IElasticUtil {
     }
 
     /**
-     * Helper method which transforms the elastic search response hits into Film objects.
+     * Helper method which takes the raw sources of the elastic search response hits, without copying them nor
+     * transforming them into Film objects, as they are streamed as they are into the response.
      *
-     * @param hits The hits of the search
-     * @return An array of films {@link Film}
+     * @param hits   The hits of the search
+     * @param fields The fields fetched in the sources, or null if the whole sources were
+     * @return An array of sources {@link FilmSource}
      */
-    private Film[] parseHitToFilms(SearchHits hits) {
+    private FilmSource[] getHitSources(SearchHits hits, Set<String> fields) {
         return Arrays.stream(hits.getHits()).map(hit -> {
-            String source = hit.getSourceAsString();
-            try {
-                return objectMapper.readValue(source, Film.class);
-            } catch (JsonProcessingException e) {
-                Throwables.throwIfUnchecked(e);
-                throw new RuntimeException(e);
-            }
-        }).toArray(Film[]::new);
+            var source = hit.getSourceRef().toBytesRef();
+            return new FilmSource(source.bytes, source.offset, source.length, fields, filmReader);
+        }).toArray(FilmSource[]::new);
+    }
+
+    /**
+     * Helper method which transforms the source of a title into a Film object.
+     *
+     * @param source The source of the document of the title, as JSON
+     * @return The film {@link Film}
+     */
+    private Film parseFilm(String source) {
+        try {
+            return filmReader.readValue(source);
+        } catch (JsonProcessingException e) {
+            Throwables.throwIfUnchecked(e);
+            throw new RuntimeException(e);
+        }
     }
 
     /**
-     * Helper method, takes an {@link InputStream} and return a {@link BufferedReader}
+     * Helper method, takes an {@link InputStream} and return a {@link TsvRecordReader}
      *
      * @param dataPath The InputStream pointing to the file
-     * @return The BufferedReader of the file
+     * @return The TsvRecordReader of the file
      */
-    private BufferedReader readFile(InputStream dataPath) {
-        BufferedReader reader;
-        reader = new BufferedReader(new InputStreamReader(dataPath, StandardCharsets.UTF_8));
-        return reader;
+    private TsvRecordReader readFile(InputStream dataPath) {
+        return new TsvRecordReader(dataPath, ingestConfiguration.getReadBufferSize());
     }
 
 }
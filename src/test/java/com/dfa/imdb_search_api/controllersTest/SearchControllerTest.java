@@ -3,6 +3,7 @@ package com.dfa.imdb_search_api.controllersTest;
 import com.dfa.imdb_search_api.elastic.util.IElasticUtil;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpStatus;
 import io.micronaut.http.client.HttpClient;
 import io.micronaut.http.client.annotation.Client;
 import io.micronaut.http.client.exceptions.HttpClientResponseException;
@@ -13,6 +14,8 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -139,4 +142,106 @@ public class SearchControllerTest {
         Assertions.assertThrows(HttpClientResponseException.class, () -> client.toBlocking().retrieve(request));
     }
 
+    @Test
+    public void testSearchOnlyAggregations() throws IOException {
+        HttpRequest<String> request = HttpRequest.GET("/search?query=The+Simpsons&include=aggregations");
+        var body = objectMapper.readTree(client.toBlocking().retrieve(request));
+
+        var whole = elasticUtil.searchByParams(Map.of("query", "The Simpsons"));
+        assertEquals(whole.getTotal(), body.get("total").asLong());
+        assertEquals(0, body.get("items").size());
+        assertEquals(objectMapper.valueToTree(whole.getAggregations()), body.get("aggregations"));
+    }
+
+    @Test
+    public void testSearchOnlySomeFields() throws IOException {
+        HttpRequest<String> request = HttpRequest.GET("/search?query=Avengers&include=items&fields=id,title");
+        var body = objectMapper.readTree(client.toBlocking().retrieve(request));
+
+        assertTrue(body.get("items").size() > 0);
+        for (var item : body.get("items")) {
+            List<String> names = new ArrayList<>();
+            item.fieldNames().forEachRemaining(names::add);
+            assertEquals(List.of("id", "title"), names);
+        }
+        assertEquals(0, body.get("aggregations").size());
+    }
+
+    @Test
+    public void testSearchUnknownField() {
+        HttpRequest<String> request = HttpRequest.GET("/search?query=Avengers&fields=id,plot");
+
+        var exception = Assertions.assertThrows(HttpClientResponseException.class,
+                () -> client.toBlocking().retrieve(request));
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+    }
+
+    @Test
+    public void testSearchShallowPage() throws IOException {
+        HttpRequest<String> request = HttpRequest.GET("/search?query=Avengers&size=5&from=5");
+        var body = client.toBlocking().retrieve(request);
+
+        var expectedResponse = elasticUtil.searchByParams(Map.of("query", "Avengers", "size", "5", "from", "5"));
+        assertEquals(5, expectedResponse.getItems().length);
+        assertEquals(objectMapper.writeValueAsString(expectedResponse), body);
+    }
+
+    @Test
+    public void testSearchDeepPages() throws IOException {
+        var first = objectMapper.readTree(client.toBlocking().retrieve(
+                HttpRequest.GET("/search?query=Avengers&size=5&cursor=*")));
+        assertEquals(5, first.get("items").size());
+        assertTrue(first.get("aggregations").size() > 0);
+
+        var second = objectMapper.readTree(client.toBlocking().retrieve(
+                HttpRequest.GET("/search?query=Avengers&size=5&cursor=" + first.get("cursor").asText())));
+        assertEquals(5, second.get("items").size());
+        assertEquals(0, second.get("aggregations").size());
+        for (var item : second.get("items"))
+            for (var previous : first.get("items"))
+                assertNotEquals(previous.get("id"), item.get("id"));
+    }
+
+    @Test
+    public void testSearchPageOverTheCaps() {
+        for (var page : List.of("size=1000", "from=995", "cursor=*&from=10", "cursor=invalid")) {
+            HttpRequest<String> request = HttpRequest.GET("/search?query=Avengers&" + page);
+
+            var exception = Assertions.assertThrows(HttpClientResponseException.class,
+                    () -> client.toBlocking().retrieve(request));
+            assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus(), page);
+        }
+    }
+
+    @Test
+    public void testSearchByTitleID() throws IOException {
+        HttpRequest<String> request = HttpRequest.GET("/search/titles/tt0413300");
+        var body = client.toBlocking().retrieve(request);
+
+        assertEquals(objectMapper.writeValueAsString(elasticUtil.searchByTitleID("tt0413300")), body);
+        assertEquals("Spider-Man 3", elasticUtil.searchByTitleID("tt0413300").getTitle());
+    }
+
+    @Test
+    public void testSearchByMissingTitleID() throws IOException {
+        HttpRequest<String> request = HttpRequest.GET("/search/titles/tt9999999999");
+
+        var exception = Assertions.assertThrows(HttpClientResponseException.class,
+                () -> client.toBlocking().retrieve(request));
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatus());
+        assertNull(elasticUtil.searchByTitleID("tt9999999999"));
+    }
+
+    @Test
+    public void testSearchByTitleIDs() throws IOException {
+        HttpRequest<String> request = HttpRequest.GET("/search/titles?ids=tt0413300,tt9999999999,tt0133093");
+        var body = client.toBlocking().retrieve(request);
+
+        var films = elasticUtil.searchByTitleIDs(List.of("tt0413300", "tt9999999999", "tt0133093"));
+        assertEquals(2, films.length);
+        assertEquals("tt0413300", films[0].getId());
+        assertEquals("tt0133093", films[1].getId());
+        assertEquals(objectMapper.writeValueAsString(films), body);
+    }
+
 }
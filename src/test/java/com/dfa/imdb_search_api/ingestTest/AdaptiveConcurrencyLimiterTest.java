@@ -0,0 +1,83 @@
+package com.dfa.imdb_search_api.ingestTest;
+
+import com.dfa.imdb_search_api.elastic.ingest.AdaptiveConcurrencyLimiter;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+    private static final long MB = 1024 * 1024;
+
+    @Test
+    public void testGrowsUpToMaximum() throws InterruptedException {
+        var limiter = new AdaptiveConcurrencyLimiter(1, 4, MB);
+
+        for (int i = 0; i < 50; i++)
+            respond(limiter, 100, MB);
+
+        assertEquals(4, limiter.currentLimit());
+    }
+
+    @Test
+    public void testCongestionCutsOncePerWindow() throws InterruptedException {
+        var limiter = new AdaptiveConcurrencyLimiter(8, 8, MB);
+        respond(limiter, 100, MB);
+
+        // Both requests were sent before the first cut, so only the first response cuts the limit
+        long first = limiter.acquire();
+        long second = limiter.acquire();
+        limiter.onResponse(first, 500, MB);
+        limiter.release();
+        limiter.onResponse(second, 500, MB);
+        limiter.release();
+        assertEquals(6, limiter.currentLimit());
+
+        // A request sent after the cut can cut it again
+        limiter.onRejected(limiter.acquire());
+        limiter.release();
+        assertEquals(3, limiter.currentLimit());
+    }
+
+    @Test
+    public void testSmallBulksDontMeasureCost() throws InterruptedException {
+        var limiter = new AdaptiveConcurrencyLimiter(2, 8, MB);
+        respond(limiter, 100, MB);
+
+        // The last bulk of a load is small, its overhead must not be taken as congestion
+        respond(limiter, 50, 1024);
+
+        assertTrue(limiter.currentLimit() >= 2);
+    }
+
+    @Test
+    public void testAcquireBlocksAtLimit() throws Exception {
+        var limiter = new AdaptiveConcurrencyLimiter(1, 1, MB);
+        limiter.acquire();
+
+        var waiting = CompletableFuture.runAsync(() -> {
+            try {
+                limiter.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertThrows(TimeoutException.class, () -> waiting.get(200, TimeUnit.MILLISECONDS));
+
+        limiter.release();
+        waiting.get(5, TimeUnit.SECONDS);
+        limiter.release();
+        limiter.awaitIdle();
+    }
+
+    private static void respond(AdaptiveConcurrencyLimiter limiter, long tookMillis, long bytes)
+            throws InterruptedException {
+        long ticket = limiter.acquire();
+        limiter.onResponse(ticket, tookMillis, bytes);
+        limiter.release();
+    }
+}
@@ -0,0 +1,107 @@
+package com.dfa.imdb_search_api.ingestTest;
+
+import com.dfa.imdb_search_api.POJO.Film;
+import com.dfa.imdb_search_api.elastic.commands.impl.FilmBulkCreationCommand;
+import com.dfa.imdb_search_api.elastic.commands.impl.JoinedFilmIndexCommand;
+import com.dfa.imdb_search_api.elastic.ingest.BulkBuffer;
+import com.dfa.imdb_search_api.elastic.ingest.delta.DeltaTracker;
+import com.dfa.imdb_search_api.elastic.ingest.join.RatingTable;
+import com.dfa.imdb_search_api.elastic.ingest.tsv.TsvRecordReader;
+import com.dfa.imdb_search_api.elastic.util.impl.ElasticClientUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.elasticsearch.xcontent.XContentType;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BulkBufferTest {
+
+    private static final String FILMS = """
+            tconst\ttitleType\tprimaryTitle\toriginalTitle\tisAdult\tstartYear\tendYear\truntimeMinutes\tgenres
+            tt0413300\tmovie\tSpider-Man 3\tSpider-Man 3\t0\t2007\t\\N\t139\tAction,Adventure,Sci-Fi
+            """;
+
+    @TempDir
+    Path folder;
+
+    @Test
+    public void testJsonBulk() throws IOException {
+        var bulk = new BulkBuffer(XContentType.JSON, new BulkBuffer.BufferPool(1, 16, 1024));
+        bulk.index("imdb", "tt0000001", document -> document.field("title", "Carmencita"));
+        bulk.upsert("imdb", "tt0000002", document -> document.field("num_votes", 12));
+        bulk.delete("imdb", "tt0000003");
+
+        assertEquals(3, bulk.numberOfActions());
+        assertEquals("tt0000003", bulk.lastId());
+        assertEquals("""
+                {"index":{"_index":"imdb","_id":"tt0000001"}}
+                {"title":"Carmencita"}
+                {"update":{"_index":"imdb","_id":"tt0000002"}}
+                {"doc":{"num_votes":12},"doc_as_upsert":true}
+                {"delete":{"_index":"imdb","_id":"tt0000003"}}
+                """, new String(bulk.array(), 0, bulk.size(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testSmileBulk() throws IOException {
+        var bulk = new BulkBuffer(XContentType.SMILE, new BulkBuffer.BufferPool(1, 16, 1024));
+        bulk.index("imdb", "tt0000001", document -> document.field("title", "Carmencita"));
+
+        // Action and document, each one finished by the SMILE stream separator
+        var bytes = Arrays.copyOf(bulk.array(), bulk.size());
+        long separators = 0;
+        for (byte b : bytes)
+            if (b == (byte) 0xFF) separators++;
+        assertEquals(2, separators);
+        assertEquals((byte) 0xFF, bytes[bytes.length - 1]);
+    }
+
+    @Test
+    public void testJoinedFilmMatchesJsonSerialization() throws IOException {
+        var ratings = new RatingTable(16);
+        ratings.put(413300, 6.3f, 561000);
+
+        var reader = new TsvRecordReader(new ByteArrayInputStream(FILMS.getBytes(StandardCharsets.UTF_8)));
+        reader.next();
+        reader.next();
+
+        var bulk = new BulkBuffer(XContentType.JSON, new BulkBuffer.BufferPool(1, 16, 1024));
+        try (var tracker = new DeltaTracker(null, folder.resolve("fingerprints.bin"))) {
+            new JoinedFilmIndexCommand(ElasticClientUtil.INDEX_NAME, ratings, tracker).execute(reader.record(), bulk);
+        }
+
+        var lines = new String(bulk.array(), 0, bulk.size(), StandardCharsets.UTF_8).split("\n");
+        var film = new Film("tt0413300", "Spider-Man 3", "Spider-Man 3",
+                new String[]{"Action", "Adventure", "Sci-Fi"}, "movie", "2007-01-01", null);
+        film.setAverage_rating(6.3f);
+        film.setNum_votes(561000);
+
+        // The null end year is left out of the encoded document
+        var mapper = new ObjectMapper();
+        var expected = (ObjectNode) mapper.valueToTree(film);
+        expected.remove("end_year");
+        assertEquals(expected.toString(), mapper.readTree(lines[1]).toString());
+    }
+
+    @Test
+    public void testFilmUpsertKeepsRating() throws IOException {
+        var reader = new TsvRecordReader(new ByteArrayInputStream(FILMS.getBytes(StandardCharsets.UTF_8)));
+        reader.next();
+        reader.next();
+
+        var bulk = new BulkBuffer(XContentType.JSON, new BulkBuffer.BufferPool(1, 16, 1024));
+        new FilmBulkCreationCommand().execute(reader.record(), bulk);
+
+        var document = new String(bulk.array(), 0, bulk.size(), StandardCharsets.UTF_8).split("\n")[1];
+        assertFalse(document.contains("average_rating"));
+        assertTrue(document.endsWith("\"doc_as_upsert\":true}"));
+    }
+}
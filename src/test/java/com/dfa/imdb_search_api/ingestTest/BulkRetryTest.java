@@ -0,0 +1,155 @@
+package com.dfa.imdb_search_api.ingestTest;
+
+import com.dfa.imdb_search_api.elastic.ingest.BulkPipeline;
+import com.dfa.imdb_search_api.elastic.ingest.BulkResult;
+import com.dfa.imdb_search_api.elastic.ingest.IngestConfiguration;
+import com.dfa.imdb_search_api.elastic.ingest.job.IngestMetrics;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.HttpHost;
+import org.elasticsearch.client.RestClient;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.xcontent.DeprecationHandler;
+import org.elasticsearch.xcontent.NamedXContentRegistry;
+import org.elasticsearch.xcontent.XContentType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BulkRetryTest {
+
+    private static final String FIRST_RESPONSE = """
+            {"took":5,"errors":true,"items":[
+              {"index":{"_id":"tt0000001","status":201}},
+              {"index":{"_id":"tt0000002","status":429,"error":{"type":"es_rejected_execution_exception","reason":"queue full"}}},
+              {"index":{"_id":"tt0000003","status":400,"error":{"type":"mapper_parsing_exception","reason":"bad year"}}}
+            ]}""";
+    private static final String RETRY_RESPONSE = """
+            {"took":1,"errors":false,"items":[{"index":{"_id":"tt0000002","status":201}}]}""";
+
+    @TempDir
+    Path folder;
+
+    private HttpServer server;
+    private RestHighLevelClient client;
+    private final List<String> bodies = new CopyOnWriteArrayList<>();
+    private final List<String> queries = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        var requests = new AtomicInteger();
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/_bulk", exchange -> {
+            bodies.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            queries.add(exchange.getRequestURI().getRawQuery());
+            var response = (requests.getAndIncrement() == 0 ? FIRST_RESPONSE : RETRY_RESPONSE)
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            exchange.getResponseBody().write(response);
+            exchange.close();
+        });
+        server.start();
+        client = new RestHighLevelClient(RestClient.builder(
+                new HttpHost("localhost", server.getAddress().getPort())));
+    }
+
+    @AfterEach
+    public void stopServer() throws IOException {
+        client.close();
+        server.stop(0);
+    }
+
+    @Test
+    public void testRetriesRejectedItemsAndDeadLettersTheRest() throws IOException {
+        var configuration = new IngestConfiguration();
+        configuration.setRetryBackoffMillis(1);
+        configuration.setDeadLetterPath(folder.resolve("dead-letters.ndjson").toString());
+        var metrics = new IngestMetrics();
+
+        var pipeline = new BulkPipeline(client, configuration, null, metrics);
+        var bulk = pipeline.newBulk();
+        for (int i = 1; i <= 3; i++) {
+            int year = i;
+            bulk.index("imdb", "tt000000" + i, document -> document.field("start_year", year));
+        }
+        pipeline.submit(bulk);
+        pipeline.awaitCompletion();
+
+        assertEquals(2, bodies.size());
+        assertTrue(queries.get(0).contains("filter_path="));
+        // Only the rejected item is sent again
+        assertEquals("""
+                {"index":{"_index":"imdb","_id":"tt0000002"}}
+                {"start_year":2}
+                """, bodies.get(1));
+
+        var deadLetters = Files.readAllLines(Path.of(configuration.getDeadLetterPath()));
+        assertEquals(1, deadLetters.size());
+        var deadLetter = new ObjectMapper().readTree(deadLetters.get(0));
+        assertEquals("tt0000003", deadLetter.get("_id").asText());
+        assertEquals(400, deadLetter.get("status").asInt());
+        assertEquals("mapper_parsing_exception", deadLetter.get("error").get("type").asText());
+        assertEquals("tt0000003", deadLetter.get("action").get("index").get("_id").asText());
+        assertEquals(3, deadLetter.get("document").get("start_year").asInt());
+
+        assertEquals(2, metrics.getFailedItems());
+        assertEquals(1, metrics.getRejectedItems());
+        assertEquals(1, metrics.getRetriedItems());
+        assertEquals(1, metrics.getDeadLetterItems());
+    }
+
+    @Test
+    public void testAbortDropsThePendingRetries() throws IOException {
+        var configuration = new IngestConfiguration();
+        configuration.setRetryBackoffMillis(200);
+        configuration.setDeadLetterPath(folder.resolve("dead-letters.ndjson").toString());
+
+        var pipeline = new BulkPipeline(client, configuration, null, new IngestMetrics());
+        var bulk = pipeline.newBulk();
+        for (int i = 1; i <= 3; i++) {
+            int year = i;
+            bulk.index("imdb", "tt000000" + i, document -> document.field("start_year", year));
+        }
+        pipeline.submit(bulk);
+        pipeline.abort();
+
+        assertTrue(pipeline.awaitTermination(5, TimeUnit.SECONDS));
+        // The rejected item is not sent again, and no more bulks are accepted
+        assertEquals(1, bodies.size());
+        var late = pipeline.newBulk();
+        late.index("imdb", "tt0000004", document -> document.field("start_year", 4));
+        assertThrows(IOException.class, () -> pipeline.submit(late));
+        assertThrows(IOException.class, pipeline::awaitCompletion);
+    }
+
+    @Test
+    public void testParseFilteredResponse() throws IOException {
+        try (var parser = XContentType.JSON.xContent().createParser(NamedXContentRegistry.EMPTY,
+                DeprecationHandler.IGNORE_DEPRECATIONS, FIRST_RESPONSE)) {
+            var result = BulkResult.fromXContent(parser);
+
+            assertEquals(5, result.getTookMillis());
+            assertEquals(3, result.getNumberOfItems());
+            assertTrue(result.hasRejections());
+            assertEquals(2, result.getFailures().size());
+            assertEquals(1, result.getFailures().get(0).getItem());
+            assertTrue(result.getFailures().get(0).isRetryable());
+            assertEquals(2, result.getFailures().get(1).getItem());
+            assertFalse(result.getFailures().get(1).isRetryable());
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.dfa.imdb_search_api.ingestTest;
+
+import com.dfa.imdb_search_api.elastic.ingest.checkpoint.Checkpoint;
+import com.dfa.imdb_search_api.elastic.ingest.checkpoint.CheckpointStore;
+import com.dfa.imdb_search_api.elastic.ingest.source.impl.FileDataSource;
+import com.dfa.imdb_search_api.elastic.ingest.tsv.TsvRecordReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CheckpointStoreTest {
+
+    private static final String RATINGS = """
+            tconst\taverageRating\tnumVotes
+            tt0000001\t5.7\t1923
+            tt0000002\t5.8\t260
+            tt0000003\t6.5\t1735
+            """;
+
+    @TempDir
+    Path folder;
+
+    @Test
+    public void testSaveAndFind() throws IOException {
+        var source = source("ratings.tsv", RATINGS);
+        var store = new CheckpointStore(folder.resolve("checkpoint.properties"));
+        assertNull(store.find(source));
+
+        var checkpoint = new Checkpoint(source.getName(), source.size(), 3, 52, "tt0000002");
+        store.save(checkpoint);
+        assertEquals(checkpoint, store.find(source));
+
+        store.clear();
+        assertNull(store.find(source));
+    }
+
+    @Test
+    public void testCheckpointOfAnotherSourceIsIgnored() throws IOException {
+        var source = source("ratings.tsv", RATINGS);
+        var store = new CheckpointStore(folder.resolve("checkpoint.properties"));
+        store.save(new Checkpoint(source.getName(), source.size(), 3, 52, "tt0000002"));
+
+        assertNull(store.find(source("other.tsv", RATINGS)));
+        // Same file, but republished with different content
+        Files.writeString(source.getPath(), RATINGS + "tt0000004\t5.6\t175\n");
+        assertNull(store.find(source));
+    }
+
+    @Test
+    public void testResumeReaderFromCheckpoint() throws IOException {
+        var source = source("ratings.tsv", RATINGS);
+        Checkpoint checkpoint;
+        try (var reader = new TsvRecordReader(source.open(), 8)) {
+            reader.next();
+            reader.next();
+            reader.next();
+            checkpoint = new Checkpoint(source.getName(), source.size(), reader.lineNumber(), reader.bytePosition(),
+                    "tt0000002");
+        }
+
+        try (var reader = new TsvRecordReader(source.open(), 8)) {
+            reader.seek(checkpoint.getByteOffset(), checkpoint.getLineNumber());
+            assertTrue(reader.next());
+            assertEquals("tt0000003", reader.record().nextString());
+            assertEquals(4, reader.lineNumber());
+            assertFalse(reader.next());
+        }
+    }
+
+    private FileDataSource source(String name, String content) throws IOException {
+        var path = folder.resolve(name);
+        Files.writeString(path, content);
+        return new FileDataSource(path, 1024);
+    }
+}
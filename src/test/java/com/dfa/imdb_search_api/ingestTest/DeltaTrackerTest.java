@@ -0,0 +1,133 @@
+package com.dfa.imdb_search_api.ingestTest;
+
+import com.dfa.imdb_search_api.POJO.Film;
+import com.dfa.imdb_search_api.elastic.ingest.TitleIds;
+import com.dfa.imdb_search_api.elastic.ingest.delta.DeltaTracker;
+import com.dfa.imdb_search_api.elastic.ingest.delta.Fingerprint;
+import com.dfa.imdb_search_api.elastic.ingest.delta.RangeDeltaTrackers;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DeltaTrackerTest {
+
+    @TempDir
+    Path folder;
+
+    @Test
+    public void testDeltaBetweenRuns() throws IOException {
+        var file = folder.resolve("fingerprints.bin");
+        var deleted = new ArrayList<Integer>();
+
+        try (var tracker = new DeltaTracker(file, file)) {
+            assertTrue(tracker.update(1, 10, deleted::add));
+            assertTrue(tracker.update(2, 20, deleted::add));
+            assertTrue(tracker.update(3, 30, deleted::add));
+            assertTrue(tracker.update(5, 50, deleted::add));
+            tracker.finish(deleted::add);
+            tracker.commit();
+        }
+        assertTrue(deleted.isEmpty());
+
+        try (var tracker = new DeltaTracker(file, file)) {
+            assertFalse(tracker.update(1, 10, deleted::add));
+            assertTrue(tracker.update(3, 31, deleted::add));
+            assertTrue(tracker.update(4, 40, deleted::add));
+            tracker.finish(deleted::add);
+            tracker.commit();
+
+            assertEquals(2, tracker.getChanged());
+            assertEquals(1, tracker.getUnchanged());
+            assertEquals(2, tracker.getDeleted());
+        }
+        assertEquals(List.of(2, 5), deleted);
+
+        // Without commit the fingerprints of the last run are kept
+        try (var tracker = new DeltaTracker(file, file)) {
+            assertTrue(tracker.update(1, 11, deleted::add));
+        }
+        try (var tracker = new DeltaTracker(file, file)) {
+            assertFalse(tracker.update(1, 10, deleted::add));
+        }
+        try (var files = Files.list(folder)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    public void testUnsortedIdsAreRejected() throws IOException {
+        var file = folder.resolve("fingerprints.bin");
+        try (var tracker = new DeltaTracker(null, file)) {
+            tracker.update(2, 20, id -> {
+            });
+            assertThrows(IOException.class, () -> tracker.update(1, 10, id -> {
+            }));
+        }
+    }
+
+    @Test
+    public void testRangesAreJoinedInOrder() throws IOException {
+        var file = folder.resolve("fingerprints.bin");
+        var deleted = new ArrayList<Integer>();
+
+        // The ranges are parsed at the same time, so they may start in any order
+        try (var trackers = new RangeDeltaTrackers(file)) {
+            trackers.forRange(1).update(4, 40, deleted::add);
+            trackers.forRange(0).update(1, 10, deleted::add);
+            trackers.forRange(0).update(2, 20, deleted::add);
+            trackers.forRange(1).update(5, 50, deleted::add);
+            trackers.commit();
+        }
+
+        try (var tracker = new DeltaTracker(file, file)) {
+            assertFalse(tracker.update(1, 10, deleted::add));
+            assertTrue(tracker.update(4, 41, deleted::add));
+            tracker.finish(deleted::add);
+        }
+        assertEquals(List.of(2, 5), deleted);
+        try (var files = Files.list(folder)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    public void testOverlappingRangesAreRejected() throws IOException {
+        var file = folder.resolve("fingerprints.bin");
+        try (var trackers = new RangeDeltaTrackers(file)) {
+            trackers.forRange(0).update(3, 30, id -> {
+            });
+            trackers.forRange(1).update(2, 20, id -> {
+            });
+            assertThrows(IOException.class, trackers::commit);
+        }
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    public void testFingerprintChangesWithTheContent() {
+        var film = new Film("tt0413300", "Spider-Man 3", "Spider-Man 3",
+                new String[]{"Action", "Adventure", "Sci-Fi"}, "movie", "2007-01-01", null);
+        var sameFilm = new Film("tt0413300", "Spider-Man 3", "Spider-Man 3",
+                new String[]{"Action", "Adventure", "Sci-Fi"}, "movie", "2007-01-01", null);
+        long fingerprint = Fingerprint.of(film);
+
+        assertEquals(fingerprint, Fingerprint.of(sameFilm));
+        sameFilm.setNum_votes(1);
+        assertNotEquals(fingerprint, Fingerprint.of(sameFilm));
+    }
+
+    @Test
+    public void testTitleIds() {
+        assertEquals(413300, TitleIds.parse("tt0413300"));
+        assertEquals("tt0413300", TitleIds.format(413300));
+        assertEquals("tt10000008", TitleIds.format(10000008));
+        assertThrows(NumberFormatException.class, () -> TitleIds.parse("nm0000001"));
+    }
+}
@@ -0,0 +1,105 @@
+package com.dfa.imdb_search_api.ingestTest;
+
+import com.dfa.imdb_search_api.elastic.ingest.source.ReadAheadInputStream;
+import com.dfa.imdb_search_api.elastic.ingest.source.impl.FileDataSource;
+import com.dfa.imdb_search_api.elastic.ingest.tsv.TsvRecordReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FileDataSourceTest {
+
+    @TempDir
+    Path folder;
+
+    @Test
+    public void testReadCompressedDump() throws IOException {
+        var file = folder.resolve("title.ratings.tsv.gz");
+        var content = new StringBuilder("tconst\taverageRating\tnumVotes\n");
+        for (int i = 1; i <= 20000; i++)
+            content.append(String.format("tt%07d\t%d.%d\t%d\n", i, i % 10, i % 7, i));
+
+        try (var output = new GZIPOutputStream(Files.newOutputStream(file))) {
+            output.write(content.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        // Small buffers so the read ahead thread has to wait for the parser several times
+        var source = new FileDataSource(file, 1024);
+        assertTrue(source.isCompressed());
+        assertEquals(Files.size(file), source.size());
+
+        long votes = 0;
+        try (var reader = new TsvRecordReader(source.open(), 512)) {
+            assertTrue(reader.next());
+            while (reader.next()) {
+                var record = reader.record();
+                assertEquals(reader.lineNumber() - 1, record.nextIdNumber());
+                record.skip();
+                votes += record.nextInt(0);
+            }
+            assertEquals(20001, reader.lineNumber());
+        }
+        assertEquals(20000L * 20001 / 2, votes);
+    }
+
+    @Test
+    public void testReadUncompressedFile() throws IOException {
+        var file = folder.resolve("films.tsv");
+        Files.writeString(file, "tconst\ntt0000001\n");
+
+        var source = new FileDataSource(file, 1024);
+        assertFalse(source.isCompressed());
+        try (var reader = new TsvRecordReader(source.open())) {
+            assertTrue(reader.next());
+            assertTrue(reader.next());
+            assertEquals("tt0000001", reader.record().nextString());
+            assertFalse(reader.next());
+        }
+    }
+
+    @Test
+    public void testCloseWaitsForTheReadAhead() throws IOException {
+        var reading = new AtomicBoolean();
+        var closed = new AtomicBoolean();
+        var closedWhileReading = new AtomicBoolean();
+        // Slow source which, like the decompression, can't be closed in the middle of a read
+        var source = new InputStream() {
+            @Override
+            public int read() {
+                return 0;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) {
+                reading.set(true);
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+                reading.set(false);
+                return length;
+            }
+
+            @Override
+            public void close() {
+                closedWhileReading.compareAndSet(false, reading.get());
+                closed.set(true);
+            }
+        };
+
+        var stream = new ReadAheadInputStream(source, 64, "test");
+        assertEquals(64, stream.read(new byte[64]));
+        stream.close();
+
+        assertTrue(closed.get());
+        assertFalse(closedWhileReading.get());
+    }
+}
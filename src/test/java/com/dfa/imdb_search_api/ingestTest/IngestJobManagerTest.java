@@ -0,0 +1,111 @@
+package com.dfa.imdb_search_api.ingestTest;
+
+import com.dfa.imdb_search_api.elastic.ingest.IngestConfiguration;
+import com.dfa.imdb_search_api.elastic.ingest.job.IngestJob;
+import com.dfa.imdb_search_api.elastic.ingest.job.IngestJobConflictException;
+import com.dfa.imdb_search_api.elastic.ingest.job.IngestJobManager;
+import com.dfa.imdb_search_api.elastic.ingest.job.LatencyHistogram;
+import com.dfa.imdb_search_api.elastic.search.IndexGeneration;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IngestJobManagerTest {
+
+    @Test
+    public void testRunJob() throws IOException, InterruptedException {
+        var manager = new IngestJobManager(new IngestConfiguration(), new IndexGeneration());
+        var result = manager.run("index", "imdb", metrics -> {
+            metrics.startReading(100);
+            metrics.bytesReadCounter().add(100);
+            metrics.rowRead();
+            return "Success loading data";
+        });
+
+        assertEquals("Success loading data", result);
+        var status = manager.findAll().get(0).status();
+        assertEquals(IngestJob.State.SUCCEEDED, status.getState());
+        assertEquals(1, status.getRows());
+        assertEquals(1d, status.getProgress());
+        assertNull(status.getEtaSeconds());
+
+        // The throughput of a finished job no longer changes with time
+        var readingSeconds = manager.findAll().get(0).getMetrics().getReadingSeconds();
+        Thread.sleep(20);
+        assertEquals(readingSeconds, manager.findAll().get(0).getMetrics().getReadingSeconds());
+    }
+
+    @Test
+    public void testOneJobPerIndex() throws IOException, InterruptedException {
+        var manager = new IngestJobManager(new IngestConfiguration(), new IndexGeneration());
+        var started = new CountDownLatch(1);
+        var job = manager.submit("background", "imdb", metrics -> {
+            started.countDown();
+            try {
+                Thread.sleep(60_000);
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException("Load interrupted");
+            }
+            return "Not cancelled";
+        });
+        started.await();
+
+        assertThrows(IngestJobConflictException.class, () -> manager.submit("index", "imdb", metrics -> ""));
+        // Other indices can be loaded at the same time
+        assertEquals("Success", manager.run("index", "other", metrics -> "Success"));
+
+        assertSame(job, manager.cancel(job.getId()));
+        assertThrows(InterruptedIOException.class, job::await);
+        assertEquals(IngestJob.State.CANCELLED, job.getState());
+
+        // Once cancelled, the index can be loaded again
+        assertEquals("Success", manager.run("index", "imdb", metrics -> "Success"));
+        assertNull(manager.find("unknown"));
+    }
+
+    @Test
+    public void testFailedJob() {
+        var manager = new IngestJobManager(new IngestConfiguration(), new IndexGeneration());
+        var exception = assertThrows(IOException.class, () -> manager.run("index", "imdb", metrics -> {
+            throw new IOException("Cluster not available");
+        }));
+
+        assertEquals("Cluster not available", exception.getMessage());
+        var job = manager.findAll().get(0);
+        assertEquals(IngestJob.State.FAILED, job.getState());
+        assertEquals("Cluster not available", job.getMessage());
+    }
+
+    @Test
+    public void testJobFailedWithError() {
+        var manager = new IngestJobManager(new IngestConfiguration(), new IndexGeneration());
+        var exception = assertThrows(IOException.class, () -> manager.run("index", "imdb", metrics -> {
+            throw new OutOfMemoryError("Java heap space");
+        }));
+
+        assertInstanceOf(OutOfMemoryError.class, exception.getCause());
+        var job = manager.findAll().get(0);
+        assertEquals(IngestJob.State.FAILED, job.getState());
+        assertEquals("Java heap space", job.getMessage());
+        assertNotNull(job.getFinishedAt());
+    }
+
+    @Test
+    public void testLatencyPercentiles() {
+        var histogram = new LatencyHistogram();
+        assertEquals(0, histogram.percentile(50));
+
+        for (int millis = 1; millis <= 100; millis++)
+            histogram.record(millis * 1_000_000L);
+
+        assertEquals(100, histogram.count());
+        assertEquals(100, histogram.max());
+        assertEquals(50, histogram.percentile(50), 50 * 0.125);
+        assertEquals(99, histogram.percentile(99), 99 * 0.125);
+        assertEquals(100, histogram.percentile(100));
+    }
+}
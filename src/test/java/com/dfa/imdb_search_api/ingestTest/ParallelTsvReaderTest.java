@@ -0,0 +1,92 @@
+package com.dfa.imdb_search_api.ingestTest;
+
+import com.dfa.imdb_search_api.elastic.ingest.tsv.ParallelTsvReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelTsvReaderTest {
+
+    private static final String HEADER = "tconst\taverageRating\tnumVotes\n";
+
+    @TempDir
+    Path folder;
+
+    @Test
+    public void testEveryLineIsReadOnce() throws IOException {
+        var file = writeRatings(10_000);
+        var ranges = new ConcurrentHashMap<Integer, List<String>>();
+        var bytesRead = new LongAdder();
+
+        int count = new ParallelTsvReader(file, 4, 1024, 256).read((range, reader) -> {
+            var ids = new ArrayList<String>();
+            while (reader.next())
+                ids.add(reader.record().nextString());
+            ranges.put(range, ids);
+        }, bytesRead);
+
+        assertEquals(4, count);
+        assertEquals(Files.size(file) - HEADER.length(), bytesRead.sum());
+
+        // The ranges hold consecutive lines, so joined in order they give back the whole file
+        List<String> ids = new ArrayList<>();
+        for (int range = 0; range < count; range++) {
+            assertFalse(ranges.get(range).isEmpty());
+            ids.addAll(ranges.get(range));
+        }
+        assertEquals(10_000, ids.size());
+        for (int i = 0; i < ids.size(); i++)
+            assertEquals(String.format("tt%07d", i + 1), ids.get(i));
+    }
+
+    @Test
+    public void testSmallFileIsNotSplit() throws IOException {
+        var file = writeRatings(10);
+        var lines = Collections.synchronizedList(new ArrayList<String>());
+
+        int count = new ParallelTsvReader(file, 8, 1 << 20, 256).read((range, reader) -> {
+            while (reader.next())
+                lines.add(reader.record().nextString());
+        }, new LongAdder());
+
+        assertEquals(1, count);
+        assertEquals(10, lines.size());
+    }
+
+    @Test
+    public void testFailureStopsTheOtherRanges() throws IOException {
+        var file = writeRatings(100_000);
+
+        var exception = assertThrows(IOException.class, () ->
+                new ParallelTsvReader(file, 4, 1024, 256).read((range, reader) -> {
+                    while (reader.next()) {
+                        if (range == 0)
+                            throw new IOException("Broken range");
+                    }
+                }, new LongAdder()));
+
+        assertFalse(exception instanceof InterruptedIOException);
+        assertEquals("Broken range", exception.getMessage());
+    }
+
+    private Path writeRatings(int rows) throws IOException {
+        var content = new StringBuilder(HEADER);
+        for (int i = 1; i <= rows; i++)
+            content.append(String.format("tt%07d\t%.1f\t%d\n", i, (i % 100) / 10f, i * 3));
+        var file = folder.resolve("title.ratings.tsv");
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        return file;
+    }
+}
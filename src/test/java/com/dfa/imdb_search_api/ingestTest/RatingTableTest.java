@@ -0,0 +1,54 @@
+package com.dfa.imdb_search_api.ingestTest;
+
+import com.dfa.imdb_search_api.elastic.ingest.join.RatingTable;
+import com.dfa.imdb_search_api.elastic.ingest.tsv.TsvRecordReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RatingTableTest {
+
+    @Test
+    public void testPutAndFindGrowingTheTable() {
+        var table = new RatingTable(16);
+        for (int id = 1; id <= 100000; id++)
+            table.put(id * 7, id % 10, id);
+
+        assertEquals(100000, table.size());
+        for (int id = 1; id <= 100000; id++) {
+            int slot = table.find(id * 7);
+            assertTrue(slot >= 0);
+            assertEquals(id % 10, table.averageRating(slot));
+            assertEquals(id, table.numVotes(slot));
+        }
+        assertEquals(-1, table.find(8));
+        assertEquals(-1, table.find(0));
+    }
+
+    @Test
+    public void testPutReplacesRating() {
+        var table = new RatingTable();
+        table.put(413300, 6.2f, 100);
+        table.put(413300, 6.3f, 120);
+
+        assertEquals(1, table.size());
+        int slot = table.find(413300);
+        assertEquals(6.3f, table.averageRating(slot));
+        assertEquals(120, table.numVotes(slot));
+    }
+
+    @Test
+    public void testLoadFromRatingsSource() throws IOException {
+        var content = "tconst\taverageRating\tnumVotes\ntt0413300\t6.3\t542164\ntt10000008\t7.1\t12\n";
+        var reader = new TsvRecordReader(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+
+        var table = RatingTable.load(reader);
+        assertEquals(2, table.size());
+        assertEquals(6.3f, table.averageRating(table.find(413300)));
+        assertEquals(12, table.numVotes(table.find(10000008)));
+    }
+}
@@ -0,0 +1,178 @@
+package com.dfa.imdb_search_api.ingestTest;
+
+import com.dfa.imdb_search_api.elastic.ElasticClient;
+import com.dfa.imdb_search_api.elastic.ingest.job.IngestMetrics;
+import com.dfa.imdb_search_api.elastic.ingest.source.impl.FileDataSource;
+import com.dfa.imdb_search_api.elastic.util.IElasticUtil;
+import com.sun.net.httpserver.HttpServer;
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.context.annotation.Replaces;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.annotation.Value;
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Singleton;
+import org.apache.http.HttpHost;
+import org.elasticsearch.client.RestClient;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResumeLoadTest {
+
+    private static final String FILMS = """
+            tconst\ttitleType\tprimaryTitle\toriginalTitle\tisAdult\tstartYear\tendYear\truntimeMinutes\tgenres
+            tt0000001\tshort\tCarmencita\tCarmencita\t0\t1894\t\\N\t1\tDocumentary,Short
+            tt0000002\tshort\tLe clown et ses chiens\tLe clown et ses chiens\t0\t1892\t\\N\t5\tAnimation,Short
+            tt0000003\tshort\tPauvre Pierrot\tPauvre Pierrot\t0\t1892\t\\N\t4\tAnimation,Comedy,Romance
+            tt0000004\tshort\tUn bon bock\tUn bon bock\t0\t1892\t\\N\t12\tAnimation,Short
+            tt0000005\tshort\tBlacksmith Scene\tBlacksmith Scene\t0\t1893\t\\N\t1\tComedy,Short
+            tt0000006\tshort\tChinese Opium Den\tChinese Opium Den\t0\t1894\t\\N\t1\tShort
+            """;
+    private static final String RATINGS = """
+            tconst\taverageRating\tnumVotes
+            tt0000001\t5.7\t1923
+            tt0000003\t6.5\t1735
+            """;
+    private static final String INFO = """
+            {"name":"fake","cluster_name":"fake","cluster_uuid":"fake","version":{"number":"7.17.5",
+            "build_flavor":"default","build_type":"docker","build_hash":"fake","build_date":"2022-06-23T21:57:28Z",
+            "build_snapshot":false,"lucene_version":"8.11.1","minimum_wire_compatibility_version":"6.8.0",
+            "minimum_index_compatibility_version":"6.0.0-beta1"},"tagline":"You Know, for Search"}""";
+    private static final Pattern ID = Pattern.compile("\"_id\":\"(tt\\d+)\"");
+
+    @TempDir
+    Path folder;
+
+    private HttpServer server;
+    private ApplicationContext context;
+    private final List<String> indexedIds = new CopyOnWriteArrayList<>();
+    private final AtomicInteger bulks = new AtomicInteger();
+    private final AtomicBoolean failThirdBulk = new AtomicBoolean(true);
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        // The client checks the product and version of the cluster before its first request
+        server.createContext("/", exchange -> {
+            var response = INFO.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.getResponseHeaders().add("X-Elastic-Product", "Elasticsearch");
+            exchange.sendResponseHeaders(200, response.length);
+            exchange.getResponseBody().write(response);
+            exchange.close();
+        });
+        // The index already exists
+        server.createContext("/imdb", exchange -> {
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.createContext("/_bulk", exchange -> {
+            var body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            if (bulks.incrementAndGet() == 3 && failThirdBulk.get()) {
+                exchange.sendResponseHeaders(500, -1);
+                exchange.close();
+                return;
+            }
+
+            var items = new StringJoiner(",", "{\"took\":1,\"errors\":false,\"items\":[", "]}");
+            var matcher = ID.matcher(body);
+            while (matcher.find()) {
+                indexedIds.add(matcher.group(1));
+                items.add("{\"index\":{\"_id\":\"" + matcher.group(1) + "\",\"status\":201}}");
+            }
+            var response = items.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            exchange.getResponseBody().write(response);
+            exchange.close();
+        });
+        server.start();
+
+        context = ApplicationContext.run(Map.of(
+                "fake-elastic.port", server.getAddress().getPort(),
+                "ingest.concurrency", 1,
+                "ingest.initial-concurrency", 1,
+                // Every title is sent in a bulk of its own
+                "ingest.bulk-size", 1,
+                "ingest.max-retries", 0,
+                "ingest.parse-threads", 4,
+                "ingest.dead-letter-path", folder.resolve("dead-letters.ndjson").toString(),
+                "ingest.fingerprint-path", folder.resolve("fingerprints.bin").toString(),
+                "ingest.checkpoint-path", folder.resolve("checkpoint.properties").toString()));
+    }
+
+    @AfterEach
+    public void stopServer() {
+        context.close();
+        server.stop(0);
+    }
+
+    @Test
+    public void testInterruptedBackgroundLoadOfPlainFileResumes() throws IOException {
+        var films = source("films.tsv", FILMS);
+        var ratings = source("ratings.tsv", RATINGS);
+        var elasticUtil = context.getBean(IElasticUtil.class);
+
+        assertThrows(IOException.class,
+                () -> elasticUtil.loadJoinedIMDBMedia(films, ratings, true, new IngestMetrics()));
+        assertEquals(List.of("tt0000001", "tt0000002"), indexedIds.subList(0, 2));
+        assertTrue(Files.exists(folder.resolve("checkpoint.properties")));
+
+        failThirdBulk.set(false);
+        indexedIds.clear();
+        elasticUtil.loadJoinedIMDBMedia(films, ratings, true, new IngestMetrics());
+
+        // Only the titles after the last acknowledged bulk are sent again
+        assertEquals(List.of("tt0000003", "tt0000004", "tt0000005", "tt0000006"), new ArrayList<>(indexedIds));
+        assertFalse(Files.exists(folder.resolve("checkpoint.properties")));
+    }
+
+    private FileDataSource source(String name, String content) throws IOException {
+        var file = folder.resolve(name);
+        Files.writeString(file, content);
+        return new FileDataSource(file, 64);
+    }
+
+    /**
+     * Client of the fake cluster, replacing the one of localhost.
+     */
+    @Singleton
+    @Replaces(ElasticClient.class)
+    @Requires(property = "fake-elastic.port")
+    public static class FakeElasticClient extends ElasticClient {
+
+        private final RestHighLevelClient client;
+
+        public FakeElasticClient(@Value("${fake-elastic.port}") int port) {
+            client = new RestHighLevelClient(RestClient.builder(new HttpHost("localhost", port)));
+        }
+
+        @Override
+        public RestHighLevelClient getClient() {
+            return client;
+        }
+
+        @PreDestroy
+        void closeClient() throws IOException {
+            client.close();
+        }
+    }
+}
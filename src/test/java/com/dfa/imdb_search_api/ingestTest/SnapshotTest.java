@@ -0,0 +1,119 @@
+package com.dfa.imdb_search_api.ingestTest;
+
+import com.dfa.imdb_search_api.POJO.Film;
+import com.dfa.imdb_search_api.elastic.commands.impl.JoinedFilmIndexCommand;
+import com.dfa.imdb_search_api.elastic.ingest.delta.Fingerprint;
+import com.dfa.imdb_search_api.elastic.ingest.join.RatingTable;
+import com.dfa.imdb_search_api.elastic.ingest.snapshot.SnapshotReader;
+import com.dfa.imdb_search_api.elastic.ingest.snapshot.SnapshotWriter;
+import com.dfa.imdb_search_api.elastic.ingest.tsv.TsvRecordReader;
+import com.dfa.imdb_search_api.elastic.util.impl.ElasticClientUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SnapshotTest {
+
+    private static final String FILMS = """
+            tconst\ttitleType\tprimaryTitle\toriginalTitle\tisAdult\tstartYear\tendYear\truntimeMinutes\tgenres
+            tt0000001\tshort\tCarmencita\tCarmencita\t0\t1894\t\\N\t1\tDocumentary,Short
+            tt0000502\tmovie\tBohemios\tBohemios\t0\t905\t\\N\t100\t\\N
+            tt0413300\ttvSeries\tLa casa de papel\tMoney Heist\t0\t2017\t2021\t70\tAction,Crime,Drama
+            tt10000004\t\\N\tAm\u00e9lie\t\\N\t0\t\\N\t\\N\t\\N\tComedy,Romance
+            """;
+
+    @TempDir
+    Path folder;
+
+    @Test
+    public void testRoundTripKeepsTheFingerprints() throws IOException {
+        var ratings = new RatingTable();
+        ratings.put(1, 5.7f, 1966);
+        ratings.put(413300, 8.2f, 512345);
+        var films = readFilms(ratings);
+
+        var snapshot = folder.resolve("snapshot.bin");
+        try (var writer = new SnapshotWriter(snapshot)) {
+            for (var film : films)
+                writer.write(film);
+            writer.commit();
+            assertEquals(4, writer.count());
+        }
+        // Only the snapshot is left, the columns are discarded
+        try (var files = Files.list(folder)) {
+            assertEquals(1, files.count());
+        }
+
+        var bytesRead = new LongAdder();
+        try (var reader = SnapshotReader.open(snapshot, bytesRead)) {
+            assertEquals(4, reader.count());
+            for (var expected : films) {
+                var film = reader.next();
+                assertEquals(expected, film);
+                assertEquals(expected.getOriginal_title(), film.getOriginal_title());
+                assertEquals(expected.getAverage_rating(), film.getAverage_rating());
+                assertEquals(expected.getNum_votes(), film.getNum_votes());
+                assertEquals(Fingerprint.of(expected), Fingerprint.of(film));
+            }
+            assertEquals(10000004, reader.idNumber());
+            assertNull(reader.next());
+            assertTrue(bytesRead.sum() > 0 && bytesRead.sum() < reader.size());
+        }
+    }
+
+    @Test
+    public void testFailedExportKeepsThePreviousSnapshot() throws IOException {
+        var snapshot = folder.resolve("snapshot.bin");
+        var film = new Film("tt0000001", "Carmencita", null, null, "short", "1894-01-01", null);
+        try (var writer = new SnapshotWriter(snapshot)) {
+            writer.write(film);
+            writer.commit();
+        }
+
+        try (var writer = new SnapshotWriter(snapshot)) {
+            writer.write(new Film("tt0000002", "Le clown", null, null, "short", "1892-01-01", null));
+            assertThrows(IOException.class, () -> writer.write(
+                    new Film("nm0000001", "Not a title", null, null, null, null, null)));
+            assertThrows(IOException.class, () -> writer.write(
+                    new Film("tt0000003", "Bad year", null, null, null, "1892-02-01", null)));
+        }
+
+        try (var reader = SnapshotReader.open(snapshot, new LongAdder())) {
+            assertEquals(1, reader.count());
+            assertEquals(film, reader.next());
+        }
+        try (var files = Files.list(folder)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    public void testRejectInvalidFile() throws IOException {
+        var file = folder.resolve("films.tsv");
+        Files.writeString(file, FILMS);
+
+        var exception = assertThrows(IOException.class, () -> SnapshotReader.open(file, new LongAdder()));
+        assertTrue(exception.getMessage().contains("is not a snapshot"));
+    }
+
+    private static List<Film> readFilms(RatingTable ratings) throws IOException {
+        var command = new JoinedFilmIndexCommand(ElasticClientUtil.INDEX_NAME, ratings, null);
+        List<Film> films = new ArrayList<>();
+        try (var reader = new TsvRecordReader(new ByteArrayInputStream(FILMS.getBytes(StandardCharsets.UTF_8)))) {
+            reader.next();
+            while (reader.next())
+                films.add(command.readFilm(reader.record()));
+        }
+        return films;
+    }
+}
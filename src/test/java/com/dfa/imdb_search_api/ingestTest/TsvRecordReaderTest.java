@@ -0,0 +1,100 @@
+package com.dfa.imdb_search_api.ingestTest;
+
+import com.dfa.imdb_search_api.elastic.ingest.tsv.TsvRecordReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TsvRecordReaderTest {
+
+    private static final String FILMS = """
+            tconst\ttitleType\tprimaryTitle\toriginalTitle\tisAdult\tstartYear\tendYear\truntimeMinutes\tgenres
+            tt0413300\tmovie\tSpider-Man 3\tSpider-Man 3\t0\t2007\t\\N\t139\tAction,Adventure,Sci-Fi
+            tt3322310\ttvSeries\tIron Fist\tIron Fist\t0\t2017\t2018\t55\t\\N
+            tt0000001\tshort\tCarmencita\tCarmencita\t0\t1894\t\\N\t1\tDocumentary""";
+
+    @Test
+    public void testReadFilms() throws IOException {
+        var reader = reader(FILMS, 1 << 16);
+        assertTrue(reader.next());
+        assertTrue(reader.next());
+
+        var record = reader.record();
+        assertEquals("tt0413300", record.nextString());
+        assertEquals("movie", record.nextPooledString());
+        assertEquals("Spider-Man 3", record.nextString());
+        assertEquals("Spider-Man 3", record.nextString());
+        record.skip();
+        assertEquals("2007-01-01", record.nextYearDate());
+        assertNull(record.nextYearDate());
+        assertEquals(139, record.nextInt(-1));
+        assertArrayEquals(new String[]{"Action", "Adventure", "Sci-Fi"}, record.nextPooledStringArray(','));
+        assertFalse(record.hasNext());
+
+        assertTrue(reader.next());
+        record = reader.record();
+        assertEquals(3322310, record.nextIdNumber());
+        assertEquals("tvSeries", record.nextPooledString());
+        record.skip();
+        record.skip();
+        record.skip();
+        assertEquals("2017-01-01", record.nextYearDate());
+        assertEquals("2018-01-01", record.nextYearDate());
+        record.skip();
+        assertNull(record.nextPooledStringArray(','));
+
+        // Last line, without line break
+        assertTrue(reader.next());
+        assertEquals("tt0000001", reader.record().nextString());
+        assertFalse(reader.next());
+        assertEquals(4, reader.lineNumber());
+    }
+
+    @Test
+    public void testReadRatingsWithSmallBuffer() throws IOException {
+        var reader = reader("tconst\taverageRating\tnumVotes\r\ntt0000001\t5.7\t1923\r\ntt0000002\t10\t0\r\n", 8);
+        assertTrue(reader.next());
+
+        assertTrue(reader.next());
+        var record = reader.record();
+        assertEquals("tt0000001", record.nextString());
+        assertEquals(5.7f, record.nextFloat(-1));
+        assertEquals(1923, record.nextInt(-1));
+
+        assertTrue(reader.next());
+        record = reader.record();
+        record.skip();
+        assertEquals(10f, record.nextFloat(-1));
+        assertEquals(0, record.nextInt(-1));
+        assertFalse(reader.next());
+    }
+
+    @Test
+    public void testPooledValuesAreReused() throws IOException {
+        var reader = reader("movie\tDrama,Comedy\nmovie\tComedy\n", 1 << 16);
+        assertTrue(reader.next());
+        var type = reader.record().nextPooledString();
+        var genres = reader.record().nextPooledStringArray(',');
+        assertTrue(reader.next());
+
+        assertSame(type, reader.record().nextPooledString());
+        assertSame(genres[1], reader.record().nextPooledStringArray(',')[0]);
+    }
+
+    @Test
+    public void testInvalidNumber() throws IOException {
+        var reader = reader("tt0000001\t5.x\t12a\n", 1 << 16);
+        assertTrue(reader.next());
+        reader.record().skip();
+        assertThrows(NumberFormatException.class, () -> reader.record().nextFloat(0));
+        assertThrows(NumberFormatException.class, () -> reader.record().nextInt(0));
+    }
+
+    private TsvRecordReader reader(String content, int bufferSize) {
+        return new TsvRecordReader(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), bufferSize);
+    }
+}
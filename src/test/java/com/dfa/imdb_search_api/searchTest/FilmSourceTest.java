@@ -0,0 +1,104 @@
+package com.dfa.imdb_search_api.searchTest;
+
+import com.dfa.imdb_search_api.POJO.Film;
+import com.dfa.imdb_search_api.POJO.FilmSource;
+import com.dfa.imdb_search_api.POJO.QueryResponse;
+import com.dfa.imdb_search_api.POJO.aggregations.Aggregation;
+import com.dfa.imdb_search_api.POJO.aggregations.bucket.impl.DateHistogramBucket;
+import com.dfa.imdb_search_api.POJO.aggregations.bucket.impl.TermBucket;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FilmSourceTest {
+
+    // Reads the titles like the application mapper, which ignores the unknown fields
+    private static final ObjectReader FILM_READER = new ObjectMapper()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .readerFor(Film.class);
+
+    private static final List<String> SOURCES = List.of(
+            """
+                    {"id":"tt0413300","title":"Spider-Man 3","original_title":"Spider-Man 3",\
+                    "genres":["Action","Adventure","Sci-Fi"],"type":"movie","start_year":"2007-01-01",\
+                    "average_rating":6.3,"num_votes":561000}""",
+            // Without the optional fields nor the ratings, with a single genre
+            """
+                    {"id":"tt0000001","title":"Carmencita","genres":["Documentary"],"type":"short",\
+                    "start_year":"1894-01-01"}""",
+            // Out of order, with unknown fields and characters to escape
+            """
+                    {"num_votes":12,"unknown":{"nested":[1,2]},"type":"tvSeries","title":"Quote \\" and \\u00e9",\
+                    "end_year":"2001-01-01","id":"tt0000002","average_rating":7.1,"genres":[]}""");
+
+    @Test
+    public void testSameJsonAsTheFilm() throws JsonProcessingException {
+        var plain = new ObjectMapper();
+        var micronaut = new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_EMPTY);
+        var nonNull = new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+        for (var mapper : List.of(plain, micronaut, nonNull)) {
+            var reader = mapper.copy().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES).readerFor(Film.class);
+            for (var source : SOURCES) {
+                Film film = reader.readValue(source);
+                // The sources always unwrap the single genres
+                assertEquals(mapper.writer().with(SerializationFeature.WRITE_SINGLE_ELEM_ARRAYS_UNWRAPPED)
+                        .writeValueAsString(film), mapper.writeValueAsString(source(source)), source);
+            }
+        }
+    }
+
+    @Test
+    public void testResponseStreamsTheSources() throws JsonProcessingException {
+        var mapper = new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_EMPTY);
+        var sources = SOURCES.stream().map(FilmSourceTest::source).toArray(FilmSource[]::new);
+        var films = Arrays.stream(sources).map(FilmSource::toFilm).toArray(Film[]::new);
+
+        var streamed = response(sources);
+        assertEquals(mapper.writer().with(SerializationFeature.WRITE_SINGLE_ELEM_ARRAYS_UNWRAPPED)
+                .writeValueAsString(response(films)), mapper.writeValueAsString(streamed));
+        assertArrayEquals(films, streamed.getItems());
+        assertSame(streamed.getItems(), streamed.getItems());
+    }
+
+    @Test
+    public void testPartialSourceWritesOnlyItsFields() throws JsonProcessingException {
+        var mapper = new ObjectMapper();
+        var bytes = "{\"id\":\"tt0413300\",\"title\":\"Spider-Man 3\"}".getBytes(StandardCharsets.UTF_8);
+        var source = new FilmSource(bytes, 0, bytes.length, Set.of("id", "title"), FILM_READER);
+
+        assertEquals("{\"id\":\"tt0413300\",\"title\":\"Spider-Man 3\"}", mapper.writeValueAsString(source));
+    }
+
+    /**
+     * Helper method, wraps the source in the middle of a bigger array, like the buffers of the client.
+     */
+    private static FilmSource source(String json) {
+        var bytes = ("  " + json + "  ").getBytes(StandardCharsets.UTF_8);
+        return new FilmSource(bytes, 2, bytes.length - 4, FILM_READER);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static QueryResponse response(Film[] films) {
+        return new QueryResponse(films.length, films, new Aggregation[]{new Aggregation<>("genres",
+                new TermBucket[0])}, new Aggregation<>("decades", new DateHistogramBucket[0]), MissingNode.getInstance());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static QueryResponse response(FilmSource[] sources) {
+        return new QueryResponse(sources.length, sources, new Aggregation[]{new Aggregation<>("genres",
+                new TermBucket[0])}, new Aggregation<>("decades", new DateHistogramBucket[0]), null);
+    }
+}
@@ -0,0 +1,56 @@
+package com.dfa.imdb_search_api.searchTest;
+
+import com.dfa.imdb_search_api.POJO.FilmSource;
+import com.dfa.imdb_search_api.POJO.QueryResponse;
+import com.dfa.imdb_search_api.POJO.aggregations.Aggregation;
+import com.dfa.imdb_search_api.POJO.aggregations.bucket.impl.DateHistogramBucket;
+import com.dfa.imdb_search_api.POJO.aggregations.bucket.impl.TermBucket;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.text.Text;
+import org.elasticsearch.search.suggest.phrase.PhraseSuggestion;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PhraseSuggestionSerializerTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    public void testSameJsonAsElasticSearch() throws IOException {
+        var suggestion = new PhraseSuggestion("title_term_suggestion", 5);
+        var entry = new PhraseSuggestion.Entry(new Text("abengers \"endgame\""), 0, 18, 0.5);
+        entry.addOption(new PhraseSuggestion.Entry.Option(new Text("avengers \"endgame\""), null, 0.0012345678f));
+        entry.addOption(new PhraseSuggestion.Entry.Option(new Text("avenger endgame"),
+                new Text("<em>avenger</em> endgame"), 3.5E-7f));
+        suggestion.addTerm(entry);
+
+        var response = response(suggestion);
+        var json = mapper.readTree(mapper.writeValueAsString(response));
+
+        // The same JSON as the tree parsed from ElasticSearch's own rendering of the suggestion
+        var expected = mapper.readTree(Strings.toString(suggestion));
+        assertEquals(mapper.writeValueAsString(expected), mapper.writeValueAsString(json.get("suggestions")));
+        assertEquals(expected, response.getSuggestion());
+        assertTrue(response.hasSuggestion());
+    }
+
+    @Test
+    public void testWithoutSuggestion() throws IOException {
+        var response = response(null);
+        var json = mapper.readTree(mapper.writeValueAsString(response));
+
+        assertTrue(json.get("suggestions").isNull());
+        assertTrue(response.getSuggestion().isMissingNode());
+        assertFalse(response.hasSuggestion());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static QueryResponse response(PhraseSuggestion suggestion) {
+        return new QueryResponse(0, new FilmSource[0], new Aggregation[]{new Aggregation<>("genres",
+                new TermBucket[0])}, new Aggregation<>("decades", new DateHistogramBucket[0]), suggestion);
+    }
+}
@@ -0,0 +1,59 @@
+package com.dfa.imdb_search_api.searchTest;
+
+import com.dfa.imdb_search_api.POJO.Film;
+import com.dfa.imdb_search_api.POJO.FilmSource;
+import com.dfa.imdb_search_api.POJO.QueryResponse;
+import com.dfa.imdb_search_api.POJO.aggregations.Aggregation;
+import com.dfa.imdb_search_api.POJO.aggregations.bucket.impl.DateHistogramBucket;
+import com.dfa.imdb_search_api.POJO.aggregations.bucket.impl.TermBucket;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import io.micronaut.context.ApplicationContext;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResponseSerializationTest {
+
+    @Test
+    public void testAggregationNamesAreEscaped() throws JsonProcessingException {
+        var mapper = new ObjectMapper();
+        @SuppressWarnings("unchecked")
+        var response = new QueryResponse(0, new Film[0], new Aggregation[]{new Aggregation<>("genres",
+                new TermBucket[]{new TermBucket("Quote \" and \\", 3), new TermBucket("Drama", 2)})},
+                new Aggregation<>("decades", new DateHistogramBucket[]{new DateHistogramBucket(4, "1990")}),
+                MissingNode.getInstance());
+
+        var aggregations = mapper.readTree(mapper.writeValueAsString(response)).get("aggregations");
+        assertEquals(3, aggregations.get(0).get("genres").get("Quote \" and \\").asLong());
+        assertEquals(2, aggregations.get(0).get("genres").get("Drama").asLong());
+        assertEquals(4, aggregations.get(1).get("decades").get("1991-2000").asLong());
+    }
+
+    @Test
+    public void testOnlyTheSearchResponseUnwrapsTheGenres() throws JsonProcessingException {
+        try (var context = ApplicationContext.run()) {
+            var mapper = context.getBean(ObjectMapper.class);
+
+            // A multi-get of a single id is still an array, and so are the genres of its title
+            var titles = mapper.readTree(mapper.writeValueAsString(new Film[]{new Film("tt0000001", "Carmencita",
+                    new String[]{"Documentary"}, "short", "1894-01-01", null)}));
+            assertTrue(titles.isArray());
+            assertTrue(titles.get(0).get("genres").isArray());
+
+            var bytes = "{\"id\":\"tt0000001\",\"genres\":[\"Documentary\"],\"unknown\":1}"
+                    .getBytes(StandardCharsets.UTF_8);
+            var source = new FilmSource(bytes, 0, bytes.length, mapper.readerFor(Film.class));
+            @SuppressWarnings("unchecked")
+            var response = new QueryResponse(1, new FilmSource[]{source}, new Aggregation[0], null, null);
+            var items = mapper.readTree(mapper.writeValueAsString(response)).get("items");
+            assertTrue(items.isArray());
+            assertEquals("Documentary", items.get(0).get("genres").textValue());
+            // The title is read with the configuration of the application mapper
+            assertEquals("tt0000001", response.getItems()[0].getId());
+        }
+    }
+}
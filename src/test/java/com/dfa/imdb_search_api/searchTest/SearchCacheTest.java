@@ -0,0 +1,139 @@
+package com.dfa.imdb_search_api.searchTest;
+
+import com.dfa.imdb_search_api.POJO.Film;
+import com.dfa.imdb_search_api.POJO.QueryResponse;
+import com.dfa.imdb_search_api.POJO.aggregations.Aggregation;
+import com.dfa.imdb_search_api.POJO.aggregations.bucket.impl.DateHistogramBucket;
+import com.dfa.imdb_search_api.POJO.aggregations.bucket.impl.TermBucket;
+import com.dfa.imdb_search_api.elastic.search.IndexGeneration;
+import com.dfa.imdb_search_api.elastic.search.SearchCache;
+import com.dfa.imdb_search_api.elastic.search.SearchCacheConfiguration;
+import com.dfa.imdb_search_api.elastic.search.SearchKey;
+import com.dfa.imdb_search_api.elastic.search.SearchLoader;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SearchCacheTest {
+
+    @Test
+    public void testCanonicalKey() {
+        var key = SearchKey.of(Map.of("query", "  Iron \t Man ", "genres", "Drama, Action", "type", "movie",
+                "date", "", "filters", ""));
+        var same = SearchKey.of(Map.of("query", "iron man", "genres", "Action,Drama,Drama", "type", " movie",
+                "filters", ""));
+        var other = SearchKey.of(Map.of("query", "iron man", "genres", "action,drama", "type", "movie"));
+
+        assertEquals(key, same);
+        assertEquals(key.hashCode(), same.hashCode());
+        assertNotEquals(key, other);
+        assertEquals("Iron Man", key.getParams().get("query"));
+        assertEquals("Action,Drama", key.getParams().get("genres"));
+
+        var projected = SearchKey.of(Map.of("query", "iron man", "include", "items", "fields", "title, id"));
+        assertEquals(projected, SearchKey.of(Map.of("query", "Iron Man", "include", "items,items",
+                "fields", "id,title")));
+        assertNotEquals(projected, SearchKey.of(Map.of("query", "iron man", "include", "items")));
+    }
+
+    @Test
+    public void testInvalidateOnNewGeneration() {
+        var generation = new IndexGeneration();
+        var cache = new SearchCache(new SearchCacheConfiguration(), generation, Runnable::run);
+        List<Map<String, String>> searches = new ArrayList<>();
+        SearchLoader loader = params -> {
+            searches.add(params);
+            return CompletableFuture.completedFuture(response(searches.size()));
+        };
+
+        assertEquals(1, cache.get(SearchKey.of(Map.of("query", "Matrix")), loader).join().getTotal());
+        assertEquals(1, cache.get(SearchKey.of(Map.of("query", " MATRIX ")), loader).join().getTotal());
+        assertEquals(2, cache.get(SearchKey.of(Map.of("query", "The Matrix")), loader).join().getTotal());
+        assertEquals(2, searches.size());
+
+        generation.bump();
+        assertEquals(3, cache.get(SearchKey.of(Map.of("query", "Matrix")), loader).join().getTotal());
+
+        var stats = cache.stats();
+        assertEquals(1, stats.getHits());
+        assertEquals(3, stats.getMisses());
+        assertEquals(1, stats.getSize());
+        assertTrue(stats.getWeight() > 0);
+    }
+
+    @Test
+    public void testServeStaleWhileRefreshing() {
+        var configuration = new SearchCacheConfiguration();
+        configuration.setRefreshAfterWrite(Duration.ZERO);
+        List<Runnable> refreshes = new ArrayList<>();
+        var cache = new SearchCache(configuration, new IndexGeneration(), refreshes::add);
+        var key = SearchKey.of(Map.of("query", "Matrix"));
+        var searches = new int[1];
+
+        assertEquals(1, cache.get(key, params -> completed(++searches[0])).join().getTotal());
+        // The stale result is served, and refreshed just once
+        assertEquals(1, cache.get(key, params -> completed(++searches[0])).join().getTotal());
+        assertEquals(1, cache.get(key, params -> completed(++searches[0])).join().getTotal());
+        assertEquals(1, refreshes.size());
+
+        refreshes.get(0).run();
+        assertEquals(2, cache.get(key, params -> completed(++searches[0])).join().getTotal());
+        assertEquals(1, cache.stats().getRefreshes());
+    }
+
+    @Test
+    public void testKeepStaleResultIfTheRefreshFails() {
+        var configuration = new SearchCacheConfiguration();
+        configuration.setRefreshAfterWrite(Duration.ZERO);
+        var cache = new SearchCache(configuration, new IndexGeneration(), Runnable::run);
+        var key = SearchKey.of(Map.of("query", "Matrix"));
+
+        cache.get(key, params -> completed(1)).join();
+        assertEquals(1, cache.get(key, params ->
+                CompletableFuture.failedFuture(new IOException("Cluster unavailable"))).join().getTotal());
+        assertEquals(1, cache.get(key, params -> completed(2)).join().getTotal());
+        assertEquals(2, cache.get(key, params -> completed(3)).join().getTotal());
+        assertEquals(1, cache.stats().getFailedRefreshes());
+    }
+
+    @Test
+    public void testDoNotCacheFailedOrOutdatedSearches() {
+        var generation = new IndexGeneration();
+        var cache = new SearchCache(new SearchCacheConfiguration(), generation, Runnable::run);
+        var key = SearchKey.of(Map.of("query", "Matrix"));
+
+        var failed = cache.get(key, params -> CompletableFuture.failedFuture(new IOException("Cluster unavailable")));
+        var error = assertThrows(CompletionException.class, failed::join);
+        assertInstanceOf(IOException.class, error.getCause());
+
+        // The index changes while the search is in flight
+        var pending = new CompletableFuture<QueryResponse>();
+        var outdated = cache.get(key, params -> pending);
+        generation.bump();
+        pending.complete(response(1));
+        assertEquals(1, outdated.join().getTotal());
+
+        assertEquals(2, cache.get(key, params -> completed(2)).join().getTotal());
+        assertEquals(0, cache.stats().getHits());
+    }
+
+    private static CompletableFuture<QueryResponse> completed(long total) {
+        return CompletableFuture.completedFuture(response(total));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static QueryResponse response(long total) {
+        var film = new Film("tt0133093", "The Matrix", new String[]{"Action", "Sci-Fi"}, "movie", "1999-01-01", null);
+        return new QueryResponse(total, new Film[]{film}, new Aggregation[]{new Aggregation<>("genres",
+                new TermBucket[0])}, new Aggregation<>("decades", new DateHistogramBucket[0]), MissingNode.getInstance());
+    }
+}
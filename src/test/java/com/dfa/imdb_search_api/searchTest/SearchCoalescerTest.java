@@ -0,0 +1,97 @@
+package com.dfa.imdb_search_api.searchTest;
+
+import com.dfa.imdb_search_api.POJO.Film;
+import com.dfa.imdb_search_api.POJO.QueryResponse;
+import com.dfa.imdb_search_api.POJO.aggregations.Aggregation;
+import com.dfa.imdb_search_api.elastic.search.IndexGeneration;
+import com.dfa.imdb_search_api.elastic.search.SearchCoalescer;
+import com.dfa.imdb_search_api.elastic.search.SearchKey;
+import com.dfa.imdb_search_api.elastic.search.SearchLoader;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SearchCoalescerTest {
+
+    @Test
+    public void testShareConcurrentIdenticalSearches() {
+        var coalescer = new SearchCoalescer(new IndexGeneration());
+        List<CompletableFuture<QueryResponse>> searches = new ArrayList<>();
+        SearchLoader loader = params -> {
+            var search = new CompletableFuture<QueryResponse>();
+            searches.add(search);
+            return search;
+        };
+
+        var first = coalescer.get(SearchKey.of(Map.of("query", "Matrix")), loader);
+        var second = coalescer.get(SearchKey.of(Map.of("query", " matrix")), loader);
+        var other = coalescer.get(SearchKey.of(Map.of("query", "Avengers")), loader);
+        assertEquals(2, searches.size());
+        assertEquals(2, coalescer.getInFlight());
+
+        var response = response(7);
+        searches.get(0).complete(response);
+        assertSame(response, first.join());
+        assertSame(response, second.join());
+        assertFalse(other.isDone());
+        assertEquals(1, coalescer.getInFlight());
+
+        // Once completed, the next search of the key is sent again
+        coalescer.get(SearchKey.of(Map.of("query", "Matrix")), loader);
+        assertEquals(3, searches.size());
+        assertEquals(3, coalescer.getSearches());
+        assertEquals(1, coalescer.getCoalesced());
+    }
+
+    @Test
+    public void testShareFailuresAndCancelEachCopy() {
+        var coalescer = new SearchCoalescer(new IndexGeneration());
+        var search = new CompletableFuture<QueryResponse>();
+        var key = SearchKey.of(Map.of("query", "Matrix"));
+
+        var first = coalescer.get(key, params -> search);
+        var second = coalescer.get(key, params -> fail());
+        var third = coalescer.get(key, params -> fail());
+        third.cancel(true);
+
+        search.completeExceptionally(new IOException("Cluster unavailable"));
+        assertInstanceOf(IOException.class, assertThrows(CompletionException.class, first::join).getCause());
+        assertInstanceOf(IOException.class, assertThrows(CompletionException.class, second::join).getCause());
+        assertEquals(0, coalescer.getInFlight());
+    }
+
+    @Test
+    public void testDoNotShareSearchesOfPreviousGenerations() {
+        var generation = new IndexGeneration();
+        var coalescer = new SearchCoalescer(generation);
+        var key = SearchKey.of(Map.of("query", "Matrix"));
+        var outdated = new CompletableFuture<QueryResponse>();
+
+        var first = coalescer.get(key, params -> outdated);
+        generation.bump();
+        var second = coalescer.get(key, params -> CompletableFuture.completedFuture(response(2)));
+        outdated.complete(response(1));
+
+        assertEquals(1, first.join().getTotal());
+        assertEquals(2, second.join().getTotal());
+        assertEquals(0, coalescer.getCoalesced());
+        assertEquals(0, coalescer.getInFlight());
+    }
+
+    private static CompletableFuture<QueryResponse> fail() {
+        throw new AssertionError("The search should have been shared");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static QueryResponse response(long total) {
+        return new QueryResponse(total, new Film[0], new Aggregation[0], null, MissingNode.getInstance());
+    }
+}
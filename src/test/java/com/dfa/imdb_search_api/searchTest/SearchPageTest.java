@@ -0,0 +1,61 @@
+package com.dfa.imdb_search_api.searchTest;
+
+import com.dfa.imdb_search_api.elastic.search.InvalidSearchParamException;
+import com.dfa.imdb_search_api.elastic.search.SearchCursor;
+import com.dfa.imdb_search_api.elastic.search.SearchPage;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SearchPageTest {
+
+    @Test
+    public void testShallowPages() {
+        var first = SearchPage.of(Map.of("query", "Matrix"));
+        assertEquals(SearchPage.DEFAULT_SIZE, first.getSize());
+        assertEquals(0, first.getFrom());
+        assertFalse(first.isCursor());
+
+        var page = SearchPage.of(Map.of("size", "25", "from", " 50 "));
+        assertEquals(25, page.getSize());
+        assertEquals(50, page.getFrom());
+        assertFalse(page.isCursor());
+    }
+
+    @Test
+    public void testRefuseInvalidPages() {
+        assertThrows(InvalidSearchParamException.class, () -> SearchPage.of(Map.of("size", "ten")));
+        assertThrows(InvalidSearchParamException.class, () -> SearchPage.of(Map.of("from", "-10")));
+        assertThrows(InvalidSearchParamException.class, () -> SearchPage.of(Map.of("size", "101")));
+        assertThrows(InvalidSearchParamException.class, () -> SearchPage.of(Map.of("size", "10", "from", "995")));
+        assertThrows(InvalidSearchParamException.class, () -> SearchPage.of(Map.of("from", "2147483647")));
+        assertThrows(InvalidSearchParamException.class, () -> SearchPage.of(Map.of("cursor", "*", "from", "10")));
+        assertThrows(InvalidSearchParamException.class, () -> SearchPage.of(Map.of("cursor", "not a cursor")));
+    }
+
+    @Test
+    public void testCursorPages() {
+        var first = SearchPage.of(Map.of("cursor", "*", "size", "50"));
+        assertTrue(first.isCursor());
+        assertTrue(first.isFirstCursor());
+        assertEquals(50, first.getSize());
+        assertNull(first.getAfter());
+
+        var cursor = new SearchCursor("46ToAwMDaWR5", new Object[]{1.25f, 4294967297L});
+        var next = SearchPage.of(Map.of("cursor", cursor.encode(), "size", "50"));
+        assertTrue(next.isCursor());
+        assertFalse(next.isFirstCursor());
+        assertEquals(cursor.getPointInTime(), next.getAfter().getPointInTime());
+        assertEquals(1.25, ((Number) next.getAfter().getAfter()[0]).doubleValue());
+        assertEquals(4294967297L, ((Number) next.getAfter().getAfter()[1]).longValue());
+    }
+
+    @Test
+    public void testCursorTokenIsUrlSafe() {
+        var token = new SearchCursor("a+b/c==?&", new Object[]{0.5f, 7L}).encode();
+        assertTrue(token.matches("[A-Za-z0-9_-]+"), token);
+        assertEquals("a+b/c==?&", SearchCursor.decode(token).getPointInTime());
+    }
+}
@@ -0,0 +1,114 @@
+package com.dfa.imdb_search_api.searchTest;
+
+import com.dfa.imdb_search_api.elastic.search.InvalidSearchParamException;
+import com.dfa.imdb_search_api.elastic.search.SearchTemplate;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.MatchAllQueryBuilder;
+import org.elasticsearch.index.query.MultiMatchQueryBuilder;
+import org.elasticsearch.index.query.functionscore.FunctionScoreQueryBuilder;
+import org.elasticsearch.script.TemplateScript;
+import org.elasticsearch.script.mustache.MustacheScriptEngine;
+import org.elasticsearch.search.SearchModule;
+import org.elasticsearch.search.aggregations.bucket.filter.FilterAggregationBuilder;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.xcontent.DeprecationHandler;
+import org.elasticsearch.xcontent.NamedXContentRegistry;
+import org.elasticsearch.xcontent.XContentType;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SearchTemplateTest {
+
+    private static final NamedXContentRegistry REGISTRY = new NamedXContentRegistry(
+            new SearchModule(Settings.EMPTY, false, List.of()).getNamedXContents());
+
+    private final SearchTemplate template = new SearchTemplate();
+
+    @Test
+    public void testRenderQueryFiltersAndFacets() throws IOException {
+        var source = render(Map.of("query", "The \"Matrix\"", "genres", "Action,Sci-Fi", "type", "movie",
+                "date", "1990-1999,2000-2009", "filters", "genres:Drama,date:1990-1999"), true);
+
+        var query = (BoolQueryBuilder) source.query();
+        var ranking = (FunctionScoreQueryBuilder) query.must().get(0);
+        assertEquals("The \"Matrix\"", ((MultiMatchQueryBuilder) ranking.query()).value());
+        assertEquals(8, ranking.filterFunctionBuilders().length);
+        // Two genres, the type and the dates
+        assertEquals(4, query.filter().size());
+        assertEquals(2, ((BoolQueryBuilder) query.filter().get(3)).should().size());
+        assertEquals(2, ((BoolQueryBuilder) source.postFilter()).filter().size());
+
+        var facets = source.aggregations().getAggregatorFactories();
+        assertEquals(3, facets.size());
+        for (var facet : facets) {
+            var filter = (BoolQueryBuilder) ((FilterAggregationBuilder) facet).getFilter();
+            // The facet of a field is not filtered by the filter of that same field
+            int expected = facet.getName().equals("types_filter") ? 2 : 1;
+            assertEquals(expected, filter.filter().size(), facet.getName());
+        }
+        assertNotNull(source.suggest().getSuggestions().get("title_term_suggestion"));
+        assertEquals(10, source.size());
+    }
+
+    @Test
+    public void testRenderMatchAllWithoutFilters() throws IOException {
+        var source = render(Map.of("query", "", "genres", "", "type", "", "date", "", "filters", ""), false);
+
+        var query = (BoolQueryBuilder) source.query();
+        assertInstanceOf(MatchAllQueryBuilder.class, ((FunctionScoreQueryBuilder) query.must().get(0)).query());
+        assertTrue(query.filter().isEmpty());
+        assertTrue(((BoolQueryBuilder) source.postFilter()).filter().isEmpty());
+        assertNull(source.suggest());
+    }
+
+    @Test
+    public void testRenderOnlyTheIncludedSections() throws IOException {
+        var facets = render(Map.of("query", "Matrix", "include", "aggregations"), false);
+        assertEquals(0, facets.size());
+        assertFalse(facets.fetchSource().fetchSource());
+        assertEquals(3, facets.aggregations().getAggregatorFactories().size());
+
+        var titles = render(Map.of("query", "Matrix", "include", "items", "fields", "id,title"), false);
+        assertEquals(10, titles.size());
+        assertArrayEquals(new String[]{"id", "title"}, titles.fetchSource().includes());
+        assertNull(titles.aggregations());
+    }
+
+    @Test
+    public void testRenderThePage() throws IOException {
+        var page = render(Map.of("query", "Matrix", "size", "25", "from", "50"), false);
+        assertEquals(25, page.size());
+        assertEquals(50, page.from());
+    }
+
+    @Test
+    public void testRefuseUnknownSections() {
+        assertThrows(InvalidSearchParamException.class, () -> template.params(Map.of("include", "hits"), false));
+        assertThrows(InvalidSearchParamException.class, () -> template.params(Map.of("fields", "id,plot"), false));
+    }
+
+    @Test
+    public void testIdFollowsTheSource() {
+        assertEquals(template.getId(), new SearchTemplate().getId());
+        assertTrue(template.getId().startsWith("imdb-search-"));
+    }
+
+    /**
+     * Helper method, renders the template as ElasticSearch does and parses the resulting search.
+     */
+    private SearchSourceBuilder render(Map<String, String> params, boolean needSuggestions) throws IOException {
+        var factory = new MustacheScriptEngine().compile(template.getId(), template.getSource(),
+                TemplateScript.CONTEXT, Map.of());
+        var json = factory.newInstance(template.params(params, needSuggestions)).execute();
+        try (var parser = XContentType.JSON.xContent().createParser(REGISTRY,
+                DeprecationHandler.THROW_UNSUPPORTED_OPERATION, json)) {
+            return SearchSourceBuilder.fromXContent(parser);
+        }
+    }
+}